@@ -0,0 +1,144 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.languagetool.openoffice.OfficeTools.DocumentType;
+
+import com.sun.star.beans.PropertyState;
+import com.sun.star.beans.PropertyValue;
+import com.sun.star.lang.Locale;
+import com.sun.star.linguistic2.SingleProofreadingError;
+
+/**
+ * Synthetic documents for the benchmarks
+ * The documents are created headless (without a running office) by the test interface of SingleDocument
+ * @since 6.5
+ * @author Fred Kruse
+ */
+class BenchmarkDocument {
+
+  static final Locale LOCALE = new Locale("en", "US", "");
+
+  private static final String[] SENTENCES = {
+      "This is a example sentence with an mistake.",
+      "The quick brown fox jumps over the lazy dog.",
+      "He go to the office every day , but he don't like it.",
+      "Its a nice day today and the sun is shining.",
+      "We has to check the the text before we send it."
+  };
+  private static final String[] RULE_IDS = { "EN_A_VS_AN", "COMMA_PARENTHESIS_WHITESPACE", "HE_VERB_AGR", "IT_IS", "ENGLISH_WORD_REPEAT_RULE" };
+
+  final List<String> paragraphs;
+  final List<List<String>> textParagraphs;
+  final List<int[]> footnotes;
+  final List<List<Integer>> chapterBegins;
+
+  private MultiDocumentsHandler documents;
+  private SingleDocument document;
+
+  BenchmarkDocument(int nParagraphs) {
+    paragraphs = new ArrayList<>(nParagraphs);
+    footnotes = new ArrayList<>(nParagraphs);
+    for (int i = 0; i < nParagraphs; i++) {
+      StringBuilder sb = new StringBuilder();
+      //  one to three sentences per paragraph
+      for (int j = 0; j <= i % 3; j++) {
+        if (j > 0) {
+          sb.append(' ');
+        }
+        sb.append(SENTENCES[(i + j) % SENTENCES.length]);
+      }
+      paragraphs.add(sb.toString());
+      footnotes.add(new int[0]);
+    }
+    textParagraphs = new ArrayList<>();
+    chapterBegins = new ArrayList<>();
+    for (int i = 0; i < DocumentCache.NUMBER_CURSOR_TYPES; i++) {
+      textParagraphs.add(i == DocumentCache.CURSOR_TYPE_TEXT ? new ArrayList<>(paragraphs) : new ArrayList<>());
+      chapterBegins.add(new ArrayList<>());
+    }
+  }
+
+  /**
+   * initialize LT in test mode and set the synthetic paragraphs as content of the document
+   */
+  SingleDocument getDocument() {
+    if (document == null) {
+      Main prog = new Main(null);
+      prog.setTestMode(true);
+      PropertyValue[] propertyValues = { new PropertyValue("FootnotePositions", -1, new int[0], PropertyState.DIRECT_VALUE) };
+      //  one proof has to be done to initialize LT and the SingleDocument class
+      prog.doProofreading("1", paragraphs.get(0), LOCALE, 0, paragraphs.get(0).length(), propertyValues);
+      documents = prog.getMultiDocumentsHandler();
+      document = documents.getDocuments().get(0);
+      document.setDocumentCacheForTests(paragraphs, textParagraphs, footnotes, chapterBegins, LOCALE);
+    }
+    return document;
+  }
+
+  SwJLanguageTool getLanguageTool() {
+    getDocument();
+    return documents.getLanguageTool();
+  }
+
+  /**
+   * a document cache of the synthetic paragraphs (without initialization of LT)
+   */
+  DocumentCache createDocumentCache() {
+    DocumentCache docCache = new DocumentCache(DocumentType.WRITER);
+    docCache.setForTest(paragraphs, textParagraphs, footnotes, chapterBegins, LOCALE);
+    return docCache;
+  }
+
+  /**
+   * a result cache with nErrors errors for every paragraph
+   */
+  ResultCache createResultCache(int nErrors) {
+    ResultCache cache = new ResultCache();
+    for (int i = 0; i < paragraphs.size(); i++) {
+      cache.put(i, null, createErrors(paragraphs.get(i).length(), nErrors, i));
+    }
+    return cache;
+  }
+
+  /**
+   * nErrors (partly overlapping) errors for a paragraph of length nChars
+   */
+  static SingleProofreadingError[] createErrors(int nChars, int nErrors, long seed) {
+    Random random = new Random(seed);
+    SingleProofreadingError[] errors = new SingleProofreadingError[nErrors];
+    for (int i = 0; i < nErrors; i++) {
+      SingleProofreadingError error = new SingleProofreadingError();
+      error.nErrorStart = random.nextInt(Math.max(1, nChars - 10));
+      error.nErrorLength = 1 + random.nextInt(10);
+      error.aRuleIdentifier = RULE_IDS[random.nextInt(RULE_IDS.length)];
+      error.aShortComment = "";
+      error.aFullComment = "";
+      error.aSuggestions = new String[] { "suggestion" };
+      error.aProperties = new PropertyValue[0];
+      errors[i] = error;
+    }
+    return errors;
+  }
+
+}
@@ -0,0 +1,177 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.languagetool.JLanguageTool;
+import org.languagetool.openoffice.OfficeTools.LoErrorType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.star.linguistic2.SingleProofreadingError;
+
+/**
+ * Benchmarks for the caches of a document:
+ * result cache (put, get, remove and shift), copy of the document cache and save / load of the cache file
+ * Run by: mvn -P benchmark test-compile exec:exec
+ * @since 6.5
+ * @author Fred Kruse
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+  private static final int ERRORS_PER_PARAGRAPH = 4;
+
+  @Param({ "1000", "10000", "100000" })
+  public int nParagraphs;
+
+  private BenchmarkDocument document;
+  private DocumentCache docCache;
+  private ResultCache resultCache;
+  private List<ResultCache> paragraphsCache;
+  private SingleProofreadingError[] errors;
+  private CacheIO cacheIO;
+  private String cachePath;
+  private Random random;
+
+  @Setup(Level.Trial)
+  public void setupTrial() throws IOException {
+    document = new BenchmarkDocument(nParagraphs);
+    docCache = document.createDocumentCache();
+    resultCache = document.createResultCache(ERRORS_PER_PARAGRAPH);
+    errors = BenchmarkDocument.createErrors(100, ERRORS_PER_PARAGRAPH, 0);
+    paragraphsCache = new ArrayList<>();
+    for (int i = 0; i < OfficeTools.NUMBER_CACHE; i++) {
+      paragraphsCache.add(document.createResultCache(i == 0 ? ERRORS_PER_PARAGRAPH : 1));
+    }
+    cacheIO = new CacheIO();
+    cacheIO.setAllCaches(cacheIO.new AllCaches(docCache, paragraphsCache, new HashMap<>(), new HashSet<>(),
+        new HashSet<>(), new HashSet<>(), new IgnoredMatches(), JLanguageTool.VERSION));
+    File cacheFile = File.createTempFile("LtCache", ".lcz");
+    cacheFile.deleteOnExit();
+    cachePath = cacheFile.getAbsolutePath();
+    cacheIO.saveAllCaches(cachePath);
+    random = new Random(0);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownTrial() {
+    new File(cachePath).delete();
+  }
+
+  /**
+   * a fresh copy of the result cache for every invocation of the shift benchmarks
+   * (separate state, so that the copy is not done for the other benchmarks)
+   */
+  @State(Scope.Thread)
+  public static class ShiftState {
+    ResultCache shiftCache;
+
+    @Setup(Level.Invocation)
+    public void setupInvocation(CacheBenchmark benchmark) {
+      shiftCache = new ResultCache(benchmark.resultCache);
+    }
+  }
+
+  @Benchmark
+  public ResultCache resultCachePut() {
+    ResultCache cache = new ResultCache();
+    for (int i = 0; i < nParagraphs; i++) {
+      cache.put(i, null, errors);
+    }
+    return cache;
+  }
+
+  @Benchmark
+  public SingleProofreadingError[] resultCacheGet() {
+    return resultCache.getMatches(random.nextInt(nParagraphs), LoErrorType.GRAMMAR);
+  }
+
+  @Benchmark
+  public List<SingleProofreadingError> resultCacheErrorsAtPosition() {
+    return resultCache.getErrorsAtPosition(random.nextInt(nParagraphs), random.nextInt(40));
+  }
+
+  /**
+   * insert of a paragraph at the begin of the document (worst case for shifting)
+   */
+  @Benchmark
+  public ResultCache resultCacheInsertParagraph(ShiftState state) {
+    state.shiftCache.removeAndShift(0, 2, nParagraphs, nParagraphs + 1);
+    return state.shiftCache;
+  }
+
+  /**
+   * delete of a paragraph in the middle of the document
+   */
+  @Benchmark
+  public ResultCache resultCacheDeleteParagraph(ShiftState state) {
+    int from = nParagraphs / 2;
+    state.shiftCache.removeAndShift(from, from + 1, nParagraphs, nParagraphs - 1);
+    return state.shiftCache;
+  }
+
+  @Benchmark
+  public DocumentCache documentCacheCopy() {
+    return new DocumentCache(docCache);
+  }
+
+  /**
+   * save of the cache file by CacheIO
+   */
+  @Benchmark
+  public String cacheSave() {
+    cacheIO.saveAllCaches(cachePath);
+    return cachePath;
+  }
+
+  /**
+   * load of the cache file by CacheIO
+   */
+  @Benchmark
+  public DocumentCache cacheLoad() {
+    cacheIO.readCacheFile(cachePath);
+    return cacheIO.getDocumentCache();
+  }
+
+}
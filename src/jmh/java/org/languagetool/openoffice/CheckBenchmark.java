@@ -0,0 +1,125 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.languagetool.openoffice.DocumentCache.AnalysedText;
+import org.languagetool.openoffice.DocumentCache.TextParagraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.star.linguistic2.SingleProofreadingError;
+
+/**
+ * Benchmarks for the check of a document:
+ * analysis of paragraphs, check of a paragraph into the result cache, merge and filter of errors
+ * LT is initialized in test mode; no running office is needed
+ * Run by: mvn -P benchmark test-compile exec:exec
+ * @since 6.5
+ * @author Fred Kruse
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckBenchmark {
+
+  private static final int ANALYZED_PARAGRAPHS = 10;   //  number of paragraphs analyzed together
+  private static final int MERGED_CACHES = 3;          //  number of error arrays merged for one paragraph
+  private static final int OVERLAPPING_ERRORS = 20;    //  number of errors for the filter of overlapping errors
+
+  @Param({ "1000", "10000", "100000" })
+  public int nParagraphs;
+
+  private SingleDocument document;
+  private DocumentCache docCache;
+  private SwJLanguageTool lt;
+  private SingleCheck singleCheck;
+  private List<SingleProofreadingError[]> pErrors;
+  private SingleProofreadingError[] overlappingErrors;
+  private Random random;
+
+  @Setup(Level.Trial)
+  public void setupTrial() {
+    BenchmarkDocument benchmarkDocument = new BenchmarkDocument(nParagraphs);
+    document = benchmarkDocument.getDocument();
+    lt = benchmarkDocument.getLanguageTool();
+    docCache = document.getDocumentCache();
+    singleCheck = new SingleCheck(document, document.getParagraphsCache(), lt.getLanguage(), lt.getLanguage(),
+        -1, false, false, false);
+    pErrors = new ArrayList<>();
+    for (int i = 0; i < MERGED_CACHES; i++) {
+      pErrors.add(BenchmarkDocument.createErrors(100, 2, i));
+    }
+    overlappingErrors = BenchmarkDocument.createErrors(100, OVERLAPPING_ERRORS, 0);
+    random = new Random(0);
+  }
+
+  /**
+   * clears the analyzed paragraphs before every invocation of getAnalyzedParagraphs
+   * (separate state, so that the other benchmarks keep the analyzed paragraphs)
+   */
+  @State(Scope.Thread)
+  public static class ClearedAnalysisState {
+    @Setup(Level.Invocation)
+    public void setupInvocation(CheckBenchmark benchmark) {
+      benchmark.docCache.clearAnalyzedParagraphs();
+    }
+  }
+
+  @Benchmark
+  public AnalysedText getAnalyzedParagraphs(ClearedAnalysisState state) throws Throwable {
+    int from = random.nextInt(nParagraphs - ANALYZED_PARAGRAPHS);
+    return docCache.getAnalyzedParagraphs(new TextParagraph(DocumentCache.CURSOR_TYPE_TEXT, from),
+        new TextParagraph(DocumentCache.CURSOR_TYPE_TEXT, from + ANALYZED_PARAGRAPHS), lt);
+  }
+
+  @Benchmark
+  public ResultCache addParaErrorsToCache() throws Throwable {
+    singleCheck.addParaErrorsToCache(random.nextInt(nParagraphs), lt, 0, 0, true, false, false, false);
+    return document.getParagraphsCache().get(0);
+  }
+
+  @Benchmark
+  public SingleProofreadingError[] mergeErrors() {
+    return document.mergeErrors(pErrors, random.nextInt(nParagraphs));
+  }
+
+  @Benchmark
+  public SingleProofreadingError[] filterOverlappingErrors() {
+    return document.filterOverlappingErrors(overlappingErrors);
+  }
+
+}
@@ -62,6 +62,7 @@ public class CacheIO implements Serializable {
   private static final String CACHEFILE_PREFIX = "LtCache";           //  Prefix for cache files (simply a number is added for file name)
   private static final String CACHEFILE_EXTENSION = "lcz";            //  extension of the files name (Note: cache files are in zip format)
   private static final int MIN_CHARACTERS_TO_SAVE_CACHE = 25000;      //  Minimum characters of document for saving cache
+  private static final String STATAN_EXTENSION = "lsz";               //  extension of the files of the statistical analysis (zip format)
 
   private static final String SPELL_CACHEFILE = "LtSpellCache." + CACHEFILE_EXTENSION;  //  Spell cache name
   
@@ -143,10 +144,17 @@ public class CacheIO implements Serializable {
     return cacheFilePath.getAbsolutePath();
   }
   
+  /**
+   * set the caches to save (used by benchmarks and tests)
+   */
+  void setAllCaches(AllCaches allCaches) {
+    this.allCaches = allCaches;
+  }
+  
   /**
    * save all caches (document cache, all result caches) to cache file
    */
-  private void saveAllCaches(String cachePath) {
+  void saveAllCaches(String cachePath) {
     try {
       GZIPOutputStream fileOut = new GZIPOutputStream(new FileOutputStream(cachePath));
       ObjectOutputStream out = new ObjectOutputStream(fileOut);
@@ -212,6 +220,23 @@ public class CacheIO implements Serializable {
     if (cachePath == null) {
       return false;
     }
+    if (!readCacheFile(cachePath)) {
+      return false;
+    }
+    if (runSameRules(config, mDocHandler)) {
+      return true;
+    } else {
+      MessageHandler.printToLogFile("Version or active rules have changed: Cache rejected (Cache Version: " 
+            + allCaches.ltVersion + ", actual LT Version: " + JLanguageTool.VERSION + ")");
+      return false;
+    }
+  }
+  
+  /**
+   * read all caches from the cache file without testing the rules
+   * returns false if the file does not exist or can't be read
+   */
+  boolean readCacheFile(String cachePath) {
     try {
       File file = new File( cachePath );
       if (file.exists() && !file.isDirectory()) {
@@ -224,23 +249,72 @@ public class CacheIO implements Serializable {
         if (DEBUG_MODE) {
           printCacheInfo();
         }
-        if (runSameRules(config, mDocHandler)) {
-          return true;
-        } else {
-          MessageHandler.printToLogFile("Version or active rules have changed: Cache rejected (Cache Version: " 
-                + allCaches.ltVersion + ", actual LT Version: " + JLanguageTool.VERSION + ")");
-          return false;
-        }
+        return true;
       }
     } catch (InvalidClassException e) {
       MessageHandler.printToLogFile("Old cache Version: Cache not read");
-      return false;
     } catch (Throwable t) {
       MessageHandler.printException(t);     // all Exceptions thrown by UnoRuntime.queryInterface are caught
     }
     return false;
   }
   
+  /**
+   * get the name of the file of the statistical analysis stored next to a cache file
+   */
+  private static String getStatAnFileName(String cacheFileName) {
+    return cacheFileName.substring(0, cacheFileName.length() - CACHEFILE_EXTENSION.length()) + STATAN_EXTENSION;
+  }
+  
+  /**
+   * save the snapshot of the statistical analysis of the document
+   */
+  public void saveStatAnSnapshot(Serializable snapshot) {
+    String cachePath = getCachePath(true);
+    if (cachePath == null) {
+      return;
+    }
+    String statAnPath = getStatAnFileName(cachePath);
+    try {
+      GZIPOutputStream fileOut = new GZIPOutputStream(new FileOutputStream(statAnPath));
+      ObjectOutputStream out = new ObjectOutputStream(fileOut);
+      out.writeObject(snapshot);
+      out.close();
+      fileOut.close();
+      MessageHandler.printToLogFile("Statistical analysis saved to: " + statAnPath);
+    } catch (Throwable t) {
+      MessageHandler.printException(t);
+    }
+  }
+  
+  /**
+   * read the snapshot of the statistical analysis of the document
+   * returns null if there is none
+   */
+  public Object readStatAnSnapshot() {
+    String cachePath = getCachePath(false);
+    if (cachePath == null) {
+      return null;
+    }
+    try {
+      File file = new File(getStatAnFileName(cachePath));
+      if (file.exists() && !file.isDirectory()) {
+        GZIPInputStream fileIn = new GZIPInputStream(new FileInputStream(file));
+        ObjectInputStream in = new ObjectInputStream(fileIn);
+        Object snapshot = in.readObject();
+        in.close();
+        fileIn.close();
+        MessageHandler.printToLogFile("Statistical analysis read from: " + file.getAbsolutePath());
+        return snapshot;
+      }
+    } catch (InvalidClassException e) {
+      MessageHandler.printToLogFile("Old cache Version: Statistical analysis not read");
+    } catch (Throwable t) {
+      MessageHandler.printException(t);
+    }
+    return null;
+  }
+  
   /**
    * Test if cache was created with same rules
    */
@@ -427,9 +501,9 @@ public class CacheIO implements Serializable {
       }
       this.ltVersion = ltVersion;
       Map<Integer, Map<String, Set<Integer>>> clone = new HashMap<>();
-      for (int y : ignoredMatches.getFullIMMap().keySet()) {
+      for (int y : ignoredMatches.getAllParagraphs()) {
         Map<String, Set<Integer>> newIdMap = new HashMap<>();
-        Map<String, Set<Integer>> idMap = new HashMap<>(ignoredMatches.get(y));
+        Map<String, ? extends Set<Integer>> idMap = ignoredMatches.get(y);
         for (String id : idMap.keySet()) {
           Set<Integer> xSet = new HashSet<>(idMap.get(id));
           newIdMap.put(id, xSet);
@@ -438,7 +512,7 @@ public class CacheIO implements Serializable {
       }
       this.ignoredMatches = clone;
       Map<Integer, List<LocaleSerialEntry>> sLocales = new HashMap<>();
-      for (int y : ignoredMatches.getFullSLMap().keySet()) {
+      for (int y : ignoredMatches.getAllLocaleParagraphs()) {
         List<LocaleSerialEntry> newEntryList = new ArrayList<>();
         List<LocaleEntry> locEntries = new ArrayList<>(ignoredMatches.getLocaleEntries(y));
         MessageHandler.printToLogFile("CacheIO: AllCaches: spellLocales: size: " + locEntries.size() + " at y: " + y);
@@ -684,12 +758,15 @@ public class CacheIO implements Serializable {
             File docFile = new File(doc);
             String cacheFileName = cacheMap.get(doc);
             File cacheFile = new File(cacheDir, cacheFileName);
+            File statAnFile = new File(cacheDir, getStatAnFileName(cacheFileName));
             if (DEBUG_MODE) {
               MessageHandler.printToLogFile("CacheIO: CacheCleanUp: CacheMap: docPath=" + doc + ", docFile exist: " + (docFile == null ? "null" : docFile.exists()) + 
                   ", cacheFile exist: " + (cacheFile == null ? "null" : cacheFile.exists()));
             }
-            if (docFile == null || !docFile.exists() || cacheFile == null || !cacheFile.exists() 
-                || (systemTime - cacheFile.lastModified() > MAX_CACHE_TIME && !cacheFileName.equals(currentFile))) {
+            //  the file of the statistical analysis may exist without cache file (small documents)
+            File usedFile = cacheFile.exists() ? cacheFile : statAnFile;
+            if (docFile == null || !docFile.exists() || !usedFile.exists() 
+                || (systemTime - usedFile.lastModified() > MAX_CACHE_TIME && !cacheFileName.equals(currentFile))) {
               cacheMap.remove(doc);
               mapChanged = true;
               MessageHandler.printToLogFile("CacheIO: CacheCleanUp: Remove Path from CacheMap: " + doc);
@@ -697,6 +774,10 @@ public class CacheIO implements Serializable {
                 cacheFile.delete();
                 MessageHandler.printToLogFile("CacheIO: CacheCleanUp: Delete cache file: " + cacheFile.getAbsolutePath());
               }
+              if (statAnFile.exists()) {
+                statAnFile.delete();
+                MessageHandler.printToLogFile("CacheIO: CacheCleanUp: Delete cache file: " + statAnFile.getAbsolutePath());
+              }
             }
           }
           if (mapChanged) {
@@ -708,8 +789,12 @@ public class CacheIO implements Serializable {
           File[] cacheFiles = cacheDir.listFiles();
           if (cacheFiles != null) {
             for (File cacheFile : cacheFiles) {
-              if (!cacheMap.containsValue(cacheFile.getName()) && !cacheFile.getName().equals(CACHEFILE_MAP)
-                  && !cacheFile.getName().equals(SPELL_CACHEFILE)) {
+              String cacheFileName = cacheFile.getName();
+              if (cacheFileName.endsWith("." + STATAN_EXTENSION)) {
+                cacheFileName = cacheFileName.substring(0, cacheFileName.length() - STATAN_EXTENSION.length()) + CACHEFILE_EXTENSION;
+              }
+              if (!cacheMap.containsValue(cacheFileName) && !cacheFileName.equals(CACHEFILE_MAP)
+                  && !cacheFileName.equals(SPELL_CACHEFILE)) {
                 cacheFile.delete();
                 MessageHandler.printToLogFile("Delete cache file: " + cacheFile.getAbsolutePath());
               }
@@ -63,7 +63,6 @@ public class DocumentCache implements Serializable {
   private static final int MAX_PRINTED_PARAS = 3;   //  maximal printed paragraphs to log file
 
   private static boolean debugMode;     // should be false except for testing
-  private static boolean debugModeTm;   // time measurement should be false except for testing
 
 
   private final List<String> paragraphs = new ArrayList<String>(); // stores the flat paratoTextMappinggraphs of
@@ -81,7 +80,7 @@ public class DocumentCache implements Serializable {
   private final DocumentType docType;                 // stores the document type (Writer, Impress, Calc)
   private final Map<Integer, List<AnalyzedSentence>> analyzedParagraphs = new HashMap<>();  //  stores analyzed paragraphs
   private List<Integer> sortedTextIds = null;           // stores the node index of the paragraphs (since LO 7.5 / else null)
-  private Map<Integer, Integer> headingMap;
+  private volatile Map<Integer, Integer> headingMap;
   private boolean isReset = false;
   private boolean isDirty = false;
   private int documentElementsCount = -1;
@@ -92,19 +91,19 @@ public class DocumentCache implements Serializable {
   private int nText = 0;
   private int nTable = 0;
   private SerialLocale docLocale; 
+  private transient ParagraphContainer lastContainer = null;   //  last extraction of an impress or calc document
+  private transient volatile ParagraphCounts paragraphLengths = null;  //  lengths of the paragraphs + 1 (null: has to be built)
   
   private ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
 
   DocumentCache(DocumentType docType) {
     debugMode = OfficeTools.DEBUG_MODE_DC;
-    debugModeTm = OfficeTools.DEBUG_MODE_TM;
     this.docType = docType;
   }
 
   DocumentCache(SingleDocument document, Locale fixedLocale, Locale docLocale,
       XComponent xComponent, DocumentType docType) {
     debugMode = OfficeTools.DEBUG_MODE_DC;
-    debugModeTm = OfficeTools.DEBUG_MODE_TM;
     this.docType = docType;
     refresh(document, fixedLocale, docLocale, xComponent, 0);
   }
@@ -115,7 +114,6 @@ public class DocumentCache implements Serializable {
     try {
       isReset = true;
       debugMode = OfficeTools.DEBUG_MODE_DC;
-      debugModeTm = OfficeTools.DEBUG_MODE_TM;
       if (in.paragraphs != null && in.paragraphs.size() > 0) {
         add(in);
       }
@@ -137,9 +135,9 @@ public class DocumentCache implements Serializable {
     try {
       isReset = true;
       debugMode = OfficeTools.DEBUG_MODE_DC;
-      debugModeTm = OfficeTools.DEBUG_MODE_TM;
       clearAnalyzedParagraphs();
       this.paragraphs.addAll(paragraphs);
+      paragraphLengths = null;
       this.footnotes.addAll(footnotes);
       this.chapterBegins.addAll(chapterBegins);
       for (int i = 0; i < paragraphs.size(); i++) {
@@ -171,6 +169,7 @@ public class DocumentCache implements Serializable {
       return;
     }
     isReset = true;
+    long startTime = OfficeMetrics.startTime();
     try {
       if (debugMode) {
         MessageHandler.printToLogFile("DocumentCache: refresh: Called from: " + fromWhere);
@@ -182,6 +181,7 @@ public class DocumentCache implements Serializable {
         refreshWriterCache(document, fixedLocale, docLocale, fromWhere);
       }
       setSingleParagraphsCacheToNull(document.getParagraphsCache());
+      OfficeMetrics.recordTime(OfficeMetrics.DOCUMENT_CACHE_REFRESH, startTime, "Time to generate cache(" + fromWhere + "): ");
     } finally {
       isReset = false;
     }
@@ -193,7 +193,6 @@ public class DocumentCache implements Serializable {
    */
   private void refreshWriterCache(SingleDocument document, Locale fixedLocale, Locale docLocale, int fromWhere) {
     try {
-      long startTime = System.currentTimeMillis();
       FlatParagraphTools flatPara = document.getFlatParagraphTools();
       List<String> paragraphs = new ArrayList<String>();
       List<List<Integer>> chapterBegins = new ArrayList<List<Integer>>();
@@ -255,7 +254,7 @@ public class DocumentCache implements Serializable {
         chapterBegins.add(hNumbers);
         deletedChars.add(documentText.deletedCharacters);
       }
-      headingMap = documentTexts.get(CURSOR_TYPE_TEXT).headingNumbers;
+      setHeadingMap(documentTexts.get(CURSOR_TYPE_TEXT).headingNumbers);
 //      MessageHandler.printToLogFile("DocumentCache: refresh: headingMap.size: " + (headingMap == null ? "null" : headingMap.size()));
       if (flatPara == null) {
         flatPara = document.getFlatParagraphTools();
@@ -338,10 +337,6 @@ public class DocumentCache implements Serializable {
 //        document.getMultiDocumentsHandler().handleLtDictionary(getDocAsString(), locale);
 //      }
       document.getMultiDocumentsHandler().runShapeCheck(hasUnsupportedText(), fromWhere);
-      if (debugModeTm) {
-        long endTime = System.currentTimeMillis();
-        MessageHandler.printToLogFile("Time to generate cache(" + fromWhere + "): " + (endTime - startTime));
-      }
     } finally {
     }
   }
@@ -357,6 +352,7 @@ public class DocumentCache implements Serializable {
       clearAnalyzedParagraphs();
       this.paragraphs.clear();
       this.paragraphs.addAll(paragraphs);
+      paragraphLengths = null;
       this.chapterBegins.clear();
       this.chapterBegins.addAll(chapterBegins);
       this.locales.clear();
@@ -1093,12 +1089,13 @@ public class DocumentCache implements Serializable {
       isDirty = false;
       ParagraphContainer container;
       if (docType == DocumentType.IMPRESS) {
-        container = OfficeDrawTools.getAllParagraphs(xComponent);
+        container = OfficeDrawTools.getAllParagraphs(xComponent, lastContainer);
       } else if (docType == DocumentType.CALC) {
         container = OfficeSpreadsheetTools.getAllParagraphs(xComponent);
       } else {
         return;
       }
+      lastContainer = container;
       clear();
       paragraphs.addAll(container.paragraphs);
       for (int i = 0; i < NUMBER_CURSOR_TYPES - 1; i++) {
@@ -1138,6 +1135,47 @@ public class DocumentCache implements Serializable {
     }
   }
   
+  /**
+   * compare the fingerprints of the shapes or sheets of two extractions of an impress or calc document
+   * gives back the range of the paragraphs of the changed shapes or sheets
+   * all paragraphs are given back as changed, if the fingerprints of one of the extractions are missing or incomplete
+   */
+  public static ChangedRange getChangedRange(ParagraphContainer oldContainer, ParagraphContainer newContainer) {
+    int oldSize = oldContainer.paragraphs.size();
+    int newSize = newContainer.paragraphs.size();
+    if (!oldContainer.hasFingerprints() || !newContainer.hasFingerprints()) {
+      return new ChangedRange(0, newSize, oldSize, newSize);
+    }
+    int nOld = oldContainer.blockFingerprints.size();
+    int nNew = newContainer.blockFingerprints.size();
+    int first = 0;
+    while (first < nOld && first < nNew 
+        && oldContainer.blockFingerprints.get(first).equals(newContainer.blockFingerprints.get(first))) {
+      first++;
+    }
+    int last = 0;
+    while (last < nOld - first && last < nNew - first 
+        && oldContainer.blockFingerprints.get(nOld - 1 - last).equals(newContainer.blockFingerprints.get(nNew - 1 - last))) {
+      last++;
+    }
+    int from = first < nNew ? newContainer.blockBegins.get(first) : newSize;
+    int to = last > 0 ? newContainer.blockBegins.get(nNew - last) : newSize;
+    return new ChangedRange(from, to, oldSize, newSize);
+  }
+
+  /**
+   * get the paragraphs of the last refresh of an impress or calc document (with the fingerprints of shapes or sheets)
+   * returns null if there is none
+   */
+  public ParagraphContainer getParagraphContainer() {
+    rwLock.readLock().lock();
+    try {
+      return lastContainer;
+    } finally {
+      rwLock.readLock().unlock();
+    }
+  }
+
   /**
    * Set text level cache to no errors for single paragraph text
    */
@@ -1205,6 +1243,41 @@ public class DocumentCache implements Serializable {
     }
 }
 
+  /**
+   * set the text of a paragraph and update the lengths of the paragraphs
+   * the write lock has to be held by the caller
+   */
+  private void setParagraph(int n, String sPara) {
+    paragraphs.set(n, sPara);
+    ParagraphCounts lengths = paragraphLengths;
+    if (lengths != null) {
+      lengths.set(n, sPara.length() + 1);
+    }
+  }
+
+  /**
+   * sum of the lengths of the flat paragraphs from (inclusive) to (exclusive)
+   * every paragraph is counted with one character for the end of paragraph
+   * the lengths are stored in a Fenwick tree: O(log n) after the first call
+   */
+  public int getFlatParagraphsLength(int from, int to) {
+    rwLock.readLock().lock();
+    try {
+      ParagraphCounts lengths = paragraphLengths;
+      if (lengths == null) {
+        int[] counts = new int[paragraphs.size()];
+        for (int i = 0; i < counts.length; i++) {
+          counts[i] = paragraphs.get(i).length() + 1;
+        }
+        lengths = new ParagraphCounts(counts);
+        paragraphLengths = lengths;
+      }
+      return (int) lengths.sum(from, to);
+    } finally {
+      rwLock.readLock().unlock();
+    }
+  }
+
   /**
    * set Flat Paragraph at Index
    */
@@ -1213,7 +1286,7 @@ public class DocumentCache implements Serializable {
     try {
       removeAnalyzedParagraph(n);
       if (n >= 0 && n < paragraphs.size()) {
-        paragraphs.set(n, sPara);
+        setParagraph(n, sPara);
       }
     } finally {
       rwLock.writeLock().unlock();
@@ -1231,7 +1304,7 @@ public class DocumentCache implements Serializable {
         locales.set(n, new SerialLocale(locale));
       }
       if (n >= 0 && n < paragraphs.size()) {
-        paragraphs.set(n, sPara);
+        setParagraph(n, sPara);
       }
     } finally {
       rwLock.writeLock().unlock();
@@ -1410,6 +1483,7 @@ public class DocumentCache implements Serializable {
    */
   private void clear() {
     paragraphs.clear();
+    paragraphLengths = null;
     chapterBegins.clear();
     locales.clear();
     footnotes.clear();
@@ -1426,6 +1500,7 @@ public class DocumentCache implements Serializable {
    */
   private void add(DocumentCache in) {
     paragraphs.addAll(in.paragraphs);
+    paragraphLengths = null;
     chapterBegins.addAll(in.chapterBegins);
     locales.addAll(in.locales);
     footnotes.addAll(in.footnotes);
@@ -1438,7 +1513,7 @@ public class DocumentCache implements Serializable {
       sortedTextIds = new ArrayList<>(in.sortedTextIds);
     }
     if (in.headingMap != null) {
-      headingMap = new HashMap<>(in.headingMap);
+      setHeadingMap(new HashMap<>(in.headingMap));
     }
     documentElementsCount = in.documentElementsCount;
     nText = in.nText;
@@ -1756,7 +1831,7 @@ public class DocumentCache implements Serializable {
             int nFPara = toParaMapping.get(CURSOR_TYPE_SHAPE).get(nShapeParas.get(i));
             if (firstResultCache.getCacheEntry(nFPara) == null || !paragraphs.get(nFPara).equals(fParas.get(i))) {
               removeAnalyzedParagraph(nFPara);
-              paragraphs.set(nFPara, fParas.get(i));
+              setParagraph(nFPara, fParas.get(i));
               nChanged.add(nFPara);
             }
           }
@@ -1769,7 +1844,7 @@ public class DocumentCache implements Serializable {
             int nFPara = toParaMapping.get(CURSOR_TYPE_TABLE).get(nTableParas.get(i));
             if (firstResultCache.getCacheEntry(nFPara) == null || !paragraphs.get(nFPara).equals(fParas.get(i))) {
               removeAnalyzedParagraph(nFPara);
-              paragraphs.set(nFPara, fParas.get(i));
+              setParagraph(nFPara, fParas.get(i));
               nChanged.add(nFPara);
             }
           }
@@ -2179,6 +2254,24 @@ public class DocumentCache implements Serializable {
   public Map<Integer, Integer> getHeadingMap() {
     return headingMap;
   }
+
+  /**
+   * Set the heading map and wake up all threads waiting for it
+   */
+  private synchronized void setHeadingMap(Map<Integer, Integer> headingMap) {
+    this.headingMap = headingMap;
+    notifyAll();
+  }
+
+  /**
+   * Wait till the heading map is available (the cache is initialized) and return it
+   */
+  public synchronized Map<Integer, Integer> waitForHeadingMap() throws InterruptedException {
+    while (headingMap == null) {
+      wait();
+    }
+    return headingMap;
+  }
   
   /**
    * Return nearest sorted text Id
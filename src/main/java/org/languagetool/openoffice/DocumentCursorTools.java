@@ -88,6 +88,7 @@ public class DocumentCursorTools {
   
   DocumentCursorTools(XComponent xComponent) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       if (!isDisposed) {
         curDoc = UnoRuntime.queryInterface(XTextDocument.class, xComponent);
@@ -184,6 +185,7 @@ public class DocumentCursorTools {
    */
   int getNumberOfAllTextParagraphs() {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       if (xPCursor == null) {
         return 0;
@@ -278,6 +280,7 @@ public class DocumentCursorTools {
   @Nullable
   DocumentText getAllTextParagraphs(boolean withDeleted) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       List<String> allParas = new ArrayList<>();
       Map<Integer, Integer> headingNumbers = new HashMap<Integer, Integer>();
@@ -520,6 +523,7 @@ public class DocumentCursorTools {
    */
   public DocumentText getTextOfAllFrames(boolean withDeleted) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       List<String> sText = new ArrayList<String>();
       Map<Integer, Integer> headingNumbers = new HashMap<Integer, Integer>();
@@ -559,6 +563,7 @@ public class DocumentCursorTools {
    */
   public int getNumberOfAllFrames() {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       int num = 0;
       if (curDoc != null) {
@@ -584,6 +589,7 @@ public class DocumentCursorTools {
    */
   public DocumentText getTextOfAllShapes(boolean withDeleted) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       List<String> sText = new ArrayList<String>();
       Map<Integer, Integer> headingNumbers = new HashMap<Integer, Integer>();
@@ -626,6 +632,7 @@ public class DocumentCursorTools {
    */
   public List<String> getTextOfShapes(List<Integer> nPara) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       List<String> sText = new ArrayList<String>();
       XDrawPageSupplier xDrawPageSupplier = UnoRuntime.queryInterface(XDrawPageSupplier.class, curDoc);
@@ -671,6 +678,7 @@ public class DocumentCursorTools {
    */
   public int getNumberOfAllShapes() {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       int num = 0;
       if (curDoc != null) {
@@ -729,6 +737,7 @@ public class DocumentCursorTools {
    */
   public DocumentText getTextOfAllTables(boolean withDeleted) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       List<String> sText = new ArrayList<String>();
       Map<Integer, Integer> headingNumbers = new HashMap<Integer, Integer>();
@@ -762,6 +771,7 @@ public class DocumentCursorTools {
    */
   public List<String> getTextOfTables(List<Integer> nPara) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       List<String> sText = new ArrayList<String>();
       XIndexAccess xTables = getIndexAccessOfAllTables();
@@ -797,6 +807,7 @@ public class DocumentCursorTools {
    */
   public int getNumberOfAllTables() {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       int num = 0;
       XIndexAccess xTables = getIndexAccessOfAllTables();
@@ -829,6 +840,7 @@ public class DocumentCursorTools {
     List<Integer> sortedTextIds = null;
     List<List<Integer>> deletedCharacters = new ArrayList<List<Integer>>();
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       if (curDoc != null) {
         // Get the XFootnotesSupplier interface of the document
@@ -856,6 +868,7 @@ public class DocumentCursorTools {
    */
   public int getNumberOfAllFootnotes() {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       int num = 0;
       if (curDoc != null) {
@@ -887,6 +900,7 @@ public class DocumentCursorTools {
     List<Integer> sortedTextIds = null;
     List<List<Integer>> deletedCharacters = new ArrayList<List<Integer>>();
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       if (curDoc != null) {
         // Get the XEndnotesSupplier interface of the document
@@ -914,6 +928,7 @@ public class DocumentCursorTools {
    */
   public int getNumberOfAllEndnotes() {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       int num = 0;
       if (curDoc != null) {
@@ -972,6 +987,7 @@ public class DocumentCursorTools {
    */
   public DocumentText getTextOfAllHeadersAndFooters(boolean withDeleted) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       List<String> sText = new ArrayList<String>();
       Map<Integer, Integer> headingNumbers = new HashMap<Integer, Integer>();
@@ -1019,6 +1035,7 @@ public class DocumentCursorTools {
    */
   public int getNumberOfAllHeadersAndFooters() {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       int num = 0;
       List<XPropertySet> xPagePropertySets = getPagePropertySets();
@@ -1060,6 +1077,7 @@ public class DocumentCursorTools {
    */
   public XParagraphCursor getParagraphCursor(TextParagraph textPara) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       int type = textPara.type;
       int number = textPara.number;
@@ -1199,6 +1217,7 @@ public class DocumentCursorTools {
    */
   public void removeMarks(List<TextParagraph> textParas) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_DOCUMENT_CURSOR);
     try {
       List<List<Integer>> paras = new ArrayList<List<Integer>>();
       for (int n = 0; n < DocumentCache.NUMBER_CURSOR_TYPES; n++) {
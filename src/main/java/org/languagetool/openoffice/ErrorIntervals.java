@@ -0,0 +1,302 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.sun.star.linguistic2.SingleProofreadingError;
+
+/**
+ * Sorted interval structure for the errors of one paragraph
+ * The errors are sorted by start position; an implicit balanced tree over the sorted arrays
+ * stores the maximal end position of every subtree.
+ * So all errors covering a character position are found in O(log n + k).
+ * @since 6.5
+ * @author Fred Kruse
+ */
+public class ErrorIntervals {
+
+  private final int[] order;    //  index of the error in the original array (sorted by start position)
+  private final int[] starts;   //  start positions (sorted)
+  private final int[] ends;     //  end positions (sorted by start position)
+  private final int[] maxEnds;  //  maximal end position of the subtree with root i
+
+  public ErrorIntervals(SingleProofreadingError[] errors) {
+    this(getStarts(errors), getLengths(errors));
+  }
+
+  public ErrorIntervals(int[] errorStarts, int[] errorLengths) {
+    int size = errorStarts.length;
+    long[] keys = new long[size];
+    for (int i = 0; i < size; i++) {
+      //  sort by start position; errors with the same start keep their original order
+      keys[i] = ((long) errorStarts[i] << 32) | i;
+    }
+    Arrays.sort(keys);
+    order = new int[size];
+    starts = new int[size];
+    ends = new int[size];
+    for (int i = 0; i < size; i++) {
+      int n = (int) keys[i];
+      order[i] = n;
+      starts[i] = errorStarts[n];
+      ends[i] = errorStarts[n] + errorLengths[n];
+    }
+    maxEnds = new int[size];
+    initMaxEnds(0, size - 1);
+  }
+
+  private static int[] getStarts(SingleProofreadingError[] errors) {
+    int[] errorStarts = new int[errors == null ? 0 : errors.length];
+    for (int i = 0; i < errorStarts.length; i++) {
+      errorStarts[i] = errors[i].nErrorStart;
+    }
+    return errorStarts;
+  }
+
+  private static int[] getLengths(SingleProofreadingError[] errors) {
+    int[] errorLengths = new int[errors == null ? 0 : errors.length];
+    for (int i = 0; i < errorLengths.length; i++) {
+      errorLengths[i] = errors[i].nErrorLength;
+    }
+    return errorLengths;
+  }
+
+  private int initMaxEnds(int lo, int hi) {
+    if (lo > hi) {
+      return Integer.MIN_VALUE;
+    }
+    int mid = (lo + hi) >>> 1;
+    int max = Math.max(ends[mid], Math.max(initMaxEnds(lo, mid - 1), initMaxEnds(mid + 1, hi)));
+    maxEnds[mid] = max;
+    return max;
+  }
+
+  /**
+   * number of errors
+   */
+  public int size() {
+    return order.length;
+  }
+
+  /**
+   * Get the indices (of the original array) of all errors covering the character position nChar
+   * The indices are sorted by the start position of the errors
+   */
+  public List<Integer> getIndicesAt(int nChar) {
+    List<Integer> indices = new ArrayList<>();
+    collectIndicesAt(0, order.length - 1, nChar, indices);
+    return indices;
+  }
+
+  private void collectIndicesAt(int lo, int hi, int nChar, List<Integer> indices) {
+    if (lo > hi) {
+      return;
+    }
+    int mid = (lo + hi) >>> 1;
+    if (maxEnds[mid] <= nChar) {
+      return;
+    }
+    collectIndicesAt(lo, mid - 1, nChar, indices);
+    if (starts[mid] <= nChar) {
+      if (nChar < ends[mid]) {
+        indices.add(order[mid]);
+      }
+      collectIndicesAt(mid + 1, hi, nChar, indices);
+    }
+  }
+
+  /**
+   * Get the indices (of the original array) of all errors starting between nFrom (included) and nTo (excluded)
+   * The indices are sorted by the original order
+   */
+  public List<Integer> getIndicesStartingIn(int nFrom, int nTo) {
+    List<Integer> indices = new ArrayList<>();
+    for (int i = firstStartNotBefore(nFrom); i < starts.length && starts[i] < nTo; i++) {
+      indices.add(order[i]);
+    }
+    Collections.sort(indices);
+    return indices;
+  }
+
+  /**
+   * true if an error starts behind nStart and before nEnd
+   */
+  public boolean containsStartOfOtherError(int nStart, int nEnd) {
+    int i = firstStartNotBefore(nStart + 1);
+    return i < starts.length && starts[i] < nEnd;
+  }
+
+  /**
+   * binary search: first position in the sorted arrays with a start >= nChar
+   */
+  private int firstStartNotBefore(int nChar) {
+    int lo = 0;
+    int hi = starts.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (starts[mid] < nChar) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Get the indices of all errors which are ignored by a map of ignored matches (ruleId -> character positions)
+   * An error is ignored if one of the ignored positions of its rule lies inside of the error
+   */
+  public Set<Integer> getIgnoredIndices(SingleProofreadingError[] errors, Map<String, ? extends Set<Integer>> ignoredPositions) {
+    Set<Integer> ignored = new HashSet<>();
+    if (ignoredPositions == null || ignoredPositions.isEmpty()) {
+      return ignored;
+    }
+    for (String ruleId : ignoredPositions.keySet()) {
+      for (int nChar : ignoredPositions.get(ruleId)) {
+        for (int n : getIndicesAt(nChar)) {
+          if (ruleId.equals(errors[n].aRuleIdentifier)) {
+            ignored.add(n);
+          }
+        }
+      }
+    }
+    return ignored;
+  }
+
+  /**
+   * Filter overlapping errors
+   * Errors which contain the start of other errors are split into the parts not covered by these errors
+   * The split errors are given back first, followed by the unchanged errors in their original order
+   */
+  public static SingleProofreadingError[] splitOverlappingErrors(SingleProofreadingError[] errors) {
+    if (errors == null || errors.length < 2) {
+      return errors;
+    }
+    ErrorIntervals intervals = new ErrorIntervals(errors);
+    List<Integer> overlaps = new ArrayList<>();
+    for (int i = 0; i < errors.length; i++) {
+      if (intervals.containsStartOfOtherError(errors[i].nErrorStart, errors[i].nErrorStart + errors[i].nErrorLength)) {
+        overlaps.add(i);
+      }
+    }
+    if (overlaps.isEmpty()) {
+      return errors;
+    }
+    List<SingleProofreadingError> filteredErrors = new ArrayList<>();
+    boolean[] isOverlap = new boolean[errors.length];
+    for (int k : overlaps) {
+      isOverlap[k] = true;
+      SingleProofreadingError error1 = duplicateError(errors[k]);
+      int nEnd = error1.nErrorStart + error1.nErrorLength;
+      for (int j : intervals.getIndicesStartingIn(error1.nErrorStart, nEnd)) {
+        SingleProofreadingError error2 = errors[j];
+        if (k == j) {
+          continue;
+        }
+        int nEnd2 = error2.nErrorStart + error2.nErrorLength;
+        if (error2.nErrorStart == error1.nErrorStart && error2.nErrorLength < error1.nErrorLength) {
+          error1.nErrorStart = nEnd2 + 1;
+          error1.nErrorLength = nEnd - error1.nErrorStart;
+        } else if (error2.nErrorStart > error1.nErrorStart && error2.nErrorStart < nEnd) {
+          if (nEnd2 < nEnd) {
+            SingleProofreadingError tmpError = duplicateError(error1);
+            error1.nErrorLength = error2.nErrorStart - error1.nErrorStart - 1;
+            if (error1.nErrorLength > 0) {
+              filteredErrors.add(error1);
+            }
+            error1 = tmpError;
+            error1.nErrorStart = nEnd2 + 1;
+            error1.nErrorLength = nEnd - error1.nErrorStart;
+          } else {
+            error1.nErrorLength = error2.nErrorStart - error1.nErrorStart - 1;
+            nEnd = error1.nErrorStart + error1.nErrorLength;
+          }
+        }
+      }
+      if (error1.nErrorLength > 0) {
+        filteredErrors.add(error1);
+      }
+    }
+    for (int i = 0; i < errors.length; i++) {
+      if (!isOverlap[i]) {
+        filteredErrors.add(errors[i]);
+      }
+    }
+    return filteredErrors.toArray(new SingleProofreadingError[0]);
+  }
+
+  /**
+   * true if two errors are equivalent (same position and same set of suggestions)
+   */
+  public static boolean isEquivalentError(SingleProofreadingError filteredError, Set<String> filteredSuggestions,
+      SingleProofreadingError error) {
+    if (filteredError == null || error == null
+        || error.nErrorStart != filteredError.nErrorStart || error.nErrorLength != filteredError.nErrorLength) {
+      return false;
+    }
+    if ((error.aSuggestions == null) != (filteredError.aSuggestions == null)) {
+      return false;
+    }
+    if (error.aSuggestions == null) {
+      return true;
+    }
+    if (error.aSuggestions.length != filteredError.aSuggestions.length) {
+      return false;
+    }
+    for (String suggestion : error.aSuggestions) {
+      if (!filteredSuggestions.contains(suggestion)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get the suggestions of an error as set (for fast comparison)
+   */
+  public static Set<String> getSuggestionSet(SingleProofreadingError error) {
+    Set<String> suggestions = new HashSet<>();
+    if (error != null && error.aSuggestions != null) {
+      suggestions.addAll(Arrays.asList(error.aSuggestions));
+    }
+    return suggestions;
+  }
+
+  private static SingleProofreadingError duplicateError(SingleProofreadingError error) {
+    SingleProofreadingError duplicate = new SingleProofreadingError();
+    duplicate.aFullComment = error.aFullComment;
+    duplicate.aProperties= error.aProperties;
+    duplicate.aRuleIdentifier = error.aRuleIdentifier;
+    duplicate.aShortComment = error.aShortComment;
+    duplicate.aSuggestions = error.aSuggestions;
+    duplicate.nErrorLength = error.nErrorLength;
+    duplicate.nErrorStart = error.nErrorStart;
+    duplicate.nErrorType = error.nErrorType;
+    return duplicate;
+  }
+
+}
@@ -112,6 +112,7 @@ public class FlatParagraphTools {
    */
   public void init() {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
     try {
       XFlatParagraphIterator tmpFlatParaIter = getXFlatParagraphIterator(xComponent);
       if (tmpFlatParaIter != null) {
@@ -175,6 +176,7 @@ public class FlatParagraphTools {
   public XFlatParagraph getFlatParagraphAt(int nPara) {
     OfficeTools.waitForLO();
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
     try {
       XFlatParagraph xFlatPara = getLastFlatParagraph();
       if (xFlatPara == null) {
@@ -212,6 +214,7 @@ public class FlatParagraphTools {
    */
   public String getCurrentParaText() {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
     try {
       XFlatParagraph xFlatPara = getCurrentFlatParagraph();
       if (xFlatPara == null) {
@@ -232,6 +235,7 @@ public class FlatParagraphTools {
    */
   public int getCurNumFlatParagraph() {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
     try {
       XFlatParagraph xFlatPara = getCurrentFlatParagraph();
       if (xFlatPara == null) {
@@ -264,6 +268,7 @@ public class FlatParagraphTools {
   public FlatParagraphContainer getAllFlatParagraphs(Locale fixedLocale) {
     OfficeTools.waitForLO();
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
     try {
       XFlatParagraph xFlatPara = getLastFlatParagraph();
       if (xFlatPara == null) {
@@ -285,7 +290,7 @@ public class FlatParagraphTools {
         allParas.add(0, text);
         footnotePositions.add(0, getIntArrayPropertyValue("FootnotePositions", tmpFlatPara));
         // add just one local for the whole paragraph
-        locale = getPrimaryParagraphLanguage(tmpFlatPara, 0, len, fixedLocale, locale, false);
+        locale = getPrimaryLanguage(tmpFlatPara, 0, len, fixedLocale, locale, false);
         locales.add(0, locale);
         if (sortedTextIds != null) {
           sortedTextIds.add(0, getIntPropertyValue("SortedTextId", tmpFlatPara));
@@ -298,7 +303,7 @@ public class FlatParagraphTools {
         int len = text.length();
         allParas.add(text);
         footnotePositions.add(getIntArrayPropertyValue("FootnotePositions", tmpFlatPara));
-        locale = getPrimaryParagraphLanguage(tmpFlatPara, 0, len, fixedLocale, locale, false);
+        locale = getPrimaryLanguage(tmpFlatPara, 0, len, fixedLocale, locale, false);
         locales.add(locale);
         if (debugMode) {
           printPropertyValueInfo(tmpFlatPara);
@@ -326,6 +331,7 @@ public class FlatParagraphTools {
   public List<String> getFlatParagraphs(List<Integer> nParas) {
     OfficeTools.waitForLO();
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
     try {
       XFlatParagraph xFlatPara = getLastFlatParagraph();
       if (xFlatPara == null) {
@@ -404,6 +410,15 @@ public class FlatParagraphTools {
    */
   public static Locale getPrimaryParagraphLanguage(XFlatParagraph flatPara, int start, int len, Locale fixedLocale, 
       Locale lastLocale, boolean onlyPrimary) throws Throwable {
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
+    return getPrimaryLanguage(flatPara, start, len, fixedLocale, lastLocale, onlyPrimary);
+  }
+
+  /**
+   * Get the main language of paragraph (used inside of the class: not counted as call of the tools)
+   */
+  private static Locale getPrimaryLanguage(XFlatParagraph flatPara, int start, int len, Locale fixedLocale, 
+      Locale lastLocale, boolean onlyPrimary) throws Throwable {
     isBusy++;
     try {
       if (fixedLocale != null) {
@@ -474,7 +489,7 @@ public class FlatParagraphTools {
       if (flatPara == null) {
         return lastLocale;
       }
-      return getPrimaryParagraphLanguage(flatPara, start, len, null, lastLocale, true);
+      return getPrimaryLanguage(flatPara, start, len, null, lastLocale, true);
     } finally {
       isBusy--;
     }
@@ -508,6 +523,7 @@ public class FlatParagraphTools {
   public int getNumberOfAllFlatPara() {
     OfficeTools.waitForLO();
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
     try {
       XFlatParagraph xFlatPara = getLastFlatParagraph();
       if (xFlatPara == null) {
@@ -654,6 +670,7 @@ public class FlatParagraphTools {
   public void setFlatParasAsChecked(int from, int to, List<Boolean> isChecked) {
     OfficeTools.waitForLO();
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
     try {
       XFlatParagraph xFlatPara = getLastFlatParagraph();
       if (xFlatPara == null) {
@@ -714,6 +731,7 @@ public class FlatParagraphTools {
   public void setFlatParasAsChecked() {
     OfficeTools.waitForLO();
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
     try {
       XFlatParagraph xFlatPara = getLastFlatParagraph();
       if (xFlatPara == null) {
@@ -745,6 +763,7 @@ public class FlatParagraphTools {
   public List<Boolean> isChecked(List<Integer> changedParas, int nDiv) {
     OfficeTools.waitForLO();
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
     List<Boolean> isChecked = new ArrayList<>();
     try {
       XFlatParagraph xFlatPara = getLastFlatParagraph();
@@ -783,6 +802,7 @@ public class FlatParagraphTools {
 
   public void markParagraphs(Map<Integer, List<SentenceErrors>> changedParas) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
     try {
       if (changedParas == null || changedParas.isEmpty()) {
         return;
@@ -831,6 +851,7 @@ public class FlatParagraphTools {
    */
   public void markCurrentParagraph(List<SentenceErrors> errorList) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
     try {
       if (errorList == null || errorList.size() == 0) {
         return;
@@ -901,6 +922,7 @@ public class FlatParagraphTools {
   public void changeTextOfParagraph (int nPara, int nStart, int nLen, String newText) {
     OfficeTools.waitForLO();
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
     try {
       XFlatParagraph xFlatPara = getLastFlatParagraph();
       if (xFlatPara == null) {
@@ -939,6 +961,7 @@ public class FlatParagraphTools {
   public void setLanguageOfParagraph (int nPara, int nStart, int nLen, Locale locale) {
     OfficeTools.waitForLO();
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_FLAT_PARAGRAPH);
     try {
       XFlatParagraph xFlatPara = getLastFlatParagraph();
       if (xFlatPara == null) {
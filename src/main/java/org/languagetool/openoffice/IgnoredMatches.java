@@ -20,37 +20,49 @@ package org.languagetool.openoffice;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeSet;
 
 import com.sun.star.lang.Locale;
 
 /**
  * class for store and handle ignored matches
+ * the paragraphs are stored in a ParagraphShiftMap (shifted like the result caches on insert or delete of paragraphs)
+ * the character positions are stored sorted per rule ID (lookup of a character interval in O(log n))
  * @since 6.4
  * @author Fred Kruse
  */
 public class IgnoredMatches {
   
-  private final Map<Integer, Map<String, Set<Integer>>> ignoredMatches;
-  private final Map<Integer, List<LocaleEntry>> spellLocales;
+  private final ParagraphShiftMap<Map<String, NavigableSet<Integer>>> ignoredMatches;
+  private final ParagraphShiftMap<List<LocaleEntry>> spellLocales;
   
   public IgnoredMatches () {
-    ignoredMatches = new HashMap<>();
-    spellLocales = new HashMap<>();
+    ignoredMatches = new ParagraphShiftMap<>();
+    spellLocales = new ParagraphShiftMap<>();
   }
 
   public IgnoredMatches (Map<Integer, Map<String, Set<Integer>>> ignoredMatches, Map<Integer, List<LocaleEntry>> spellLocales) {
-    this.ignoredMatches = new HashMap<>(ignoredMatches);
-    this.spellLocales = new HashMap<>(spellLocales);
+    this();
+    for (int y : ignoredMatches.keySet()) {
+      Map<String, NavigableSet<Integer>> ruleAtX = new HashMap<>();
+      for (String ruleId : ignoredMatches.get(y).keySet()) {
+        ruleAtX.put(ruleId, new TreeSet<>(ignoredMatches.get(y).get(ruleId)));
+      }
+      this.ignoredMatches.put(y, ruleAtX);
+    }
+    for (int y : spellLocales.keySet()) {
+      this.spellLocales.put(y, spellLocales.get(y));
+    }
 //    MessageHandler.printToLogFile("IgnoredMatches: IgnoredMatches(1): spellLocales.size: " + spellLocales.size());
   }
 
   public IgnoredMatches (IgnoredMatches ignoredMatches) {
-    this.ignoredMatches = new HashMap<>(ignoredMatches.ignoredMatches);
-    this.spellLocales = new HashMap<>(ignoredMatches.spellLocales);
+    this.ignoredMatches = new ParagraphShiftMap<>(ignoredMatches.ignoredMatches);
+    this.spellLocales = new ParagraphShiftMap<>(ignoredMatches.spellLocales);
 //    MessageHandler.printToLogFile("IgnoredMatches: IgnoredMatches(2): spellLocales.size: " + spellLocales.size());
   }
   
@@ -62,18 +74,18 @@ public class IgnoredMatches {
   }
   
   public void setIgnoredMatch(int x, int y, int len, String ruleId, Locale locale, FlatParagraphTools flatPara) {
-    Map<String, Set<Integer>> ruleAtX;
-    Set<Integer> charNums;
+    Map<String, NavigableSet<Integer>> ruleAtX;
+    NavigableSet<Integer> charNums;
     if (ignoredMatches.containsKey(y)) {
       ruleAtX = ignoredMatches.get(y);
       if (ruleAtX.containsKey(ruleId)) {
         charNums = ruleAtX.get(ruleId);
       } else {
-        charNums = new HashSet<>();
+        charNums = new TreeSet<>();
       }
     } else {
-      ruleAtX = new HashMap<String, Set<Integer>>();
-      charNums = new HashSet<>();
+      ruleAtX = new HashMap<String, NavigableSet<Integer>>();
+      charNums = new TreeSet<>();
     }
     charNums.add(x);
     ruleAtX.put(ruleId, charNums);
@@ -117,7 +129,7 @@ public class IgnoredMatches {
    */
   public void removeIgnoredMatches(int y, String ruleId, FlatParagraphTools flatPara) {
     if (ignoredMatches.containsKey(y)) {
-      Map<String, Set<Integer>> ruleAtX = ignoredMatches.get(y);
+      Map<String, NavigableSet<Integer>> ruleAtX = ignoredMatches.get(y);
       if (ruleAtX.containsKey(ruleId)) {
         ruleAtX.remove(ruleId);
       }
@@ -145,9 +157,9 @@ public class IgnoredMatches {
    */
   public void removeIgnoredMatch(int x, int y, String ruleId, FlatParagraphTools flatPara) {
     if (ignoredMatches.containsKey(y)) {
-      Map<String, Set<Integer>> ruleAtX = ignoredMatches.get(y);
+      Map<String, NavigableSet<Integer>> ruleAtX = ignoredMatches.get(y);
       if (ruleAtX.containsKey(ruleId)) {
-        Set<Integer> charNums = ruleAtX.get(ruleId);
+        NavigableSet<Integer> charNums = ruleAtX.get(ruleId);
         if (charNums.contains(x)) {
           charNums.remove(x);
           if (charNums.isEmpty()) {
@@ -180,12 +192,10 @@ public class IgnoredMatches {
    * Is the match of a ruleID at a position ignored
    */
   public boolean isIgnored(int xFrom, int xTo, int y, String ruleId) {
-    if (ignoredMatches.containsKey(y) && ignoredMatches.get(y).containsKey(ruleId)) {
-      for (int x : ignoredMatches.get(y).get(ruleId)) {
-        if (x >= xFrom && x < xTo) {
-          return true;
-        }
-      }
+    Map<String, NavigableSet<Integer>> ruleAtX = ignoredMatches.get(y);
+    if (ruleAtX != null && ruleAtX.containsKey(ruleId)) {
+      Integer x = ruleAtX.get(ruleId).ceiling(xFrom);
+      return x != null && x < xTo;
     }
     return false;
   }
@@ -214,17 +224,10 @@ public class IgnoredMatches {
   /**
    * Get all ignored matches of a paragraph
    */
-  public Map<String, Set<Integer>>  get(int y) {
+  public Map<String, NavigableSet<Integer>>  get(int y) {
     return ignoredMatches.get(y);
   }
 
-  /**
-   * Get a copy of ignored matches map
-   */
-  public Map<Integer, Map<String, Set<Integer>>> getFullIMMap() {
-    return ignoredMatches;
-  }
-
   /**
    * Get all spelling locales of a paragraph
    */
@@ -233,24 +236,26 @@ public class IgnoredMatches {
   }
 
   /**
-   * Get a copy of spelling locals map
+   * get all paragraphs containing ignored matches
    */
-  public Map<Integer, List<LocaleEntry>> getFullSLMap() {
-    return this.spellLocales;
+  public List<Integer> getAllParagraphs() {
+    return ignoredMatches.keys();
   }
 
   /**
-   * add or replace a map of ignored matches to a paragraph
+   * get all paragraphs containing spelling locales
    */
-  public void put(int y, Map<String, Set<Integer>> ruleAtX) {
-    ignoredMatches.put(y, ruleAtX);
+  public List<Integer> getAllLocaleParagraphs() {
+    return spellLocales.keys();
   }
 
   /**
-   * get all paragraphs containing ignored matches
+   * Remove all ignored matches of the changed paragraphs and shift the following paragraphs
+   * (same logic as for the result caches)
    */
-  public List<Integer> getAllParagraphs() {
-    return new ArrayList<Integer>(ignoredMatches.keySet());
+  public void removeAndShift(int fromParagraph, int toParagraph, int oldSize, int newSize) {
+    ignoredMatches.removeAndShift(fromParagraph, toParagraph, oldSize, newSize);
+    spellLocales.removeAndShift(fromParagraph, toParagraph, oldSize, newSize);
   }
   
   void removeSpellingMark(int y, int start, int length, FlatParagraphTools flatPara) {
@@ -269,7 +274,7 @@ public class IgnoredMatches {
   
   public void resetAllIgnoredSpellingMarks(FlatParagraphTools flatPara) {
     if (flatPara != null) {
-      for (int y : spellLocales.keySet()) {
+      for (int y : spellLocales.keys()) {
         for (LocaleEntry entry : spellLocales.get(y)) {
           removeSpellingMark(y, entry.start, entry.length, flatPara);
         }
@@ -280,7 +285,7 @@ public class IgnoredMatches {
   public void resetAllLocale(FlatParagraphTools flatPara) {
     if (flatPara != null) {
 //      MessageHandler.printToLogFile("IgnoredMatches: resetAllLocale: spellLocales.size: " + spellLocales.size());
-      for (int y : spellLocales.keySet()) {
+      for (int y : spellLocales.keys()) {
         for (LocaleEntry entry : spellLocales.get(y)) {
           resetLocale(y, entry.start, entry.length, entry.locale, flatPara);
         }
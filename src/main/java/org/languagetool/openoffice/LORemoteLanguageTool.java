@@ -19,6 +19,7 @@
 package org.languagetool.openoffice;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -26,6 +27,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.AnalyzedToken;
@@ -37,6 +44,7 @@ import org.languagetool.UserConfig;
 import org.languagetool.JLanguageTool.ParagraphHandling;
 import org.languagetool.gui.Configuration;
 import org.languagetool.openoffice.OfficeTools.RemoteCheck;
+import org.languagetool.openoffice.RemoteResultCache.RemoteMatches;
 import org.languagetool.remote.CheckConfiguration;
 import org.languagetool.remote.CheckConfigurationBuilder;
 import org.languagetool.remote.RemoteConfigurationInfo;
@@ -63,6 +71,11 @@ class LORemoteLanguageTool {
   private static final String PREMIUM_SERVER_URL = "https://api.languagetoolplus.com";
   private static final int MAX_LIMIT = 2147483647;
   private static final int SERVER_LIMIT = 20000;
+  private static final int MAX_PARALLEL_REQUESTS = 4;   //  Maximal number of chunks of a text sent to the server at once
+  private static final int MAX_COALESCED_LENGTH = 2000; //  Maximal length of a paragraph checked together with other paragraphs
+
+  private static ExecutorService remoteExecutor = null;
+  private static final RemoteResultCache resultCache = new RemoteResultCache();  //  shared by all instances: the key includes server and language
 
   private final Set<String> enabledRules = new HashSet<>();
   private final Set<String> disabledRules = new HashSet<>();
@@ -70,6 +83,7 @@ class LORemoteLanguageTool {
   private final Set<CategoryId> enabledRuleCategories = new HashSet<>();
   private final List<Rule> allRules = new ArrayList<>();
   private final List<Rule> spellingRules = new ArrayList<>();
+  private final List<TextLevelRule> textLevelRules = new ArrayList<>();
   private final List<String> ruleValues = new ArrayList<>();
   private final Language language;
   private final Language motherTongue;
@@ -79,7 +93,10 @@ class LORemoteLanguageTool {
   private final boolean isPremium;
   private final String username;
   private final String apiKey;
+  private final URL serverBaseUrl;
   private JLanguageTool lt = null;
+  private RemoteCheckCoalescer coalescer = null;
+  private String ruleSetKey = null;               //  hash of the rule configuration; null if it has to be recalculated
 
   private int maxTextLength = MAX_LIMIT;
   private boolean remoteRun;
@@ -95,7 +112,7 @@ class LORemoteLanguageTool {
     username = config.getRemoteUsername();
     apiKey = config.getRemoteApiKey();
     isPremium = username != null && apiKey != null && config.isPremium();
-    URL serverBaseUrl = new URL(serverUrl == null ? (isPremium ? PREMIUM_SERVER_URL : SERVER_URL) : serverUrl);
+    serverBaseUrl = new URL(serverUrl == null ? (isPremium ? PREMIUM_SERVER_URL : SERVER_URL) : serverUrl);
     remoteLanguageTool = new RemoteLanguageTool(serverBaseUrl);
     try {
       String urlParameters = "language=" + language.getShortCodeWithCountryAndVariant();
@@ -115,6 +132,24 @@ class LORemoteLanguageTool {
     }
   }
   
+  /**
+   * constructor for tests: the rules are given, the server is not asked for its configuration
+   */
+  LORemoteLanguageTool(Language language, URL serverBaseUrl, List<Map<String,String>> listRuleMaps) {
+    this.language = language;
+    this.serverBaseUrl = serverBaseUrl;
+    motherTongue = null;
+    userConfig = null;
+    addSynonyms = false;
+    isPremium = false;
+    username = null;
+    apiKey = null;
+    remoteLanguageTool = new RemoteLanguageTool(serverBaseUrl);
+    storeAllRules(listRuleMaps);
+    maxTextLength = SERVER_LIMIT;
+    remoteRun = true;
+  }
+  
   /**
    * check a text by a remote LT server
    */
@@ -134,6 +169,7 @@ class LORemoteLanguageTool {
     if (motherTongue != null) {
       configBuilder.setMotherTongueLangCode(motherTongue.getShortCodeWithCountryAndVariant());
     }
+    boolean isParagraphIndependent = false;   //  no text level rules are checked
     if (paraMode == ParagraphHandling.ONLYPARA) {
       configBuilder.ruleValues(ruleValues);
       Set<String> tmpEnabled = new HashSet<>();
@@ -158,10 +194,20 @@ class LORemoteLanguageTool {
             tmpDisabled.remove(rule.getId());
           }
         }
-        configBuilder.enabledRuleIds(enabledRules.toArray(new String[0]));
+        Set<String> tmpEnabled = new HashSet<>(enabledRules);
+        configBuilder.enabledRuleIds(tmpEnabled.toArray(new String[0]));
         configBuilder.disabledRuleIds(tmpDisabled.toArray(new String[0]));
         configBuilder.ruleValues(ruleValues);
-        configBuilder.mode("all");
+        if (paraMode == ParagraphHandling.ONLYNONPARA) {
+          //  the text level rules are checked separately (by the text level queue): the paragraph can be coalesced
+          configBuilder.mode("allButTextLevelOnly");
+          isParagraphIndependent = true;
+        } else {
+          configBuilder.mode("all");
+          //  the checks of single paragraphs (cache 0) run only the text level rules inside of a paragraph:
+          //  the paragraph can be coalesced
+          isParagraphIndependent = paraMode == ParagraphHandling.NORMAL && hasOnlyParagraphTextRules(tmpEnabled, tmpDisabled);
+        }
       } else if (checkMode == RemoteCheck.ONLY_SPELL) {
         Set<String> tmpEnabled = new HashSet<>();
         for (Rule rule : spellingRules) {
@@ -172,40 +218,216 @@ class LORemoteLanguageTool {
           configBuilder.enabledOnly();
         }
         configBuilder.mode("allButTextLevelOnly");
+        isParagraphIndependent = true;
       }
     }
     configBuilder.level("default");
     CheckConfiguration remoteConfig = configBuilder.build();
-    int limit;
-    for (int nStart = 0; text.length() > nStart; nStart += limit) {
-      String subText;
-      if (text.length() <= nStart + maxTextLength) {
-        subText = text.substring(nStart);
-        limit = maxTextLength;
-      } else {
-        int nEnd = text.lastIndexOf(OfficeTools.END_OF_PARAGRAPH, nStart + SERVER_LIMIT) + OfficeTools.NUMBER_PARAGRAPH_CHARS;
-        if (nEnd <= nStart) {
-          nEnd = text.lastIndexOf(BLANK, nStart + SERVER_LIMIT) + 1;
-          if (nEnd <= nStart) {
-            nEnd = nStart + SERVER_LIMIT;
-          }
-        }
-        subText = text.substring(nStart, nEnd);
-        limit = nEnd;
-      }
-      RemoteResult remoteResult;
-      try {
-        remoteResult = remoteLanguageTool.check(subText, remoteConfig);
-      } catch (Throwable t) {
-        MessageHandler.printException(t);
+    String configKey = getConfigKey(paraMode, checkMode);
+    if (isParagraphIndependent && OfficeTools.REMOTE_COALESCING_WINDOW > 0 
+        && text.length() <= MAX_COALESCED_LENGTH && !text.contains(OfficeTools.END_OF_PARAGRAPH)) {
+      RemoteMatches remoteMatches = checkCoalesced(text, remoteConfig, configKey);
+      if (remoteMatches == null) {
         remoteRun = false;
         return null;
       }
-      ruleMatches.addAll(toRuleMatches(text, remoteResult.getMatches(), nStart));
+      return toRuleMatches(text, remoteMatches.matches, remoteMatches.offset);
+    }
+    List<Integer> chunkBounds = getChunkBounds(text, maxTextLength);
+    List<RemoteMatches> remoteMatches = checkChunks(remoteLanguageTool, text, chunkBounds, remoteConfig, configKey);
+    if (remoteMatches == null) {
+      remoteRun = false;
+      return null;
+    }
+    for (int i = 0; i < remoteMatches.size(); i++) {
+      ruleMatches.addAll(toRuleMatches(text, remoteMatches.get(i).matches, chunkBounds.get(i) + remoteMatches.get(i).offset));
     }
     return ruleMatches;
   }
   
+  /**
+   * Check a single paragraph together with the paragraphs of other calls in the same time window
+   * Returns null if the check failed; throws InterruptedIOException if the thread was interrupted
+   */
+  private RemoteMatches checkCoalesced(String text, CheckConfiguration remoteConfig, String configKey) throws InterruptedIOException {
+    String key = RemoteResultCache.getKey(configKey, text);
+    RemoteMatches remoteMatches = resultCache.get(key);
+    if (remoteMatches == null) {
+      synchronized (this) {
+        if (coalescer == null) {
+          coalescer = new RemoteCheckCoalescer(remoteLanguageTool, Math.min(maxTextLength, SERVER_LIMIT));
+        }
+      }
+      remoteMatches = coalescer.check(text, configKey, remoteConfig);
+      if (remoteMatches != null) {
+        resultCache.put(key, remoteMatches);
+      }
+    }
+    return remoteMatches;
+  }
+  
+  /**
+   * true if all text level rules run by the server check only inside of a paragraph (minToCheckParagraph == 0)
+   * that is the case after SortedTextRules.activateTextRulesByIndex(0)
+   * NOTE: the categories are not sent to the server, only the rule IDs of the check configuration are relevant
+   */
+  private boolean hasOnlyParagraphTextRules(Set<String> enabled, Set<String> disabled) {
+    for (TextLevelRule rule : textLevelRules) {
+      if (rule.minToCheckParagraph() != 0 && !disabled.contains(rule.getId()) 
+          && (!rule.isDefaultOff() || enabled.contains(rule.getId()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Get a key for the configuration of a check (used by the result cache)
+   * The key changes if the server, the language, the rules or the rule values are changed
+   */
+  private String getConfigKey(ParagraphHandling paraMode, RemoteCheck checkMode) {
+    if (ruleSetKey == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append(serverBaseUrl).append('|').append(isPremium ? username : "").append('|')
+        .append(language.getShortCodeWithCountryAndVariant()).append('|')
+        .append(motherTongue == null ? "" : motherTongue.getShortCodeWithCountryAndVariant());
+      sb.append("|e:").append(new TreeSet<>(enabledRules)).append("|d:").append(new TreeSet<>(disabledRules));
+      Set<String> categories = new TreeSet<>();
+      for (CategoryId id : enabledRuleCategories) {
+        categories.add(id.toString());
+      }
+      sb.append("|ec:").append(categories);
+      categories.clear();
+      for (CategoryId id : disabledRuleCategories) {
+        categories.add(id.toString());
+      }
+      sb.append("|dc:").append(categories).append("|v:").append(new TreeSet<>(ruleValues));
+      ruleSetKey = RemoteResultCache.getHash(sb.toString());
+    }
+    return ruleSetKey + ":" + paraMode + ":" + checkMode;
+  }
+  
+  /**
+   * Split a text into chunks which are accepted by the server
+   * The chunks end at a paragraph end (or a blank) if possible
+   * Returns the start positions of all chunks followed by the length of the text
+   */
+  static List<Integer> getChunkBounds(String text, int maxTextLength) {
+    List<Integer> chunkBounds = new ArrayList<>();
+    int chunkLimit = Math.min(maxTextLength, SERVER_LIMIT);
+    int nStart = 0;
+    chunkBounds.add(nStart);
+    while (text.length() - nStart > maxTextLength) {
+      int nEnd;
+      int nPara = text.lastIndexOf(OfficeTools.END_OF_PARAGRAPH, nStart + chunkLimit - OfficeTools.NUMBER_PARAGRAPH_CHARS);
+      if (nPara >= nStart) {
+        nEnd = nPara + OfficeTools.NUMBER_PARAGRAPH_CHARS;
+      } else {
+        int nBlank = text.lastIndexOf(BLANK, nStart + chunkLimit - 1);
+        nEnd = nBlank >= nStart ? nBlank + 1 : nStart + chunkLimit;
+      }
+      nStart = nEnd;
+      chunkBounds.add(nStart);
+    }
+    chunkBounds.add(text.length());
+    return chunkBounds;
+  }
+  
+  /**
+   * Send the chunks of a text to the server
+   * Up to MAX_PARALLEL_REQUESTS chunks are sent at once; the results are given back in the order of the chunks
+   * Returns null if the check of one chunk failed
+   * Throws InterruptedIOException if the thread was interrupted (not a failure of the server)
+   */
+  static List<RemoteMatches> checkChunks(RemoteLanguageTool remoteLanguageTool, String text, List<Integer> chunkBounds, 
+      CheckConfiguration remoteConfig, String configKey) throws InterruptedIOException {
+    int nChunks = chunkBounds.size() - 1;
+    List<RemoteMatches> remoteMatches = new ArrayList<>();
+    List<String> subTexts = new ArrayList<>();
+    List<String> keys = new ArrayList<>();
+    int nUncached = 0;
+    for (int i = 0; i < nChunks; i++) {
+      String subText = text.substring(chunkBounds.get(i), chunkBounds.get(i + 1));
+      String key = RemoteResultCache.getKey(configKey, subText);
+      RemoteMatches cachedMatches = resultCache.get(key);
+      if (cachedMatches == null) {
+        nUncached++;
+      }
+      subTexts.add(subText);
+      keys.add(key);
+      remoteMatches.add(cachedMatches);
+    }
+    if (nUncached == 0) {
+      return remoteMatches;
+    }
+    List<Future<RemoteResult>> futures = new ArrayList<>();
+    try {
+      if (nUncached == 1) {
+        for (int i = 0; i < nChunks; i++) {
+          if (remoteMatches.get(i) == null) {
+            remoteMatches.set(i, new RemoteMatches(remoteLanguageTool.check(subTexts.get(i), remoteConfig).getMatches(), 0));
+            resultCache.put(keys.get(i), remoteMatches.get(i));
+          }
+        }
+        return remoteMatches;
+      }
+      ExecutorService executor = getRemoteExecutor();
+      for (int i = 0; i < nChunks; i++) {
+        if (remoteMatches.get(i) == null) {
+          String subText = subTexts.get(i);
+          futures.add(executor.submit(() -> remoteLanguageTool.check(subText, remoteConfig)));
+        } else {
+          futures.add(null);
+        }
+      }
+      for (int i = 0; i < nChunks; i++) {
+        if (futures.get(i) != null) {
+          remoteMatches.set(i, new RemoteMatches(futures.get(i).get().getMatches(), 0));
+          resultCache.put(keys.get(i), remoteMatches.get(i));
+        }
+      }
+      return remoteMatches;
+    } catch (InterruptedException e) {
+      cancelAll(futures);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Remote check interrupted");
+    } catch (Throwable t) {
+      cancelAll(futures);
+      MessageHandler.printException(t);
+      return null;
+    }
+  }
+  
+  /**
+   * cancel all requests which are not done
+   */
+  private static void cancelAll(List<Future<RemoteResult>> futures) {
+    for (Future<RemoteResult> future : futures) {
+      if (future != null) {
+        future.cancel(true);
+      }
+    }
+  }
+  
+  /**
+   * Get the executor for the parallel requests to the server
+   * The number of threads is smaller than the number of connections kept alive by the JDK (http.maxConnections),
+   * so the connections to the server are reused by the following requests
+   */
+  private static synchronized ExecutorService getRemoteExecutor() {
+    if (remoteExecutor == null) {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_PARALLEL_REQUESTS, MAX_PARALLEL_REQUESTS, 
+          60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "LtRemoteCheck");
+            thread.setDaemon(true);
+            return thread;
+          });
+      executor.allowCoreThreadTimeOut(true);
+      remoteExecutor = executor;
+    }
+    return remoteExecutor;
+  }
+  
   /**
    * Get the language the check will done for
    */
@@ -289,6 +511,7 @@ class LORemoteLanguageTool {
   void enableRule (String ruleId) {
     disabledRules.remove(ruleId);
     enabledRules.add(ruleId);
+    ruleSetKey = null;
   }
   
   /**
@@ -297,6 +520,7 @@ class LORemoteLanguageTool {
   void disableRule (String ruleId) {
     disabledRules.add(ruleId);
     enabledRules.remove(ruleId);
+    ruleSetKey = null;
   }
   
   /**
@@ -305,12 +529,14 @@ class LORemoteLanguageTool {
   public void disableCategory(CategoryId id) {
     disabledRuleCategories.add(id);
     enabledRuleCategories.remove(id);
+    ruleSetKey = null;
   }
   
   /**
    * Set the values for rules
    */
   private void setRuleValues(Map<String, Object[]> configurableValues) {
+    ruleSetKey = null;
     ruleValues.clear();
     Set<String> rules = configurableValues.keySet();
     for (String rule : rules) {
@@ -445,10 +671,12 @@ class LORemoteLanguageTool {
   private void storeAllRules(List<Map<String,String>> listRuleMaps) {
     allRules.clear();
     spellingRules.clear();
+    textLevelRules.clear();
     for (Map<String,String> ruleMap : listRuleMaps) {
       Rule rule;
       if (ruleMap.containsKey("isTextLevelRule")) {
         rule = new RemoteTextLevelRule(ruleMap);
+        textLevelRules.add((TextLevelRule) rule);
       } else {
         rule = new RemoteRule(ruleMap);
       }
@@ -19,10 +19,13 @@
 package org.languagetool.openoffice;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.languagetool.Language;
 import org.languagetool.LinguServices;
@@ -32,12 +35,16 @@ import com.sun.star.beans.Property;
 import com.sun.star.beans.PropertyValue;
 import com.sun.star.beans.XPropertySet;
 import com.sun.star.beans.XPropertySetInfo;
+import com.sun.star.lang.EventObject;
 import com.sun.star.lang.Locale;
 import com.sun.star.lang.XMultiComponentFactory;
+import com.sun.star.linguistic2.DictionaryListEvent;
+import com.sun.star.linguistic2.XDictionaryListEventListener;
 import com.sun.star.linguistic2.XHyphenator;
 import com.sun.star.linguistic2.XLinguServiceManager;
 import com.sun.star.linguistic2.XMeaning;
 import com.sun.star.linguistic2.XPossibleHyphens;
+import com.sun.star.linguistic2.XSearchableDictionaryList;
 import com.sun.star.linguistic2.XSpellAlternatives;
 import com.sun.star.linguistic2.XSpellChecker;
 import com.sun.star.linguistic2.XThesaurus;
@@ -52,7 +59,11 @@ import com.sun.star.uno.XComponentContext;
  */
 public class LinguisticServices extends LinguServices {
   
+  private static final int MAX_SPELL_CACHE_SIZE = 100000;   // maximal number of cached spell verdicts per locale
+
+  private static final Map<String, Map<String, Boolean>> spellVerdicts = new HashMap<>();  // shared cache: locale -> word -> is correct
   private static boolean isSetLt = false;
+  private static DictionaryListListener dictionaryListListener = null;  // resets the spell verdicts if dictionaries are changed
 //  private XThesaurus thesaurus = null;
 //  private XSpellChecker spellChecker = null;
 //  private XHyphenator hyphenator = null;
@@ -295,6 +306,92 @@ public class LinguisticServices extends LinguServices {
     }
   }
 
+  /**
+   * Returns the words of a collection which are not correct spelled
+   * Every word is checked only once per locale; the verdicts are cached and shared by all instances
+   * The spell checker is fetched only once for all words not found in cache
+   */
+  public Set<String> getWrongSpelledWords(Collection<String> words, Locale locale) {
+    Set<String> wrongWords = new HashSet<>();
+    if (words == null || words.isEmpty() || locale == null) {
+      return wrongWords;
+    }
+    addDictionaryListListener(xContext);
+    String localeString = OfficeTools.localeToString(locale);
+    List<String> uncheckedWords = new ArrayList<>();
+    synchronized (spellVerdicts) {
+      Map<String, Boolean> verdicts = spellVerdicts.get(localeString);
+      for (String word : words) {
+        Boolean isCorrect = verdicts == null ? null : verdicts.get(word);
+        if (isCorrect == null) {
+          uncheckedWords.add(word);
+        } else if (!isCorrect) {
+          wrongWords.add(word);
+        }
+      }
+    }
+    if (uncheckedWords.isEmpty()) {
+      return wrongWords;
+    }
+    XSpellChecker spellChecker = getSpellChecker(xContext);
+    if (spellChecker == null) {
+      MessageHandler.printToLogFile("LinguisticServices: getWrongSpelledWords: XSpellChecker == null");
+      wrongWords.addAll(uncheckedWords);
+      return wrongWords;
+    }
+    PropertyValue[] properties = new PropertyValue[0];
+    Map<String, Boolean> newVerdicts = new HashMap<>();
+    for (String word : uncheckedWords) {
+      try {
+        boolean isCorrect = spellChecker.isValid(word, locale, properties);
+        newVerdicts.put(word, isCorrect);
+        if (!isCorrect) {
+          wrongWords.add(word);
+        }
+      } catch (Throwable t) {
+        // If anything goes wrong, give the user a stack trace
+        MessageHandler.printException(t);
+        wrongWords.add(word);
+      }
+    }
+    synchronized (spellVerdicts) {
+      Map<String, Boolean> verdicts = spellVerdicts.get(localeString);
+      if (verdicts == null || verdicts.size() + newVerdicts.size() > MAX_SPELL_CACHE_SIZE) {
+        verdicts = new HashMap<>();
+        spellVerdicts.put(localeString, verdicts);
+      }
+      verdicts.putAll(newVerdicts);
+    }
+    return wrongWords;
+  }
+
+  /**
+   * Register a listener to the dictionary list of LO/OO (only once)
+   * so that the spell verdicts are reset if the user changes dictionaries by the LO/OO UI
+   */
+  private static synchronized void addDictionaryListListener(XComponentContext xContext) {
+    if (dictionaryListListener != null || xContext == null) {
+      return;
+    }
+    XSearchableDictionaryList searchableDictionaryList = OfficeTools.getSearchableDictionaryList(xContext);
+    if (searchableDictionaryList == null) {
+      MessageHandler.printToLogFile("LinguisticServices: addDictionaryListListener: searchableDictionaryList == null");
+      return;
+    }
+    dictionaryListListener = new DictionaryListListener();
+    searchableDictionaryList.addDictionaryListEventListener(dictionaryListListener, false);
+  }
+
+  /**
+   * Reset the cached spell verdicts
+   * Has to be called if a dictionary or the list of ignored words was changed
+   */
+  public static void resetSpellCache() {
+    synchronized (spellVerdicts) {
+      spellVerdicts.clear();
+    }
+  }
+
   /**
    * Returns Alternatives to  wrong spelled word
    */
@@ -558,4 +655,23 @@ public class LinguisticServices extends LinguServices {
 
   }
 
+  /**
+   * Listener to the dictionary list of LO/OO: every change of a dictionary (entries, activation, ...) resets the spell verdicts
+   */
+  private static class DictionaryListListener implements XDictionaryListEventListener {
+
+    @Override
+    public void processDictionaryListEvent(DictionaryListEvent event) {
+      resetSpellCache();
+    }
+
+    @Override
+    public void disposing(EventObject event) {
+      synchronized (LinguisticServices.class) {
+        dictionaryListListener = null;
+      }
+      resetSpellCache();
+    }
+  }
+
 }
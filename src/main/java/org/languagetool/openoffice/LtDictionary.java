@@ -38,16 +38,21 @@ import java.util.ArrayList;
 // import java.util.HashSet;
 import java.util.List;
 // import java.util.Map;
-//import java.util.Set;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 /*
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.AnalyzedTokenReadings;
 import org.languagetool.JLanguageTool;
 */
+import com.sun.star.lang.EventObject;
 // import com.sun.star.lang.Locale;
+import com.sun.star.linguistic2.DictionaryEvent;
+import com.sun.star.linguistic2.DictionaryEventFlags;
 // import com.sun.star.linguistic2.DictionaryType;
 import com.sun.star.linguistic2.XDictionary;
-// import com.sun.star.linguistic2.XDictionaryEntry;
+import com.sun.star.linguistic2.XDictionaryEntry;
+import com.sun.star.linguistic2.XDictionaryEventListener;
 import com.sun.star.linguistic2.XSearchableDictionaryList;
 import com.sun.star.uno.XComponentContext;
 
@@ -66,6 +71,9 @@ public class LtDictionary {
   
 //  private static Set<String> dictionaryList = new HashSet<>();
   private static String listIgnoredWords = null;
+  private static volatile XDictionary ignoredWordsDictionary = null;  //  dictionary for ignored words (LO/OO internal)
+  private static volatile Set<String> ignoredWordsSet = null;         //  local copy of the entries of the dictionary for ignored words
+  private static final XDictionaryEventListener ignoredWordsListener = new IgnoredWordsListener();
 //  private static boolean isDisposed = false;
   private static boolean activateDictionary = false;
 //  private static Map<String, Set<String>> ltSpellingWords = new HashMap<>();
@@ -448,22 +456,107 @@ public class LtDictionary {
     return false;
   }
 */  
+  /**
+   * get the dictionary for ignored words and fill the local copy of its entries
+   * the local copy is kept up to date by a dictionary event listener
+   */
+  private static XDictionary getIgnoredWordsDictionary(XComponentContext xContext) {
+    if (ignoredWordsDictionary != null && ignoredWordsDictionary.isActive()) {
+      return ignoredWordsDictionary;
+    }
+    XDictionary dictionary = getListIgnoredWords(xContext);
+    if (dictionary == null) {
+      return null;
+    }
+    if (dictionary != ignoredWordsDictionary) {
+      if (ignoredWordsDictionary != null) {
+        try {
+          ignoredWordsDictionary.removeDictionaryEventListener(ignoredWordsListener);
+        } catch (Throwable t) {
+          //  the old dictionary may be disposed already
+          MessageHandler.printException(t);
+        }
+      }
+      dictionary.addDictionaryEventListener(ignoredWordsListener);
+      ignoredWordsDictionary = dictionary;
+    }
+    ignoredWordsSet = null;
+    return dictionary;
+  }
+
+  private static Set<String> getIgnoredWordsSet(XDictionary dictionary) {
+    Set<String> words = ignoredWordsSet;
+    if (words == null) {
+      words = ConcurrentHashMap.newKeySet();
+      for (XDictionaryEntry entry : dictionary.getEntries()) {
+        words.add(entry.getDictionaryWord());
+      }
+      ignoredWordsSet = words;
+    }
+    return words;
+  }
+
   /**
    * Add a word to the List of ignored words
    * Used for ignore all in spelling check
    */
-  public static void addIgnoredWord(String word, XComponentContext xContext) {
-    XDictionary ignoredWords = getListIgnoredWords(xContext);
-    ignoredWords.add(word, false, "");
+  public static synchronized void addIgnoredWord(String word, XComponentContext xContext) {
+    XDictionary ignoredWords = getIgnoredWordsDictionary(xContext);
+    if (ignoredWords == null) {
+      return;
+    }
+    //  the spell cache is only reset if the word was not ignored before
+    //  the local copy is only changed if the word was added to the dictionary
+    Set<String> words = getIgnoredWordsSet(ignoredWords);
+    if (!words.contains(word) && ignoredWords.add(word, false, "")) {
+      words.add(word);
+      LinguisticServices.resetSpellCache();
+    }
   }
   
   /**
    * Remove a word from the List of ignored words
    * Used for ignore all in spelling check
    */
-  public static void removeIgnoredWord(String word, XComponentContext xContext) {
-    XDictionary ignoredWords = getListIgnoredWords(xContext);
-    ignoredWords.remove(word);
+  public static synchronized void removeIgnoredWord(String word, XComponentContext xContext) {
+    XDictionary ignoredWords = getIgnoredWordsDictionary(xContext);
+    if (ignoredWords == null) {
+      return;
+    }
+    Set<String> words = getIgnoredWordsSet(ignoredWords);
+    if (words.contains(word) && ignoredWords.remove(word)) {
+      words.remove(word);
+      LinguisticServices.resetSpellCache();
+    }
+  }
+
+  /**
+   * Listener to keep the local copy of the ignored words in sync with changes done by LO/OO
+   * Note: no lock is taken, since the events may be sent by LO/OO while a word is added
+   */
+  private static class IgnoredWordsListener implements XDictionaryEventListener {
+
+    @Override
+    public void processDictionaryEvent(DictionaryEvent event) {
+      Set<String> words = ignoredWordsSet;
+      if (words == null) {
+        return;
+      }
+      if (event.nEvent == DictionaryEventFlags.ADD_ENTRY && event.xDictionaryEntry != null) {
+        words.add(event.xDictionaryEntry.getDictionaryWord());
+      } else if (event.nEvent == DictionaryEventFlags.DEL_ENTRY && event.xDictionaryEntry != null) {
+        words.remove(event.xDictionaryEntry.getDictionaryWord());
+      } else {
+        //  entries cleared, dictionary deactivated, ...: read the entries again at next use
+        ignoredWordsSet = null;
+      }
+    }
+
+    @Override
+    public void disposing(EventObject event) {
+      ignoredWordsDictionary = null;
+      ignoredWordsSet = null;
+    }
   }
   
   /**
@@ -486,6 +579,7 @@ public class LtDictionary {
       throw new RuntimeException("Dictionary not found (dictionaryName: " + dictionaryName + "; word: " + word);
     }
     dictionary.add(word, false, "");
+    LinguisticServices.resetSpellCache();
   }
   
   /**
@@ -499,6 +593,7 @@ public class LtDictionary {
     }
     XDictionary dictionary = searchableDictionaryList.getDictionaryByName(dictionaryName);
     dictionary.remove(word);
+    LinguisticServices.resetSpellCache();
   }
   
   /**
@@ -39,6 +39,7 @@ import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
 import org.apache.commons.lang3.StringUtils;
@@ -213,12 +214,14 @@ public class MultiDocumentsHandler {
     paRes.aDocumentIdentifier = docID;
     paRes.aText = paraText;
     paRes.aProperties = propertyValues;
+    long startTime = OfficeMetrics.startTime();
     try {
       paRes = getCheckResults(paraText, locale, paRes, propertyValues, docReset);
       docReset = false;
     } catch (Throwable t) {
       MessageHandler.showError(t);
     }
+    OfficeMetrics.recordTime(OfficeMetrics.PROOFREADING, startTime);
     return paRes;
   }
 
@@ -511,6 +514,7 @@ public class MultiDocumentsHandler {
               aiQueue.setStop();
               aiQueue = null;
             }
+            OfficeMetrics.stopMonitoring();
             isHelperDisposed = true;
           }
           document.removeDokumentListener(xComponent);
@@ -1041,16 +1045,14 @@ public class MultiDocumentsHandler {
         OfficeTools.setLogLevel(config.getlogLevel());
         debugMode = OfficeTools.DEBUG_MODE_MD;
         debugModeTm = OfficeTools.DEBUG_MODE_TM;
+        OfficeMetrics.startMonitoring();
         if (!noLtSpeller && !LtSpellChecker.isEnoughHeap()) {
           noLtSpeller = true;
           disableLTSpellChecker(xContext, docLanguage);
           MessageHandler.showMessage(messages.getString("guiSpellCheckerWarning"));
         }
       }
-      long startTime = 0;
-      if (debugModeTm) {
-        startTime = System.currentTimeMillis();
-      }
+      long startTime = OfficeMetrics.startTime();
       noBackgroundCheck = config.noBackgroundCheck();
       if (linguServices == null) {
         linguServices = getLinguisticServices();
@@ -1093,12 +1095,7 @@ public class MultiDocumentsHandler {
         }
       }
       recheck = false;
-      if (debugModeTm) {
-        long runTime = System.currentTimeMillis() - startTime;
-        if (runTime > OfficeTools.TIME_TOLERANCE) {
-          MessageHandler.printToLogFile("Time to init Language Tool: " + runTime);
-        }
-      }
+      OfficeMetrics.recordTime(OfficeMetrics.INIT_LANGUAGE_TOOL, startTime, "Time to init Language Tool: ");
       return lt;
     } catch (Throwable t) {
       MessageHandler.showError(t);
@@ -1110,10 +1107,7 @@ public class MultiDocumentsHandler {
    * Enable or disable rules as given by configuration file
    */
   void initCheck(SwJLanguageTool lt) throws Throwable {
-    long startTime = 0;
-    if (debugModeTm) {
-      startTime = System.currentTimeMillis();
-    }
+    long startTime = OfficeMetrics.startTime();
     if (config.enableTmpOffRules()) {
       //  enable TempOff rules if configured
       List<Rule> allRules = lt.getAllRules();
@@ -1158,22 +1152,14 @@ public class MultiDocumentsHandler {
       }
     }
 //    handleLtDictionary();
-    if (debugModeTm) {
-      long runTime = System.currentTimeMillis() - startTime;
-      if (runTime > OfficeTools.TIME_TOLERANCE) {
-        MessageHandler.printToLogFile("Time to init Check: " + runTime);
-      }
-    }
+    OfficeMetrics.recordTime(OfficeMetrics.INIT_CHECK, startTime, "Time to init Check: ");
   }
   
   /**
    * Initialize single documents, prepare text level rules and start queue
    */
   void initDocuments(boolean resetCache) throws Throwable {
-    long startTime = 0;
-    if (debugModeTm) {
-      startTime = System.currentTimeMillis();
-    }
+    long startTime = OfficeMetrics.startTime();
     setConfigValues(config, lt);
     String langCode = lt.getLanguage().getShortCodeWithCountryAndVariant();
     sortedTextRules = new SortedTextRules(lt, config, getDisabledRules(langCode), checkImpressDocument);
@@ -1197,12 +1183,7 @@ public class MultiDocumentsHandler {
     if (resetCache) {
       resetResultCaches(true);
     }
-    if (debugModeTm) {
-      long runTime = System.currentTimeMillis() - startTime;
-      if (runTime > OfficeTools.TIME_TOLERANCE) {
-        MessageHandler.printToLogFile("Time to init Documents: " + runTime);
-      }
-    }
+    OfficeMetrics.recordTime(OfficeMetrics.INIT_DOCUMENTS, startTime, "Time to init Documents: ");
   }
   
   /**
@@ -2490,6 +2471,7 @@ public class MultiDocumentsHandler {
     private JDialog dialog = null;
     private boolean isCanceled = false;
     private JProgressBar progressBar;
+    private JLabel textLabel;
 
     public WaitDialogThread(String dialogName, String text) {
       this.dialogName = dialogName;
@@ -2499,7 +2481,7 @@ public class MultiDocumentsHandler {
     @Override
     public void run() {
       try {
-        JLabel textLabel = new JLabel(text);
+        textLabel = new JLabel(text);
         JButton cancelBottom = new JButton(messages.getString("guiCancelButton"));
         cancelBottom.addActionListener(e -> {
           close_intern();
@@ -2605,6 +2587,19 @@ public class MultiDocumentsHandler {
       }
     }
     
+    /**
+     * show a new message (e.g. a partial result); long messages are wrapped
+     */
+    public void setMessage(String message) {
+      SwingUtilities.invokeLater(() -> {
+        if (textLabel != null && dialog != null && !isCanceled) {
+          String html = message.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\n", "<br>");
+          textLabel.setText("<html><body style='width: 400px'>" + html + "</body></html>");
+          dialog.pack();
+        }
+      });
+    }
+    
     public void initializeProgressBar(int min, int max) {
       if (progressBar != null) {
         progressBar.setMinimum(min);
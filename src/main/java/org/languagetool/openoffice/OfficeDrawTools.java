@@ -19,14 +19,23 @@
 package org.languagetool.openoffice;
 
 import java.awt.Color;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import com.sun.star.awt.FontUnderline;
 import com.sun.star.awt.Point;
 import com.sun.star.awt.Size;
+import com.sun.star.beans.PropertyState;
 import com.sun.star.beans.PropertyValue;
 import com.sun.star.beans.XPropertySet;
+import com.sun.star.beans.XPropertyState;
+import com.sun.star.container.XEnumeration;
+import com.sun.star.container.XEnumerationAccess;
 import com.sun.star.drawing.XDrawPage;
 import com.sun.star.drawing.XDrawPages;
 import com.sun.star.drawing.XDrawPagesSupplier;
@@ -45,6 +54,7 @@ import com.sun.star.presentation.XHandoutMasterSupplier;
 import com.sun.star.presentation.XPresentationPage;
 import com.sun.star.text.XText;
 import com.sun.star.text.XTextCursor;
+import com.sun.star.text.XTextRange;
 import com.sun.star.uno.UnoRuntime;
 
 /**
@@ -170,45 +180,154 @@ public class OfficeDrawTools {
   
   /**
    * get all paragraphs from Text of a shape
+   * the paragraphs are taken in one pass from the paragraph enumeration of the text
+   * if the text can't be enumerated the text is walked by a text cursor
    */
   private static int getAllParagraphsFromText(int nPara, List<String> paragraphs, 
-      List<Locale> locales, XText xText) throws Throwable {
-    if (xText != null) {
-      XTextCursor xTextCursor = xText.createTextCursor();
-      xTextCursor.gotoStart(false);
-      String sText = xText.getString();
-      int kStart = 0;
-      int k;
-      for (k = 0; k < sText.length(); k++) {
-        if (sText.charAt(k) == OfficeTools.SINGLE_END_OF_PARAGRAPH.charAt(0)) {
-          paragraphs.add(sText.substring(kStart, k));
-          nPara++;
-          xTextCursor.goRight((short)(k - kStart), true);
-          XPropertySet xParaPropSet = UnoRuntime.queryInterface(XPropertySet.class, xTextCursor);
-          locales.add((Locale) xParaPropSet.getPropertyValue("CharLocale"));
-          xTextCursor.goRight((short)1, false);
-          kStart = k + 1;
+      List<Locale> locales, XText xText, String sText) throws Throwable {
+    if (xText == null) {
+      return nPara;
+    }
+    int nParas = addParagraphsByEnumeration(paragraphs, locales, xText, sText);
+    if (nParas >= 0) {
+      return nPara + nParas;
+    }
+    OfficeMetrics.increment("impress.cursorExtraction");
+    return getAllParagraphsByCursor(nPara, paragraphs, locales, xText, sText);
+  }
+
+  /**
+   * add the paragraphs and locales of the text of a shape by the paragraph enumeration
+   * if the whole text has one language the locale is read only once
+   * else paragraphs with the same language as the paragraph before share its locale
+   * line breaks inside a paragraph are handled as end of paragraph (as in changeTextOfParagraphInText)
+   * returns the number of added paragraphs or -1 if the text can't be enumerated (nothing is added)
+   */
+  private static int addParagraphsByEnumeration(List<String> paragraphs, List<Locale> locales, 
+      XText xText, String sText) throws Throwable {
+    XEnumerationAccess xParaAccess = UnoRuntime.queryInterface(XEnumerationAccess.class, xText);
+    if (xParaAccess == null) {
+      return -1;
+    }
+    Locale textLocale = getLocaleOfText(xText);
+    Locale lastLocale = null;
+    List<String> textParas = new ArrayList<>();
+    List<Locale> textLocales = new ArrayList<>();
+    XEnumeration xParaEnum = xParaAccess.createEnumeration();
+    while (xParaEnum.hasMoreElements()) {
+      Object oPara = xParaEnum.nextElement();
+      XTextRange xParaRange = UnoRuntime.queryInterface(XTextRange.class, oPara);
+      if (xParaRange == null) {
+        return -1;
+      }
+      Locale locale = textLocale;
+      if (locale == null) {
+        XPropertySet xParaPropSet = UnoRuntime.queryInterface(XPropertySet.class, oPara);
+        if (xParaPropSet == null) {
+          return -1;
+        }
+        //  the language of a paragraph is only known by reading it
+        //  while it stays the same, the paragraphs share the locale of the last paragraph
+        locale = (Locale) xParaPropSet.getPropertyValue("CharLocale");
+        if (lastLocale != null && locale != null && OfficeTools.isEqualLocale(lastLocale, locale)) {
+          locale = lastLocale;
         }
+        lastLocale = locale;
       }
-      if (k > kStart) {
+      for (String sPara : xParaRange.getString().split(OfficeTools.SINGLE_END_OF_PARAGRAPH, -1)) {
+        textParas.add(sPara);
+        textLocales.add(locale);
+      }
+    }
+    if (!String.join(OfficeTools.SINGLE_END_OF_PARAGRAPH, textParas).equals(sText)) {
+      return -1;
+    }
+    //  an empty last paragraph is not added (as by the cursor)
+    if (!textParas.isEmpty() && textParas.get(textParas.size() - 1).isEmpty()) {
+      textParas.remove(textParas.size() - 1);
+      textLocales.remove(textLocales.size() - 1);
+    }
+    paragraphs.addAll(textParas);
+    locales.addAll(textLocales);
+    return textParas.size();
+  }
+
+  /**
+   * get the locale of a text if the whole text has the same language
+   * returns null if the text has more than one language
+   */
+  private static Locale getLocaleOfText(XText xText) throws Throwable {
+    XTextCursor xTextCursor = xText.createTextCursor();
+    xTextCursor.gotoStart(false);
+    xTextCursor.gotoEnd(true);
+    XPropertyState xPropertyState = UnoRuntime.queryInterface(XPropertyState.class, xTextCursor);
+    if (xPropertyState == null || xPropertyState.getPropertyState("CharLocale") == PropertyState.AMBIGUOUS_VALUE) {
+      return null;
+    }
+    XPropertySet xPropSet = UnoRuntime.queryInterface(XPropertySet.class, xTextCursor);
+    return xPropSet == null ? null : (Locale) xPropSet.getPropertyValue("CharLocale");
+  }
+
+  /**
+   * get all paragraphs from Text of a shape by walking a text cursor over the paragraphs
+   */
+  private static int getAllParagraphsByCursor(int nPara, List<String> paragraphs, 
+      List<Locale> locales, XText xText, String sText) throws Throwable {
+    XTextCursor xTextCursor = xText.createTextCursor();
+    xTextCursor.gotoStart(false);
+    int kStart = 0;
+    int k;
+    for (k = 0; k < sText.length(); k++) {
+      if (sText.charAt(k) == OfficeTools.SINGLE_END_OF_PARAGRAPH.charAt(0)) {
         paragraphs.add(sText.substring(kStart, k));
         nPara++;
-        xTextCursor.goRight((short)(k - kStart), true);
+        goRight(xTextCursor, k - kStart, true);
         XPropertySet xParaPropSet = UnoRuntime.queryInterface(XPropertySet.class, xTextCursor);
         locales.add((Locale) xParaPropSet.getPropertyValue("CharLocale"));
+        xTextCursor.goRight((short)1, false);
+        kStart = k + 1;
       }
     }
+    if (k > kStart) {
+      paragraphs.add(sText.substring(kStart, k));
+      nPara++;
+      goRight(xTextCursor, k - kStart, true);
+      XPropertySet xParaPropSet = UnoRuntime.queryInterface(XPropertySet.class, xTextCursor);
+      locales.add((Locale) xParaPropSet.getPropertyValue("CharLocale"));
+    }
     return nPara;
   }
 
+  /**
+   * move the text cursor by a number of characters (also more than Short.MAX_VALUE)
+   */
+  private static void goRight(XTextCursor xTextCursor, int nChars, boolean expand) {
+    while (nChars > Short.MAX_VALUE) {
+      xTextCursor.goRight(Short.MAX_VALUE, expand);
+      nChars -= Short.MAX_VALUE;
+    }
+    xTextCursor.goRight((short) nChars, expand);
+  }
+
   /**
    * get all paragraphs of a impress document
    */
   public static ParagraphContainer getAllParagraphs(XComponent xComponent) {
+    return getAllParagraphs(xComponent, null);
+  }
+
+  /**
+   * get all paragraphs of a impress document
+   * the paragraphs of shapes with unchanged text are taken from lastContainer (if not null), the locales are read again
+   */
+  public static ParagraphContainer getAllParagraphs(XComponent xComponent, ParagraphContainer lastContainer) {
     List<String> paragraphs = new ArrayList<>();
     List<Locale> locales = new ArrayList<>();
     List<Integer> pageBegins = new ArrayList<>();
+    List<Integer> blockBegins = new ArrayList<>();
+    List<Long> blockFingerprints = new ArrayList<>();
     int nPara = 0;
+    int nReused = 0;
     try {
       int pageCount = OfficeDrawTools.getDrawPageCount(xComponent);
       for (int i = 0; i < pageCount; i++) {
@@ -229,7 +348,26 @@ public class OfficeDrawTools {
             XShape xShape = UnoRuntime.queryInterface(XShape.class, oShape);
             if (xShape != null) {
               XText xText = UnoRuntime.queryInterface(XText.class, xShape);
-              nPara = getAllParagraphsFromText(nPara, paragraphs, locales, xText);
+              String sText = xText == null ? "" : xText.getString();
+              long fingerprint = ParagraphContainer.getFingerprint(sText.hashCode(), sText.length());
+              blockBegins.add(nPara);
+              blockFingerprints.add(fingerprint);
+              int nBlock = lastContainer == null ? -1 : lastContainer.takeBlock(fingerprint, sText);
+              int kStart = nBlock < 0 ? 0 : lastContainer.blockBegins.get(nBlock);
+              int kEnd = nBlock < 0 ? 0 : lastContainer.getBlockEnd(nBlock);
+              //  the language may be changed without a change of the text: the locale is read again
+              //  a text with more than one language is read again paragraph by paragraph
+              Locale textLocale = kEnd > kStart && xText != null ? getLocaleOfText(xText) : null;
+              if (nBlock >= 0 && (kEnd == kStart || textLocale != null)) {
+                for (int k = kStart; k < kEnd; k++) {
+                  paragraphs.add(lastContainer.paragraphs.get(k));
+                  locales.add(textLocale);
+                  nPara++;
+                }
+                nReused++;
+              } else {
+                nPara = getAllParagraphsFromText(nPara, paragraphs, locales, xText, sText);
+              }
             } else {
               MessageHandler.printToLogFile("OfficeDrawTools: getAllParagraphs: xShape " + j + " is null");
             }
@@ -238,8 +376,13 @@ public class OfficeDrawTools {
       }
     } catch (Throwable t) {
       MessageHandler.showError(t);
+      //  the last block may be incomplete
+      return new ParagraphContainer(paragraphs, locales, pageBegins);
+    }
+    if (lastContainer != null) {
+      OfficeMetrics.add("impress.reusedShapes", nReused);
     }
-    return new ParagraphContainer(paragraphs, locales, pageBegins);
+    return new ParagraphContainer(paragraphs, locales, pageBegins, blockBegins, blockFingerprints);
   }
 
   /**
@@ -761,11 +904,95 @@ public class OfficeDrawTools {
     public List<String> paragraphs;
     public List<Locale> locales;
     public List<Integer> pageBegins;
+    public List<Integer> blockBegins;         //  first paragraph of every shape (impress) or sheet (calc)
+    public List<Long> blockFingerprints;      //  fingerprint of the text of every shape or sheet
+    private final boolean isComplete;          //  false: the extraction was interrupted, the blocks are unknown
+    private Map<Long, Deque<Integer>> unusedBlocks = null;
     
+    /**
+     * container of an incomplete extraction (without fingerprints)
+     */
     ParagraphContainer(List<String> paragraphs, List<Locale> locales, List<Integer> pageBegins) {
+      this(paragraphs, locales, pageBegins, new ArrayList<>(), new ArrayList<>(), false);
+    }
+    
+    ParagraphContainer(List<String> paragraphs, List<Locale> locales, List<Integer> pageBegins,
+        List<Integer> blockBegins, List<Long> blockFingerprints) {
+      this(paragraphs, locales, pageBegins, blockBegins, blockFingerprints, true);
+    }
+    
+    private ParagraphContainer(List<String> paragraphs, List<Locale> locales, List<Integer> pageBegins,
+        List<Integer> blockBegins, List<Long> blockFingerprints, boolean isComplete) {
       this.paragraphs = paragraphs;
       this.locales = locales;
       this.pageBegins = pageBegins;
+      this.blockBegins = blockBegins;
+      this.blockFingerprints = blockFingerprints;
+      this.isComplete = isComplete;
+    }
+
+    /**
+     * true if there is a fingerprint for every block and the blocks cover all paragraphs
+     */
+    boolean hasFingerprints() {
+      if (!isComplete || blockBegins.size() != blockFingerprints.size()) {
+        return false;
+      }
+      if (blockBegins.isEmpty()) {
+        return paragraphs.isEmpty();
+      }
+      return blockBegins.get(0) == 0 && blockBegins.get(blockBegins.size() - 1) <= paragraphs.size();
+    }
+
+    /**
+     * fingerprint of the text of a shape or sheet: hash code and length of the text
+     */
+    static long getFingerprint(int hashCode, int length) {
+      return ((long) hashCode << 32) | (length & 0xFFFFFFFFL);
+    }
+
+    /**
+     * end of the paragraphs of a block (excluded)
+     */
+    int getBlockEnd(int nBlock) {
+      return nBlock < blockBegins.size() - 1 ? blockBegins.get(nBlock + 1) : paragraphs.size();
+    }
+
+    /**
+     * get the first block with the fingerprint and the text which was not taken before; -1 if there is none
+     * the text is compared, since different texts may have the same fingerprint
+     */
+    int takeBlock(long fingerprint, String text) {
+      if (unusedBlocks == null) {
+        unusedBlocks = new HashMap<>();
+        for (int i = 0; i < blockFingerprints.size(); i++) {
+          unusedBlocks.computeIfAbsent(blockFingerprints.get(i), k -> new ArrayDeque<>()).add(i);
+        }
+      }
+      Deque<Integer> blocks = unusedBlocks.get(fingerprint);
+      if (blocks == null) {
+        return -1;
+      }
+      for (Iterator<Integer> i = blocks.iterator(); i.hasNext();) {
+        int nBlock = i.next();
+        if (hasText(nBlock, text)) {
+          i.remove();
+          return nBlock;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * true if the paragraphs of a block are the paragraphs of the text
+     * an empty last paragraph of the text is not added to the paragraphs (see addParagraphsByEnumeration)
+     */
+    private boolean hasText(int nBlock, String text) {
+      if (text.endsWith(OfficeTools.SINGLE_END_OF_PARAGRAPH)) {
+        text = text.substring(0, text.length() - OfficeTools.SINGLE_END_OF_PARAGRAPH.length());
+      }
+      return String.join(OfficeTools.SINGLE_END_OF_PARAGRAPH, 
+          paragraphs.subList(blockBegins.get(nBlock), getBlockEnd(nBlock))).equals(text);
     }
   }
 
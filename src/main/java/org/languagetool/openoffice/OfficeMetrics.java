@@ -0,0 +1,404 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Lightweight registry of metrics for the office extension
+ * Counters, gauges and histograms (HDR-style: logarithmic buckets with linear sub-buckets)
+ * The metrics are exposed by JMX and dumped periodically to the log file
+ * if time measurement is activated (debug mode "tm", interval by "mt:minutes")
+ * @since 6.5
+ * @author Fred Kruse
+ */
+public class OfficeMetrics {
+
+  public static final String PROOFREADING = "proofreading.time";                          //  doProofreading
+  public static final String REQUEST_ANALYSIS = "proofreading.requestAnalysis.time";
+  public static final String SINGLE_CHECK = "proofreading.singleCheck.time";
+  public static final String ADD_SYNONYMS = "proofreading.addSynonyms.time";
+  public static final String INIT_LANGUAGE_TOOL = "init.languageTool.time";
+  public static final String INIT_CHECK = "init.check.time";
+  public static final String INIT_DOCUMENTS = "init.documents.time";
+  public static final String DOCUMENT_CACHE_REFRESH = "documentCache.refresh.time";
+  //  calls of the methods of the tools classes from outside (one call may contain several UNO calls)
+  public static final String TOOLS_FLAT_PARAGRAPH = "tools.flatParagraph.calls";
+  public static final String TOOLS_DOCUMENT_CURSOR = "tools.documentCursor.calls";
+  public static final String TOOLS_VIEW_CURSOR = "tools.viewCursor.calls";
+
+  private static final String HIT = ".hit";
+  private static final String MISS = ".miss";
+  private static final String OBJECT_NAME = "org.languagetool.openoffice:type=Metrics";
+
+  private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+  private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+  private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+  private static ScheduledExecutorService dumpExecutor = null;
+  private static boolean isRegistered = false;
+
+  static {
+    Runtime runtime = Runtime.getRuntime();
+    setGauge("heap.used.mb", () -> (runtime.totalMemory() - runtime.freeMemory()) / 1048576);
+    setGauge("heap.max.mb", () -> runtime.maxMemory() / 1048576);
+    setGauge("cpu.cores", () -> runtime.availableProcessors());
+  }
+
+  private OfficeMetrics() {
+  }
+
+  /**
+   * add one to a counter
+   */
+  public static void increment(String name) {
+    add(name, 1);
+  }
+
+  /**
+   * add a value to a counter
+   */
+  public static void add(String name, long value) {
+    counters.computeIfAbsent(name, k -> new LongAdder()).add(value);
+  }
+
+  /**
+   * count a hit or a miss of a cache
+   */
+  public static void countCacheAccess(String cacheName, boolean isHit) {
+    increment(cacheName + (isHit ? HIT : MISS));
+  }
+
+  /**
+   * set a gauge (the supplier is called when the value is requested)
+   */
+  public static void setGauge(String name, LongSupplier supplier) {
+    gauges.put(name, supplier);
+  }
+
+  /**
+   * record a value (e.g. a time in microseconds) to a histogram
+   */
+  public static void record(String name, long value) {
+    histograms.computeIfAbsent(name, k -> new Histogram()).record(value);
+  }
+
+  /**
+   * start time for recordTime
+   */
+  public static long startTime() {
+    return System.nanoTime();
+  }
+
+  /**
+   * record the time since startTime (in microseconds); returns the time in milliseconds
+   */
+  public static long recordTime(String name, long startTime) {
+    long micros = (System.nanoTime() - startTime) / 1000;
+    record(name, micros);
+    return micros / 1000;
+  }
+
+  /**
+   * record the time since startTime
+   * in time measurement debug mode print the message to log file if the time exceeds the tolerance
+   */
+  public static void recordTime(String name, long startTime, String logMessage) {
+    long runTime = recordTime(name, startTime);
+    if (OfficeTools.DEBUG_MODE_TM && runTime > OfficeTools.TIME_TOLERANCE) {
+      MessageHandler.printToLogFile(logMessage + runTime);
+    }
+  }
+
+  /**
+   * reset all counters and histograms (gauges are kept)
+   */
+  public static void reset() {
+    counters.clear();
+    histograms.clear();
+  }
+
+  /**
+   * register the metrics at the platform MBean server
+   * and start the periodic dump to log file if time measurement is activated
+   */
+  public static synchronized void startMonitoring() {
+    if (!isRegistered) {
+      isRegistered = true;
+      try {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(objectName)) {
+          server.registerMBean(new MetricsMBean(), objectName);
+        }
+      } catch (Throwable t) {
+        MessageHandler.printException(t);
+      }
+    }
+    if (dumpExecutor == null && OfficeTools.DEBUG_MODE_TM && OfficeTools.METRICS_DUMP_INTERVAL > 0) {
+      dumpExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "LtMetricsDump");
+        thread.setDaemon(true);
+        return thread;
+      });
+      dumpExecutor.scheduleAtFixedRate(() -> MessageHandler.printToLogFile(getSummary()),
+          OfficeTools.METRICS_DUMP_INTERVAL, OfficeTools.METRICS_DUMP_INTERVAL, TimeUnit.MINUTES);
+    }
+  }
+
+  /**
+   * stop the periodic dump (the last summary is written to log file)
+   */
+  public static synchronized void stopMonitoring() {
+    if (dumpExecutor != null) {
+      dumpExecutor.shutdownNow();
+      dumpExecutor = null;
+      MessageHandler.printToLogFile(getSummary());
+    }
+  }
+
+  /**
+   * get all values as map: name -> value
+   * histograms are given by count, mean, percentiles and maximum
+   */
+  public static Map<String, Long> getValues() {
+    Map<String, Long> values = new TreeMap<>();
+    for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+      values.put(counter.getKey(), counter.getValue().sum());
+    }
+    for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+      values.put(gauge.getKey(), gauge.getValue().getAsLong());
+    }
+    for (Map.Entry<String, Histogram> histogram : histograms.entrySet()) {
+      Histogram h = histogram.getValue();
+      String name = histogram.getKey();
+      values.put(name + ".count", h.getCount());
+      values.put(name + ".mean", h.getMean());
+      values.put(name + ".p50", h.getPercentile(50));
+      values.put(name + ".p90", h.getPercentile(90));
+      values.put(name + ".p99", h.getPercentile(99));
+      values.put(name + ".max", h.getMax());
+    }
+    return values;
+  }
+
+  /**
+   * get a summary of all metrics (times in microseconds)
+   */
+  public static String getSummary() {
+    StringBuilder sb = new StringBuilder("LanguageTool metrics (times in microseconds):");
+    List<String> names = new ArrayList<>(counters.keySet());
+    Collections.sort(names);
+    for (String name : names) {
+      sb.append(OfficeTools.LOG_LINE_BREAK).append("  ").append(name).append(" = ").append(counters.get(name).sum());
+      if (name.endsWith(HIT)) {
+        String cacheName = name.substring(0, name.length() - HIT.length());
+        long hits = counters.get(name).sum();
+        LongAdder misses = counters.get(cacheName + MISS);
+        long all = hits + (misses == null ? 0 : misses.sum());
+        if (all > 0) {
+          sb.append(OfficeTools.LOG_LINE_BREAK).append("  ").append(cacheName).append(".hitRate = ")
+            .append(String.format("%.1f%%", 100. * hits / all));
+        }
+      }
+    }
+    names = new ArrayList<>(gauges.keySet());
+    Collections.sort(names);
+    for (String name : names) {
+      sb.append(OfficeTools.LOG_LINE_BREAK).append("  ").append(name).append(" = ").append(gauges.get(name).getAsLong());
+    }
+    names = new ArrayList<>(histograms.keySet());
+    Collections.sort(names);
+    for (String name : names) {
+      Histogram h = histograms.get(name);
+      sb.append(OfficeTools.LOG_LINE_BREAK).append("  ").append(name).append(": count = ").append(h.getCount())
+        .append(", mean = ").append(h.getMean()).append(", p50 = ").append(h.getPercentile(50))
+        .append(", p90 = ").append(h.getPercentile(90)).append(", p99 = ").append(h.getPercentile(99))
+        .append(", max = ").append(h.getMax());
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Histogram with a fixed relative precision (about 3 percent)
+   * Values below SUB_COUNT are stored exactly; every higher power of two is divided into SUB_COUNT / 2 buckets
+   * Recording is lock free
+   */
+  static class Histogram {
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_SUB_COUNT = SUB_COUNT / 2;
+    private static final int NUM_BUCKETS = SUB_COUNT + (64 - SUB_BITS) * HALF_SUB_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long value) {
+      if (value < 0) {
+        value = 0;
+      }
+      buckets.incrementAndGet(getIndex(value));
+      count.increment();
+      sum.add(value);
+      max.accumulateAndGet(value, Math::max);
+    }
+
+    static int getIndex(long value) {
+      if (value < SUB_COUNT) {
+        return (int) value;
+      }
+      int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS + 1;
+      return SUB_COUNT + (shift - 1) * HALF_SUB_COUNT + (int) (value >> shift) - HALF_SUB_COUNT;
+    }
+
+    /**
+     * highest value which is stored in a bucket
+     */
+    static long getHighestValue(int index) {
+      if (index < SUB_COUNT) {
+        return index;
+      }
+      int k = index - SUB_COUNT;
+      int shift = k / HALF_SUB_COUNT + 1;
+      long sub = k % HALF_SUB_COUNT + HALF_SUB_COUNT;
+      return ((sub + 1) << shift) - 1;
+    }
+
+    long getCount() {
+      return count.sum();
+    }
+
+    long getMean() {
+      long n = count.sum();
+      return n == 0 ? 0 : sum.sum() / n;
+    }
+
+    long getMax() {
+      return max.get();
+    }
+
+    /**
+     * get the value below which percentile percent of all values lie
+     */
+    long getPercentile(double percentile) {
+      long n = count.sum();
+      if (n == 0) {
+        return 0;
+      }
+      long limit = Math.max(1, (long) Math.ceil(percentile / 100. * n));
+      long cumulated = 0;
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+        cumulated += buckets.get(i);
+        if (cumulated >= limit) {
+          return Math.min(getHighestValue(i), max.get());
+        }
+      }
+      return max.get();
+    }
+  }
+
+  /**
+   * Dynamic MBean: every metric value is an attribute
+   */
+  private static class MetricsMBean implements DynamicMBean {
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+      Long value = getValues().get(attribute);
+      if (value == null) {
+        throw new AttributeNotFoundException(attribute);
+      }
+      return value;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+      throw new AttributeNotFoundException("Metrics are read only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+      Map<String, Long> values = getValues();
+      AttributeList list = new AttributeList();
+      for (String attribute : attributes) {
+        if (values.containsKey(attribute)) {
+          list.add(new Attribute(attribute, values.get(attribute)));
+        }
+      }
+      return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+      return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+      if ("reset".equals(actionName)) {
+        reset();
+        return null;
+      } else if ("getSummary".equals(actionName)) {
+        return getSummary();
+      }
+      throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+      List<MBeanAttributeInfo> attributes = new ArrayList<>();
+      for (String name : getValues().keySet()) {
+        attributes.add(new MBeanAttributeInfo(name, Long.class.getName(), name, true, false, false));
+      }
+      MBeanOperationInfo[] operations = {
+          new MBeanOperationInfo("reset", "Reset all counters and histograms", null, "void", MBeanOperationInfo.ACTION),
+          new MBeanOperationInfo("getSummary", "Summary of all metrics", null, String.class.getName(), MBeanOperationInfo.INFO)
+      };
+      return new MBeanInfo(OfficeMetrics.class.getName(), "LanguageTool office extension metrics",
+          attributes.toArray(new MBeanAttributeInfo[0]), null, operations, null);
+    }
+  }
+
+}
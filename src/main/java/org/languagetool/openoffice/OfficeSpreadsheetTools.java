@@ -123,6 +123,8 @@ public class OfficeSpreadsheetTools {
     List<String> paragraphs = new ArrayList<String>();
     List<Locale> locales = new ArrayList<Locale>();
     List<Integer> pageBegins = new ArrayList<Integer>();
+    List<Integer> blockBegins = new ArrayList<Integer>();
+    List<Long> blockFingerprints = new ArrayList<Long>();
     if (xComponent == null) {
       MessageHandler.printToLogFile("OfficeSpreadsheetTools: OfficeSpreadsheetTools: xComponent == null");
       return new ParagraphContainer(paragraphs, locales, pageBegins);
@@ -153,6 +155,9 @@ public class OfficeSpreadsheetTools {
           return new ParagraphContainer(paragraphs, locales, pageBegins);
         }
         boolean isEmptyText = false;
+        int hashCode = 0;
+        int length = 0;
+        blockBegins.add(nPara);
         int maxRows = getFilledRowCount(xSheet, MAX_TABLE_COLS);
         int maxCols = getFilledColumnCount(xSheet, maxRows);
         for (int nCol = 0; nCol < maxCols; nCol++) {
@@ -176,11 +181,14 @@ public class OfficeSpreadsheetTools {
             }
             paragraphs.add(text);
             locales.add(locale);
+            hashCode = 31 * hashCode + text.hashCode();
+            length += text.length() + 1;
             nPara++;
           }
         }
+        blockFingerprints.add(ParagraphContainer.getFingerprint(hashCode, length));
       }
-      return new ParagraphContainer(paragraphs, locales, pageBegins);
+      return new ParagraphContainer(paragraphs, locales, pageBegins, blockBegins, blockFingerprints);
     } catch (Throwable t) {
       MessageHandler.printException(t);     // all Exceptions XWordCursorthrown by UnoRuntime.queryInterface are caught
     }
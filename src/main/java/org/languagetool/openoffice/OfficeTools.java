@@ -119,6 +119,8 @@ public class OfficeTools {
   public static final int CHECK_SHAPES_TIME = 1000;       //  time interval to run check for changes in text inside of shapes
   public static final int SPELL_CHECK_MIN_HEAP = 850;     //  Minimal heap space to run LT spell check
   public static int TIME_TOLERANCE = 100;                 //  Minimal milliseconds to show message in TM debug mode
+  public static int METRICS_DUMP_INTERVAL = 10;           //  Minutes between two dumps of the metrics to log file in TM debug mode
+  public static int REMOTE_COALESCING_WINDOW = 20;        //  Milliseconds to collect paragraphs for one request to a remote server (0 = off)
   
   public static int DEBUG_MODE_SD = 0;            //  Set Debug Mode for SingleDocument
   public static int DEBUG_MODE_SC = 0;            //  Set Debug Mode for SingleCheck
@@ -861,6 +863,22 @@ public class OfficeTools {
               }
             }
           }
+        } else if (level.startsWith("mt:")) {
+          String[] levelMt = level.split(":");
+          if (levelMt.length == 2) {
+            int interval = Integer.parseInt(levelMt[1]);
+            if (interval >= 0) {
+              METRICS_DUMP_INTERVAL = interval;
+            }
+          }
+        } else if (level.startsWith("rc:")) {
+          String[] levelRc = level.split(":");
+          if (levelRc.length == 2) {
+            int window = Integer.parseInt(levelRc[1]);
+            if (window >= 0) {
+              REMOTE_COALESCING_WINDOW = window;
+            }
+          }
         } else if (level.equals("st")) {
           DEVELOP_MODE_ST = true;
         } else if (level.equals("dev")) {
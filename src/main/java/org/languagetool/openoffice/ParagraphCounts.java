@@ -0,0 +1,116 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+/**
+ * Counts of paragraphs (e.g. number of words) stored in a Fenwick tree (binary indexed tree)
+ * the sum of a range of paragraphs and the change of the count of a paragraph need O(log n)
+ * (used for the lengths of the paragraphs in the document cache and the counts of the style statistic)
+ * @since 6.5
+ * @author Fred Kruse
+ */
+public class ParagraphCounts {
+
+  private final int[] counts;
+  private final long[] tree;
+
+  /**
+   * create the tree from the counts of all paragraphs in O(n)
+   */
+  public ParagraphCounts(int[] counts) {
+    this.counts = counts.clone();
+    tree = new long[counts.length + 1];
+    for (int i = 1; i <= counts.length; i++) {
+      tree[i] += counts[i - 1];
+      int parent = i + (i & -i);
+      if (parent <= counts.length) {
+        tree[parent] += tree[i];
+      }
+    }
+  }
+
+  /**
+   * number of paragraphs
+   */
+  public int size() {
+    return counts.length;
+  }
+
+  /**
+   * count of a paragraph
+   */
+  int get(int nPara) {
+    return counts[nPara];
+  }
+
+  /**
+   * set the count of a paragraph
+   */
+  public void set(int nPara, int count) {
+    long delta = (long) count - counts[nPara];
+    counts[nPara] = count;
+    for (int i = nPara + 1; i < tree.length; i += i & -i) {
+      tree[i] += delta;
+    }
+  }
+
+  /**
+   * replace the counts of the paragraphs from (inclusive) to oldTo (exclusive) by new counts
+   * if the number of paragraphs is not changed the tree is updated in O(k log n), else a new tree is built in O(n)
+   * returns the updated counts
+   */
+  ParagraphCounts replace(int from, int oldTo, int[] newCounts) {
+    if (oldTo - from == newCounts.length) {
+      for (int i = 0; i < newCounts.length; i++) {
+        set(from + i, newCounts[i]);
+      }
+      return this;
+    }
+    int[] allCounts = new int[counts.length - (oldTo - from) + newCounts.length];
+    System.arraycopy(counts, 0, allCounts, 0, from);
+    System.arraycopy(newCounts, 0, allCounts, from, newCounts.length);
+    System.arraycopy(counts, oldTo, allCounts, from + newCounts.length, counts.length - oldTo);
+    return new ParagraphCounts(allCounts);
+  }
+
+  /**
+   * sum of the counts of the paragraphs from (inclusive) to (exclusive)
+   * the range is limited to the existing paragraphs
+   */
+  public long sum(int from, int to) {
+    from = Math.max(0, from);
+    to = Math.min(to, counts.length);
+    if (from >= to) {
+      return 0;
+    }
+    return prefixSum(to) - prefixSum(from);
+  }
+
+  /**
+   * sum of the counts of the first n paragraphs
+   */
+  private long prefixSum(int n) {
+    long sum = 0;
+    for (int i = n; i > 0; i -= i & -i) {
+      sum += tree[i];
+    }
+    return sum;
+  }
+
+}
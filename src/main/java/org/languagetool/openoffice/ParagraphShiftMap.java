@@ -0,0 +1,405 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Map of entries with the number of a paragraph as key
+ * The entries are stored in a treap (randomized search tree) with lazy key offsets,
+ * so that the keys of all entries behind a changed range of paragraphs are shifted in O(log n)
+ * Every node holds the number of entries of its subtree, so that gaps in the keys are found in O(log n)
+ * The shifting logic is shared by the result caches and the ignored matches
+ * Note: the class is not thread safe; synchronization has to be done by the user
+ * @since 6.5
+ * @author Fred Kruse
+ */
+public class ParagraphShiftMap<V> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+  private static final Random random = new Random();
+
+  private Node<V> root = null;
+  private int size = 0;
+
+  public ParagraphShiftMap() {
+  }
+
+  /**
+   * copy of a map (the values are not copied)
+   */
+  public ParagraphShiftMap(ParagraphShiftMap<V> map) {
+    if (map != null) {
+      root = copy(map.root, 0);
+      size = map.size;
+    }
+  }
+
+  private static <V> Node<V> copy(Node<V> node, int offset) {
+    if (node == null) {
+      return null;
+    }
+    offset += node.lazy;
+    Node<V> newNode = new Node<>(node.key + offset, node.value, node.priority);
+    newNode.left = copy(node.left, offset);
+    newNode.right = copy(node.right, offset);
+    newNode.count = node.count;
+    return newNode;
+  }
+
+  /**
+   * number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * true if the map has no entries
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * remove all entries
+   */
+  public void clear() {
+    root = null;
+    size = 0;
+  }
+
+  /**
+   * get the node of a key (doesn't change the tree: can be used by parallel readers)
+   */
+  private Node<V> getNode(int key) {
+    Node<V> node = root;
+    int offset = 0;
+    while (node != null) {
+      offset += node.lazy;
+      int nodeKey = node.key + offset;
+      if (key == nodeKey) {
+        return node;
+      }
+      node = key < nodeKey ? node.left : node.right;
+    }
+    return null;
+  }
+
+  /**
+   * get the value of a paragraph (null if there is no entry)
+   */
+  public V get(int key) {
+    Node<V> node = getNode(key);
+    return node == null ? null : node.value;
+  }
+
+  /**
+   * true if there is an entry for the paragraph
+   */
+  public boolean containsKey(int key) {
+    return getNode(key) != null;
+  }
+
+  /**
+   * add or replace the entry of a paragraph
+   */
+  public void put(int key, V value) {
+    Node<V> node = getNode(key);
+    if (node != null) {
+      node.value = value;
+      return;
+    }
+    List<Node<V>> parts = split(root, key);
+    root = merge(merge(parts.get(0), new Node<>(key, value, random.nextInt())), parts.get(1));
+    size++;
+  }
+
+  /**
+   * remove the entry of a paragraph; returns the removed value (null if there was no entry)
+   */
+  public V remove(int key) {
+    Node<V> node = getNode(key);
+    if (node == null) {
+      return null;
+    }
+    removeRange(key, key + 1);
+    return node.value;
+  }
+
+  /**
+   * remove all entries from firstParagraph (included) to lastParagraph (excluded)
+   */
+  public void removeRange(int firstParagraph, int lastParagraph) {
+    removeAndShift(firstParagraph, lastParagraph, 0);
+  }
+
+  /**
+   * Remove all entries between fromParagraph (included) and toParagraph (excluded)
+   * and shift all following entries by the difference of the sizes of the document
+   * fromParagraph and toParagraph are defined as by DocumentCache.ChangedRange
+   * Note: if the number of paragraphs is reduced, toParagraph is related to the new size
+   */
+  public void removeAndShift(int fromParagraph, int toParagraph, int oldSize, int newSize) {
+    if (fromParagraph < 0 && toParagraph >= newSize) {
+      return;
+    }
+    int shift = newSize - oldSize;
+    removeAndShift(fromParagraph, shift < 0 ? toParagraph - shift : toParagraph, shift);
+  }
+
+  /**
+   * Remove all entries from firstParagraph (included) to lastParagraph (excluded)
+   * and add shift to the keys of all entries behind
+   */
+  private void removeAndShift(int firstParagraph, int lastParagraph, int shift) {
+    if (lastParagraph + shift < firstParagraph) {
+      //  prevent shifted entries from overlapping the entries before
+      lastParagraph = firstParagraph - shift;
+    }
+    List<Node<V>> parts = split(root, firstParagraph);
+    Node<V> before = parts.get(0);
+    parts = split(parts.get(1), lastParagraph);
+    Node<V> after = parts.get(1);
+    size -= count(parts.get(0));
+    if (after != null) {
+      after.lazy += shift;
+    }
+    root = merge(before, after);
+  }
+
+  /**
+   * get all keys sorted ascending
+   */
+  public List<Integer> keys() {
+    List<Integer> keys = new ArrayList<>(size);
+    addKeys(root, 0, keys);
+    return keys;
+  }
+
+  private static <V> void addKeys(Node<V> node, int offset, List<Integer> keys) {
+    if (node != null) {
+      offset += node.lazy;
+      addKeys(node.left, offset, keys);
+      keys.add(node.key + offset);
+      addKeys(node.right, offset, keys);
+    }
+  }
+
+  /**
+   * get all values sorted by key
+   */
+  public List<V> values() {
+    List<V> values = new ArrayList<>(size);
+    addValues(root, values);
+    return values;
+  }
+
+  private static <V> void addValues(Node<V> node, List<V> values) {
+    if (node != null) {
+      addValues(node.left, values);
+      values.add(node.value);
+      addValues(node.right, values);
+    }
+  }
+
+  /**
+   * get the smallest key greater than or equal to key; returns -1 if there is none
+   */
+  public int ceilingKey(int key) {
+    Node<V> node = root;
+    int offset = 0;
+    int result = -1;
+    while (node != null) {
+      offset += node.lazy;
+      int nodeKey = node.key + offset;
+      if (nodeKey == key) {
+        return key;
+      } else if (nodeKey > key) {
+        result = nodeKey;
+        node = node.left;
+      } else {
+        node = node.right;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * get the greatest key less than or equal to key; returns -1 if there is none
+   */
+  public int floorKey(int key) {
+    Node<V> node = root;
+    int offset = 0;
+    int result = -1;
+    while (node != null) {
+      offset += node.lazy;
+      int nodeKey = node.key + offset;
+      if (nodeKey == key) {
+        return key;
+      } else if (nodeKey < key) {
+        result = nodeKey;
+        node = node.right;
+      } else {
+        node = node.left;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * get the smallest key greater than or equal to key which has no entry
+   */
+  public int nextMissingKey(int key) {
+    //  the keys are different integers: key(i) - i is not decreasing with the sorted index i
+    //  the first index i >= rank(key) with key(i) - i > key - rank(key) marks the first gap
+    int rank = rank(key);
+    int limit = key - rank;
+    Node<V> node = root;
+    int offset = 0;
+    int before = 0;
+    int first = size;
+    while (node != null) {
+      offset += node.lazy;
+      int i = before + count(node.left);
+      if (node.key + offset - i > limit) {
+        first = i;
+        node = node.left;
+      } else {
+        before = i + 1;
+        node = node.right;
+      }
+    }
+    return key + first - rank;
+  }
+
+  /**
+   * number of keys less than key
+   */
+  private int rank(int key) {
+    Node<V> node = root;
+    int offset = 0;
+    int rank = 0;
+    while (node != null) {
+      offset += node.lazy;
+      if (node.key + offset < key) {
+        rank += count(node.left) + 1;
+        node = node.right;
+      } else {
+        node = node.left;
+      }
+    }
+    return rank;
+  }
+
+  private static <V> int count(Node<V> node) {
+    return node == null ? 0 : node.count;
+  }
+
+  private static <V> void update(Node<V> node) {
+    node.count = 1 + count(node.left) + count(node.right);
+  }
+
+  /**
+   * move the lazy offset of a node to its key and its children
+   */
+  private static <V> void push(Node<V> node) {
+    if (node.lazy != 0) {
+      node.key += node.lazy;
+      if (node.left != null) {
+        node.left.lazy += node.lazy;
+      }
+      if (node.right != null) {
+        node.right.lazy += node.lazy;
+      }
+      node.lazy = 0;
+    }
+  }
+
+  /**
+   * split a tree into a tree with all keys < key and a tree with all keys >= key
+   */
+  private static <V> List<Node<V>> split(Node<V> node, int key) {
+    List<Node<V>> parts = new ArrayList<>(2);
+    if (node == null) {
+      parts.add(null);
+      parts.add(null);
+      return parts;
+    }
+    push(node);
+    if (node.key < key) {
+      List<Node<V>> rightParts = split(node.right, key);
+      node.right = rightParts.get(0);
+      update(node);
+      parts.add(node);
+      parts.add(rightParts.get(1));
+    } else {
+      List<Node<V>> leftParts = split(node.left, key);
+      node.left = leftParts.get(1);
+      update(node);
+      parts.add(leftParts.get(0));
+      parts.add(node);
+    }
+    return parts;
+  }
+
+  /**
+   * merge two trees (all keys of the first tree are less than the keys of the second)
+   */
+  private static <V> Node<V> merge(Node<V> first, Node<V> second) {
+    if (first == null) {
+      return second;
+    }
+    if (second == null) {
+      return first;
+    }
+    if (first.priority > second.priority) {
+      push(first);
+      first.right = merge(first.right, second);
+      update(first);
+      return first;
+    } else {
+      push(second);
+      second.left = merge(first, second.left);
+      update(second);
+      return second;
+    }
+  }
+
+  private static class Node<V> implements Serializable {
+    private static final long serialVersionUID = 2L;
+    int key;
+    int lazy = 0;
+    int count = 1;                //  number of nodes of the subtree
+    final int priority;
+    V value;
+    Node<V> left = null;
+    Node<V> right = null;
+
+    Node(int key, V value, int priority) {
+      this.key = key;
+      this.value = value;
+      this.priority = priority;
+    }
+  }
+
+}
@@ -0,0 +1,226 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.languagetool.openoffice.RemoteResultCache.RemoteMatches;
+import org.languagetool.remote.CheckConfiguration;
+import org.languagetool.remote.RemoteLanguageTool;
+import org.languagetool.remote.RemoteRuleMatch;
+
+/**
+ * Coalescing of the checks of single paragraphs by a remote LT server
+ * The first check of a configuration waits OfficeTools.REMOTE_COALESCING_WINDOW milliseconds for further checks,
+ * all collected paragraphs are sent in one request (separated by paragraph ends) and the matches are split back
+ * Only checks which are independent from the neighbor paragraphs (no text level rules) should be coalesced
+ * @since 6.5
+ * @author Fred Kruse
+ */
+class RemoteCheckCoalescer {
+
+  private final RemoteLanguageTool remoteLanguageTool;
+  private final int maxTextLength;
+  private final Map<String, Batch> pendingBatches = new HashMap<>();
+
+  RemoteCheckCoalescer(RemoteLanguageTool remoteLanguageTool, int maxTextLength) {
+    this.remoteLanguageTool = remoteLanguageTool;
+    this.maxTextLength = maxTextLength;
+  }
+
+  /**
+   * check a paragraph (the text must not contain a paragraph end)
+   * the offset of the returned matches is negative if the paragraph was checked together with others
+   * returns null if the check failed
+   * throws InterruptedIOException if the thread was interrupted while waiting for the result
+   * (the check of the other paragraphs of the batch isn't affected)
+   */
+  RemoteMatches check(String text, String configKey, CheckConfiguration remoteConfig) throws InterruptedIOException {
+    Batch batch;
+    int nRequest;
+    boolean isLeader = false;
+    synchronized (pendingBatches) {
+      batch = pendingBatches.get(configKey);
+      if (batch != null && !batch.add(text, maxTextLength)) {
+        //  batch is full: send it now and start a new one
+        pendingBatches.remove(configKey);
+        batch.close();
+        batch = null;
+      }
+      if (batch == null) {
+        batch = new Batch(remoteConfig);
+        batch.add(text, maxTextLength);
+        pendingBatches.put(configKey, batch);
+        isLeader = true;
+      }
+      nRequest = batch.size() - 1;
+    }
+    if (isLeader) {
+      batch.waitForRequests(OfficeTools.REMOTE_COALESCING_WINDOW);
+      synchronized (pendingBatches) {
+        if (pendingBatches.get(configKey) == batch) {
+          pendingBatches.remove(configKey);
+        }
+      }
+      sendBatch(batch);
+    }
+    List<RemoteRuleMatch> matches;
+    try {
+      matches = batch.getResult(nRequest);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Coalesced remote check interrupted");
+    }
+    return matches == null ? null : new RemoteMatches(matches, -batch.getStart(nRequest));
+  }
+
+  /**
+   * send all paragraphs of a batch in one request to the server
+   */
+  private void sendBatch(Batch batch) {
+    List<List<RemoteRuleMatch>> results = null;
+    try {
+      String text = batch.getText();
+      OfficeMetrics.increment("remoteCoalescer.requests");
+      OfficeMetrics.add("remoteCoalescer.paragraphs", batch.size());
+      List<RemoteRuleMatch> matches = remoteLanguageTool.check(text, batch.remoteConfig).getMatches();
+      results = batch.splitMatches(matches);
+    } catch (Throwable t) {
+      MessageHandler.printException(t);
+    }
+    batch.setResults(results);
+  }
+
+  /**
+   * Paragraphs checked together in one request
+   */
+  private static class Batch {
+    private final CheckConfiguration remoteConfig;
+    private final List<String> texts = new ArrayList<>();
+    private final List<Integer> starts = new ArrayList<>();
+    private int length = 0;
+    private boolean isClosed = false;
+    private boolean isDone = false;
+    private List<List<RemoteRuleMatch>> results = null;
+
+    Batch(CheckConfiguration remoteConfig) {
+      this.remoteConfig = remoteConfig;
+    }
+
+    /**
+     * add a paragraph; returns false if the batch is closed or the text doesn't fit into the batch
+     * the first paragraph is always added
+     */
+    synchronized boolean add(String text, int maxTextLength) {
+      int start = texts.isEmpty() ? 0 : length + OfficeTools.NUMBER_PARAGRAPH_CHARS;
+      if (isClosed || (!texts.isEmpty() && start + text.length() > maxTextLength)) {
+        return false;
+      }
+      starts.add(start);
+      texts.add(text);
+      length = start + text.length();
+      return true;
+    }
+
+    synchronized int size() {
+      return texts.size();
+    }
+
+    synchronized int getStart(int nRequest) {
+      return starts.get(nRequest);
+    }
+
+    /**
+     * no more paragraphs are added; the request is sent immediately
+     */
+    synchronized void close() {
+      isClosed = true;
+      notifyAll();
+    }
+
+    /**
+     * wait till the batch is closed or the time window is over
+     */
+    synchronized void waitForRequests(int window) {
+      long endTime = System.currentTimeMillis() + window;
+      long waitTime = window;
+      while (!isClosed && waitTime > 0) {
+        try {
+          wait(waitTime);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+        waitTime = endTime - System.currentTimeMillis();
+      }
+      isClosed = true;
+    }
+
+    synchronized String getText() {
+      return String.join(OfficeTools.END_OF_PARAGRAPH, texts);
+    }
+
+    /**
+     * sort the matches of the whole text to the paragraphs
+     * matches crossing the end of a paragraph are dropped
+     */
+    synchronized List<List<RemoteRuleMatch>> splitMatches(List<RemoteRuleMatch> matches) {
+      List<List<RemoteRuleMatch>> paraMatches = new ArrayList<>();
+      for (int i = 0; i < texts.size(); i++) {
+        paraMatches.add(new ArrayList<>());
+      }
+      if (matches == null) {
+        return paraMatches;
+      }
+      for (RemoteRuleMatch match : matches) {
+        int n = Collections.binarySearch(starts, match.getErrorOffset());
+        if (n < 0) {
+          n = -n - 2;
+        }
+        if (n >= 0 && match.getErrorOffset() + match.getErrorLength() <= starts.get(n) + texts.get(n).length()) {
+          paraMatches.get(n).add(match);
+        }
+      }
+      return paraMatches;
+    }
+
+    synchronized void setResults(List<List<RemoteRuleMatch>> results) {
+      this.results = results;
+      isDone = true;
+      notifyAll();
+    }
+
+    /**
+     * wait for the result of the request and return the matches of a paragraph
+     * returns null if the check failed
+     */
+    synchronized List<RemoteRuleMatch> getResult(int nRequest) throws InterruptedException {
+      while (!isDone) {
+        wait();
+      }
+      return results == null ? null : results.get(nRequest);
+    }
+  }
+
+}
@@ -0,0 +1,164 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.languagetool.remote.RemoteRuleMatch;
+
+/**
+ * Client side cache of the results of a remote LT server
+ * The key is built from the hash of the checked text and the configuration of the check
+ * (server, language, enabled / disabled rules, check mode)
+ * The matches are stored with the offset to be added to get positions relative to the checked text
+ * (the offset is not 0 if the matches are taken from a coalesced check of more than one text)
+ * The cache is bounded by the number of entries and the estimated size in bytes (least recently used entries are removed)
+ * @since 6.5
+ * @author Fred Kruse
+ */
+class RemoteResultCache {
+
+  private static final int MAX_ENTRIES = 10000;            //  maximal number of cached texts
+  private static final long MAX_BYTES = 16 * 1048576;      //  maximal estimated size of the cache
+  private static final int ENTRY_OVERHEAD = 64;            //  estimated bytes of an entry or a match without strings
+
+  private final Map<String, CacheEntry> entries = new LinkedHashMap<>(256, 0.75f, true);
+  private long bytes = 0;
+
+  /**
+   * get the key for a text checked with a configuration
+   */
+  static String getKey(String configKey, String text) {
+    return configKey + ":" + getHash(text);
+  }
+
+  /**
+   * SHA-256 hash of a string as hex string
+   */
+  static String getHash(String text) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest(text.getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder(2 * hash.length);
+      for (byte b : hash) {
+        sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      //  SHA-256 is supported by every JRE; use the less safe hash code as fall back
+      return text.length() + "-" + text.hashCode();
+    }
+  }
+
+  /**
+   * get the cached matches for a key; null if there is no entry
+   */
+  synchronized RemoteMatches get(String key) {
+    CacheEntry entry = entries.get(key);
+    OfficeMetrics.countCacheAccess("remoteResultCache", entry != null);
+    return entry == null ? null : entry.remoteMatches;
+  }
+
+  /**
+   * add the matches of a text
+   */
+  synchronized void put(String key, RemoteMatches remoteMatches) {
+    CacheEntry entry = new CacheEntry(remoteMatches, estimateBytes(key, remoteMatches.matches));
+    if (entry.bytes > MAX_BYTES) {
+      return;
+    }
+    CacheEntry oldEntry = entries.put(key, entry);
+    if (oldEntry != null) {
+      bytes -= oldEntry.bytes;
+    }
+    bytes += entry.bytes;
+    Iterator<CacheEntry> iterator = entries.values().iterator();
+    while ((entries.size() > MAX_ENTRIES || bytes > MAX_BYTES) && iterator.hasNext()) {
+      bytes -= iterator.next().bytes;
+      iterator.remove();
+    }
+  }
+
+  /**
+   * remove all entries
+   */
+  synchronized void clear() {
+    entries.clear();
+    bytes = 0;
+  }
+
+  /**
+   * number of entries
+   */
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private static long estimateBytes(String key, List<RemoteRuleMatch> matches) {
+    long nBytes = ENTRY_OVERHEAD + 2L * key.length();
+    for (RemoteRuleMatch match : matches) {
+      nBytes += ENTRY_OVERHEAD + 2L * (length(match.getRuleId()) + length(match.getMessage())
+          + length(match.getRuleDescription()) + length(match.getShortMessage().orElse(null))
+          + length(match.getUrl().orElse(null)));
+      if (match.getReplacements().isPresent()) {
+        for (String replacement : match.getReplacements().get()) {
+          nBytes += 16 + 2L * length(replacement);
+        }
+      }
+    }
+    return nBytes;
+  }
+
+  private static int length(String s) {
+    return s == null ? 0 : s.length();
+  }
+
+  /**
+   * matches of a remote check of a text
+   * offset has to be added to the error offsets of the matches to get positions relative to the begin of the text
+   */
+  static class RemoteMatches {
+    final List<RemoteRuleMatch> matches;
+    final int offset;
+
+    RemoteMatches(List<RemoteRuleMatch> matches, int offset) {
+      this.matches = matches == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(matches));
+      this.offset = offset;
+    }
+  }
+
+  private static class CacheEntry {
+    final RemoteMatches remoteMatches;
+    final long bytes;
+
+    CacheEntry(RemoteMatches remoteMatches, long bytes) {
+      this.remoteMatches = remoteMatches;
+      this.bytes = bytes;
+    }
+  }
+
+}
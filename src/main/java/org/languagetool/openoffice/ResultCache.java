@@ -21,10 +21,9 @@ package org.languagetool.openoffice;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.languagetool.openoffice.OfficeTools.LoErrorType;
@@ -42,8 +41,10 @@ import com.sun.star.text.TextMarkupType;
  */
 public class ResultCache implements Serializable {
 
-  private static final long serialVersionUID = 2L;
-  private final Map<Integer, SerialCacheEntry> entries = new HashMap<Integer, SerialCacheEntry>();
+  private static final long serialVersionUID = 5L;
+  private final ParagraphShiftMap<SerialCacheEntry> entries = new ParagraphShiftMap<>();
+  private final ParagraphShiftMap<Boolean> errorParagraphs = new ParagraphShiftMap<>();   //  index of the paragraphs with errors
+  private final Map<String, ParagraphShiftMap<Boolean>> ruleParagraphs = new HashMap<>(); //  index of the paragraphs with errors of a rule
   
   private ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
   
@@ -56,12 +57,12 @@ public class ResultCache implements Serializable {
   }
 
   /**
-   * Get cache entry map
+   * Get a copy of the cache entry map
    */
-  private Map<Integer, SerialCacheEntry> getMap() {
+  private ParagraphShiftMap<SerialCacheEntry> getMap() {
     rwLock.readLock().lock();
     try {
-      return new HashMap<Integer, SerialCacheEntry>(entries);
+      return new ParagraphShiftMap<>(entries);
     } finally {
       rwLock.readLock().unlock();
     }
@@ -74,8 +75,15 @@ public class ResultCache implements Serializable {
     rwLock.writeLock().lock();
     try {
       entries.clear();
+      errorParagraphs.clear();
+      ruleParagraphs.clear();
       if (cache != null && !cache.entries.isEmpty()) {
-        entries.putAll(cache.getMap());
+        ParagraphShiftMap<SerialCacheEntry> map = cache.getMap();
+        List<Integer> keys = map.keys();
+        List<SerialCacheEntry> values = map.values();
+        for (int i = 0; i < keys.size(); i++) {
+          putEntry(keys.get(i), values.get(i));
+        }
       }
     } finally {
       rwLock.writeLock().unlock();
@@ -88,7 +96,8 @@ public class ResultCache implements Serializable {
   public void remove(int numberOfParagraph) {
     rwLock.writeLock().lock();
     try {
-      entries.remove(numberOfParagraph);
+      removeFromRuleIndex(numberOfParagraph, entries.remove(numberOfParagraph));
+      errorParagraphs.remove(numberOfParagraph);
     } finally {
       rwLock.writeLock().unlock();
     }
@@ -100,8 +109,14 @@ public class ResultCache implements Serializable {
   public void removeRange(int firstParagraph, int lastParagraph) {
     rwLock.writeLock().lock();
     try {
-      for (int i = firstParagraph; i <= lastParagraph; i++) {
-        entries.remove(i);
+      entries.removeRange(firstParagraph, lastParagraph + 1);
+      errorParagraphs.removeRange(firstParagraph, lastParagraph + 1);
+      for (Iterator<ParagraphShiftMap<Boolean>> i = ruleParagraphs.values().iterator(); i.hasNext();) {
+        ParagraphShiftMap<Boolean> paragraphs = i.next();
+        paragraphs.removeRange(firstParagraph, lastParagraph + 1);
+        if (paragraphs.isEmpty()) {
+          i.remove();
+        }
       }
     } finally {
       rwLock.writeLock().unlock();
@@ -113,29 +128,15 @@ public class ResultCache implements Serializable {
    * shift all numberOfParagraph by 'shift'
    */
   public void removeAndShift(int fromParagraph, int toParagraph, int oldSize, int newSize) {
-    int shift = newSize - oldSize;
-    if (fromParagraph < 0 && toParagraph >= newSize) {
-      return;
-    }
     rwLock.writeLock().lock();
     try {
-      Map<Integer, SerialCacheEntry> tmpEntries = new HashMap<Integer, SerialCacheEntry>(entries);
-      entries.clear();
-      if (shift < 0) {   // new size < old size
-        for (int i : tmpEntries.keySet()) {
-          if (i < fromParagraph) {
-            entries.put(i, tmpEntries.get(i));
-          } else if (i >= toParagraph - shift) {
-              entries.put(i + shift, tmpEntries.get(i));
-          }
-        }
-      } else {
-        for (int i : tmpEntries.keySet()) {
-          if (i < fromParagraph) {
-            entries.put(i, tmpEntries.get(i));
-          } else if (i >= toParagraph) {
-              entries.put(i + shift, tmpEntries.get(i));
-          }
+      entries.removeAndShift(fromParagraph, toParagraph, oldSize, newSize);
+      errorParagraphs.removeAndShift(fromParagraph, toParagraph, oldSize, newSize);
+      for (Iterator<ParagraphShiftMap<Boolean>> i = ruleParagraphs.values().iterator(); i.hasNext();) {
+        ParagraphShiftMap<Boolean> paragraphs = i.next();
+        paragraphs.removeAndShift(fromParagraph, toParagraph, oldSize, newSize);
+        if (paragraphs.isEmpty()) {
+          i.remove();
         }
       }
     } finally {
@@ -149,7 +150,7 @@ public class ResultCache implements Serializable {
   public void put(int numberOfParagraph, List<Integer> nextSentencePositions, SingleProofreadingError[] errorArray) {
     rwLock.writeLock().lock();
     try {
-      entries.put(numberOfParagraph, new SerialCacheEntry(nextSentencePositions, errorArray));
+      putEntry(numberOfParagraph, new SerialCacheEntry(nextSentencePositions, errorArray));
     } finally {
       rwLock.writeLock().unlock();
     }
@@ -161,7 +162,7 @@ public class ResultCache implements Serializable {
   public void put(int numberOfParagraph, SingleProofreadingError[] errorArray) {
     rwLock.writeLock().lock();
     try {
-      entries.put(numberOfParagraph, new SerialCacheEntry(null, errorArray));
+      putEntry(numberOfParagraph, new SerialCacheEntry(null, errorArray));
     } finally {
       rwLock.writeLock().unlock();
     }
@@ -175,12 +176,48 @@ public class ResultCache implements Serializable {
     try {
       SerialCacheEntry cacheEntry = entries.get(numberOfParagraph);
       cacheEntry.addErrorArray(errorArray);
-      entries.put(numberOfParagraph, cacheEntry);
+      putEntry(numberOfParagraph, cacheEntry);
     } finally {
       rwLock.writeLock().unlock();
     }
   }
 
+  /**
+   * add or replace an entry and actualize the indices of paragraphs with errors
+   * the write lock has to be held by the caller
+   */
+  private void putEntry(int numberOfParagraph, SerialCacheEntry entry) {
+    removeFromRuleIndex(numberOfParagraph, entries.get(numberOfParagraph));
+    entries.put(numberOfParagraph, entry);
+    if (isEmptyEntry(entry)) {
+      errorParagraphs.remove(numberOfParagraph);
+    } else {
+      errorParagraphs.put(numberOfParagraph, true);
+      for (SerialProofreadingError error : entry.errorArray) {
+        ruleParagraphs.computeIfAbsent(error.aRuleIdentifier, k -> new ParagraphShiftMap<>()).put(numberOfParagraph, true);
+      }
+    }
+  }
+
+  /**
+   * remove the paragraph from the index of the rules of the entry
+   * the write lock has to be held by the caller
+   */
+  private void removeFromRuleIndex(int numberOfParagraph, SerialCacheEntry entry) {
+    if (isEmptyEntry(entry)) {
+      return;
+    }
+    for (SerialProofreadingError error : entry.errorArray) {
+      ParagraphShiftMap<Boolean> paragraphs = ruleParagraphs.get(error.aRuleIdentifier);
+      if (paragraphs != null) {
+        paragraphs.remove(numberOfParagraph);
+        if (paragraphs.isEmpty()) {
+          ruleParagraphs.remove(error.aRuleIdentifier);
+        }
+      }
+    }
+  }
+
   /**
    * Remove all cache entries
    */
@@ -188,6 +225,8 @@ public class ResultCache implements Serializable {
     rwLock.writeLock().lock();
     try {
       entries.clear();
+      errorParagraphs.clear();
+      ruleParagraphs.clear();
     } finally {
       rwLock.writeLock().unlock();
     }
@@ -212,8 +251,8 @@ public class ResultCache implements Serializable {
     rwLock.readLock().lock();
     try {
       int num = 0;
-      for (int n : entries.keySet()) {
-        if (entries.get(n) != null) {
+      for (SerialCacheEntry entry : entries.values()) {
+        if (entry != null) {
           num++;
         }
       }
@@ -230,9 +269,9 @@ public class ResultCache implements Serializable {
     rwLock.readLock().lock();
     try {
       int num = 0;
-      for (int n : entries.keySet()) {
-        if (entries.get(n) != null) {
-          num += entries.get(n).errorArray.length;
+      for (SerialCacheEntry entry : entries.values()) {
+        if (entry != null) {
+          num += entry.errorArray.length;
         }
       }
       return num;
@@ -241,6 +280,44 @@ public class ResultCache implements Serializable {
     }
   }
 
+  /**
+   * get the first paragraph from numberOfParagraph (included) with errors
+   * returns -1 if there is none
+   */
+  public int getNextParagraphWithErrors(int numberOfParagraph) {
+    rwLock.readLock().lock();
+    try {
+      return errorParagraphs.ceilingKey(numberOfParagraph);
+    } finally {
+      rwLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * get the sorted numbers of all paragraphs with errors of a rule
+   */
+  public List<Integer> getParagraphsWithRuleError(String ruleId) {
+    rwLock.readLock().lock();
+    try {
+      ParagraphShiftMap<Boolean> paragraphs = ruleParagraphs.get(ruleId);
+      return paragraphs == null ? new ArrayList<>() : paragraphs.keys();
+    } finally {
+      rwLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * get the first paragraph from numberOfParagraph (included) without cache entry (not checked)
+   */
+  public int getNextParagraphWithoutEntry(int numberOfParagraph) {
+    rwLock.readLock().lock();
+    try {
+      return entries.nextMissingKey(numberOfParagraph);
+    } finally {
+      rwLock.readLock().unlock();
+    }
+  }
+
   /**
    * get cache entry of paragraph
    */
@@ -271,9 +348,8 @@ public class ResultCache implements Serializable {
       if (entries.size() >= limit) {
         return true;
       }
-      Set<Integer> paras = new HashSet<>(entries.keySet());
-      for (int n : paras) {
-        if (entries.get(n).errorArray.length > 0) {
+      for (SerialCacheEntry entry : entries.values()) {
+        if (entry.errorArray.length > 0) {
           return true;
         }
       }
@@ -473,8 +549,7 @@ public class ResultCache implements Serializable {
       SerialCacheEntry oEntry;
       SerialCacheEntry nEntry;
       boolean isDifferent = true;
-      Set<Integer> entrySet = new HashSet<>(entries.keySet());
-      for (int nPara : entrySet) {
+      for (int nPara : entries.keys()) {
         if (oldCache != null) {
           nEntry = entries.get(nPara);
           oEntry = oldCache.entries.get(nPara);
@@ -498,8 +573,11 @@ public class ResultCache implements Serializable {
     rwLock.writeLock().lock();
     try {
       List<Integer> changed = new ArrayList<>();
-      Set<Integer> keySet = entries.keySet();
-      for (int n : keySet) {
+      ParagraphShiftMap<Boolean> paragraphs = ruleParagraphs.get(ruleId);
+      if (paragraphs == null) {
+        return changed;
+      }
+      for (int n : paragraphs.keys()) {
         SerialCacheEntry entry = entries.get(n);
         SingleProofreadingError[] eArray = entry.getErrorArray();
         int nErr = 0;
@@ -517,7 +595,7 @@ public class ResultCache implements Serializable {
               j++;
             }
           }
-          entries.put(n, new SerialCacheEntry(entry.nextSentencePositions, newArray));
+          putEntry(n, new SerialCacheEntry(entry.nextSentencePositions, newArray));
         }
       }
       return changed;
@@ -557,8 +635,8 @@ public class ResultCache implements Serializable {
     rwLock.readLock().lock();
     try {
       int number = 0;
-      for (int n : entries.keySet()) {
-        number += entries.get(n).errorArray.length;
+      for (SerialCacheEntry entry : entries.values()) {
+        number += entry.errorArray.length;
       }
       return number;
     } finally {
@@ -577,10 +655,8 @@ public class ResultCache implements Serializable {
       if (entry == null) {
         return null;
       }
-      for (SingleProofreadingError err : entry.getErrorArray()) {
-        if (numChar >= err.nErrorStart && numChar < err.nErrorStart + err.nErrorLength) {
-          errors.add(err);
-        }
+      for (int n : entry.getErrorIntervals().getIndicesAt(numChar)) {
+        errors.add(entry.errorArray[n].toSingleProofreadingError());
       }
       return errors;
     } finally {
@@ -620,6 +696,7 @@ public class ResultCache implements Serializable {
     private static final long serialVersionUID = 2L;
     SerialProofreadingError[] errorArray;
     List<Integer> nextSentencePositions = null;
+    private transient ErrorIntervals errorIntervals = null;
 
     SerialCacheEntry(List<Integer> nextSentencePositions, SingleProofreadingError[] sErrorArray) {
       if (nextSentencePositions != null) {
@@ -642,6 +719,22 @@ public class ResultCache implements Serializable {
       return eArray;
     }
     
+    /**
+     * Get the sorted interval structure of the errors (generated at first use)
+     */
+    ErrorIntervals getErrorIntervals() {
+      if (errorIntervals == null) {
+        int[] starts = new int[errorArray.length];
+        int[] lengths = new int[errorArray.length];
+        for (int i = 0; i < errorArray.length; i++) {
+          starts[i] = errorArray[i].nErrorStart;
+          lengths[i] = errorArray[i].nErrorLength;
+        }
+        errorIntervals = new ErrorIntervals(starts, lengths);
+      }
+      return errorIntervals;
+    }
+    
     /**
      * Get an SingleProofreadingError array for one entry
      */
@@ -663,6 +756,7 @@ public class ResultCache implements Serializable {
       for (int i = 0; i < errors.length; i++) {
         newErrorArray[errorArray.length + i] = new SerialProofreadingError(errors[i]);
       }
+      errorArray = newErrorArray;
     }
   }
   
@@ -557,6 +557,9 @@ public class SingleCheck {
       } else if (sentencePos == 0) {
         lastSinglePara = paraText;
       }
+      if (nFPara >= 0) {
+        OfficeMetrics.countCacheAccess("resultCache." + cacheNum, pErrors != null);
+      }
       // return Cache result if available / for right mouse click or Dialog only use cache
       boolean isTextParagraph = nFPara >= 0 && docCache != null && docCache.getNumberOfTextParagraph(nFPara).type != DocumentCache.CURSOR_TYPE_UNKNOWN
           && !docCache.isSingleParagraph(nFPara);
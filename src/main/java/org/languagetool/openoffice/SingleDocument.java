@@ -29,6 +29,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.languagetool.Language;
 import org.languagetool.gui.Configuration;
@@ -82,7 +83,6 @@ public class SingleDocument {
    */
   
   private static int debugMode;                   //  should be 0 except for testing; 1 = low level; 2 = advanced level
-  private static boolean debugModeTm;             // time measurement should be false except for testing
   
   private Configuration config;
 
@@ -135,7 +135,6 @@ public class SingleDocument {
       numLastFlPara.add(-1);
     }
     debugMode = OfficeTools.DEBUG_MODE_SD;
-    debugModeTm = OfficeTools.DEBUG_MODE_TM;
     if (OfficeTools.DEVELOP_MODE_ST) {
       hasSortedTextId = false;
     }
@@ -328,10 +327,7 @@ public class SingleDocument {
       boolean isDialogRequest = (nPara >= 0 || (proofInfo == OfficeTools.PROOFINFO_GET_PROOFRESULT));
       
       CheckRequestAnalysis requestAnalysis = null;
-      long startTime = 0;
-      if (debugModeTm) {
-        startTime = System.currentTimeMillis();
-      }
+      long startTime = OfficeMetrics.startTime();
       int paraNum;
 //      MessageHandler.printToLogFile("Single document: Check Paragraph: " + paraText);
       if (hasSortedTextId) {
@@ -350,12 +346,7 @@ public class SingleDocument {
       if (docCache.isAutomaticGenerated(paraNum, true)) {
         return paRes;
       }
-      if (debugModeTm) {
-        long runTime = System.currentTimeMillis() - startTime;
-        if (runTime > OfficeTools.TIME_TOLERANCE) {
-          MessageHandler.printToLogFile("Single document: Time to run request analyses: " + runTime);
-        }
-      }
+      OfficeMetrics.recordTime(OfficeMetrics.REQUEST_ANALYSIS, startTime, "Single document: Time to run request analyses: ");
       if (debugMode > 1) {
         MessageHandler.printToLogFile("Single document: getCheckResults: paraNum = " + paraNum + ", nPara = " + nPara);
       }
@@ -381,9 +372,7 @@ public class SingleDocument {
 //        viewCursor = null;
         return paRes;
       }
-      if (debugModeTm) {
-        startTime = System.currentTimeMillis();
-      }
+      startTime = OfficeMetrics.startTime();
 //      MessageHandler.printToLogFile("Single document: Check Paragraph: " + paraNum);
       SingleCheck singleCheck = new SingleCheck(this, paragraphsCache, fixedLanguage,
           docLanguage, numParasToCheck, isDialogRequest, isMouseRequest, isIntern);
@@ -401,24 +390,12 @@ public class SingleDocument {
       }
       paRes.nBehindEndOfSentencePosition = paRes.nStartOfNextSentencePosition;
       lastChangedPara = (textIsChanged && numParasToCheck != 0) ? paraNum : -1;
-      if (debugModeTm) {
-        long runTime = System.currentTimeMillis() - startTime;
-        if (runTime > OfficeTools.TIME_TOLERANCE) {
-          MessageHandler.printToLogFile("Single document: Time to run single check: " + runTime);
-        }
-      }
+      OfficeMetrics.recordTime(OfficeMetrics.SINGLE_CHECK, startTime, "Single document: Time to run single check: ");
       if (proofInfo == OfficeTools.PROOFINFO_GET_PROOFRESULT || isIntern) {
         addStatAnalysisErrors (paRes, paraNum);
-        if (debugModeTm) {
-          startTime = System.currentTimeMillis();
-        }
+        startTime = OfficeMetrics.startTime();
         addSynonyms(paRes, paraText, locale, lt);
-        if (debugModeTm) {
-          long runTime = System.currentTimeMillis() - startTime;
-          if (runTime > OfficeTools.TIME_TOLERANCE) {
-            MessageHandler.printToLogFile("Single document: Time to addSynonyms: " + runTime);
-          }
-        }
+        OfficeMetrics.recordTime(OfficeMetrics.ADD_SYNONYMS, startTime, "Single document: Time to addSynonyms: ");
       }
       if (textIsChanged && numParasToCheck != 0 && config.useTextLevelQueue() && !isDialogRequest
           && mDocHandler.getTextLevelCheckQueue() != null && !mDocHandler.isTestMode()) {
@@ -665,7 +642,15 @@ public class SingleDocument {
   public DocumentCache getDocumentCache() {
     return docCache;
   }
-  
+
+  /**
+   *  Get the IO of the cache files of the document
+   *  null if the caches are not saved
+   */
+  public CacheIO getCacheIO() {
+    return cacheIO;
+  }
+
   /**
    *  reset document cache of the document
    */
@@ -786,19 +771,12 @@ public class SingleDocument {
    * Remove a special Proofreading error from all caches of document
    */
   public void removeRuleError(String ruleId) {
-    List<Integer> allChanged = new ArrayList<>();
+    Set<Integer> changedParas = new TreeSet<>();
     for (ResultCache cache : paragraphsCache) {
-      List<Integer> changed = cache.removeRuleError(ruleId);
-      if (changed.size() > 0) {
-        for (int n : changed) {
-          if (!allChanged.contains(n)) {
-            allChanged.add(n);
-          }
-        }
-      }
+      changedParas.addAll(cache.removeRuleError(ruleId));
     }
-    if (allChanged.size() > 0) {
-      allChanged.sort(null);
+    if (changedParas.size() > 0) {
+      List<Integer> allChanged = new ArrayList<>(changedParas);
       remarkChangedParagraphs(allChanged, allChanged, true);
     }
   }
@@ -1248,39 +1226,11 @@ public class SingleDocument {
   }
   
   /**
-   * remove all ignore once entries for paragraph y from queue and set the mark
+   * remove the ignored matches of the changed paragraphs and shift the following ones
    */
   public void removeAndShiftIgnoredMatch(int from, int to, int oldSize, int newSize) {
-    if (!ignoredMatches.isEmpty()) {
-      IgnoredMatches tmpIgnoredMatches = new IgnoredMatches();
-      for (int i = 0; i < from; i++) {
-        if (ignoredMatches.containsParagraph(i)) {
-          tmpIgnoredMatches.put(i, ignoredMatches.get(i));
-        }
-      }
-      for (int i = to + 1; i < oldSize; i++) {
-        int n = i + newSize - oldSize;
-        if (ignoredMatches.containsParagraph(i)) {
-          tmpIgnoredMatches.put(n, ignoredMatches.get(i));
-        }
-      }
-      ignoredMatches = tmpIgnoredMatches;
-    }
-    if (!permanentIgnoredMatches.isEmpty()) {
-      IgnoredMatches tmpIgnoredMatches = new IgnoredMatches();
-      for (int i = 0; i < from; i++) {
-        if (permanentIgnoredMatches.containsParagraph(i)) {
-          tmpIgnoredMatches.put(i, permanentIgnoredMatches.get(i));
-        }
-      }
-      for (int i = to + 1; i < oldSize; i++) {
-        int n = i + newSize - oldSize;
-        if (permanentIgnoredMatches.containsParagraph(i)) {
-          tmpIgnoredMatches.put(n, permanentIgnoredMatches.get(i));
-        }
-      }
-      permanentIgnoredMatches = tmpIgnoredMatches;
-    }
+    ignoredMatches.removeAndShift(from, to, oldSize, newSize);
+    permanentIgnoredMatches.removeAndShift(from, to, oldSize, newSize);
   }
   
   /**
@@ -1393,52 +1343,28 @@ public class SingleDocument {
     return filterIgnoredMatches(errorArray, nPara);
   }
   
-  /**
-   * Proofs if an error is equivalent
-   */
-  private boolean isEquivalentError(SingleProofreadingError filteredError, SingleProofreadingError error) {
-    if (filteredError == null || error == null 
-        || error.nErrorStart != filteredError.nErrorStart || error.nErrorLength != filteredError.nErrorLength) {
-      return false;
-    }
-    if ((error.aSuggestions == null && filteredError.aSuggestions != null) 
-        || (error.aSuggestions != null && filteredError.aSuggestions == null)) {
-      return false;
-    }
-    if (error.aSuggestions == null && filteredError.aSuggestions == null) {
-      return true;
-    }
-    if (error.aSuggestions.length != filteredError.aSuggestions.length) {
-      return false;
-    }
-    for (String suggestion : error.aSuggestions) {
-      boolean contents = false;
-      for (String fSuggestion : filteredError.aSuggestions) {
-        if (suggestion.equals(fSuggestion)) {
-          contents = true;
-          break;
-        }
-      }
-      if (!contents) {
-        return false;
-      }
-    }
-    return true;
-  }
-  
   /**
    * Filter ignored errors (from ignore once and spell errors)
+   * The ignored positions are looked up in a sorted interval structure of the errors
    */
   private SingleProofreadingError[] filterIgnoredMatches (SingleProofreadingError[] unFilteredErrors, int nPara) {
     if ((!ignoredMatches.isEmpty() && ignoredMatches.containsParagraph(nPara)) || 
         (!permanentIgnoredMatches.isEmpty() && permanentIgnoredMatches.containsParagraph(nPara))){
+      ErrorIntervals intervals = new ErrorIntervals(unFilteredErrors);
+      Set<Integer> ignored = intervals.getIgnoredIndices(unFilteredErrors, ignoredMatches.get(nPara));
+      ignored.addAll(intervals.getIgnoredIndices(unFilteredErrors, permanentIgnoredMatches.get(nPara)));
+      if (ignored.isEmpty()) {
+        return unFilteredErrors;
+      }
       SingleProofreadingError lastFilteredError = null;
+      Set<String> lastFilteredSuggestions = null;
       List<SingleProofreadingError> filteredErrors = new ArrayList<>();
-      for (SingleProofreadingError error : unFilteredErrors) {
-        if (ignoredMatches.isIgnored(error.nErrorStart, error.nErrorStart + error.nErrorLength, nPara, error.aRuleIdentifier) ||
-            permanentIgnoredMatches.isIgnored(error.nErrorStart, error.nErrorStart + error.nErrorLength, nPara, error.aRuleIdentifier)) {
+      for (int i = 0; i < unFilteredErrors.length; i++) {
+        SingleProofreadingError error = unFilteredErrors[i];
+        if (ignored.contains(i)) {
           lastFilteredError = error;
-        } else if (!isEquivalentError(lastFilteredError, error)) {
+          lastFilteredSuggestions = ErrorIntervals.getSuggestionSet(error);
+        } else if (!ErrorIntervals.isEquivalentError(lastFilteredError, lastFilteredSuggestions, error)) {
           filteredErrors.add(error);
         }
       }
@@ -1451,92 +1377,12 @@ public class SingleDocument {
     return unFilteredErrors;
   }
   
-  private static SingleProofreadingError duplicateSingleProofreadingError (SingleProofreadingError error) {
-    SingleProofreadingError duplicate = new SingleProofreadingError();
-    duplicate.aFullComment = error.aFullComment;
-    duplicate.aProperties= error.aProperties;
-    duplicate.aRuleIdentifier = error.aRuleIdentifier;
-    duplicate.aShortComment = error.aShortComment;
-    duplicate.aSuggestions = error.aSuggestions;
-    duplicate.nErrorLength = error.nErrorLength;
-    duplicate.nErrorStart = error.nErrorStart;
-    duplicate.nErrorType = error.nErrorType;
-    return duplicate;
-  }
-  
   /**
    * Filter overlapping errors
    * Splits overlapping errors
    */
   public SingleProofreadingError[] filterOverlappingErrors (SingleProofreadingError[] errors) {
-//    MessageHandler.printToLogFile("errors: " + errors.length);
-    if (errors == null || errors.length < 2) {
-      return errors;
-    }
-    List<Integer> overlaps = new ArrayList<>();
-    for(int i = 0; i < errors.length; i++) {
-      SingleProofreadingError error1 = errors[i];
-      for(int j = 0; j < errors.length; j++) {
-        SingleProofreadingError error2 = errors[j];
-        if (i != j && (error2.nErrorStart != error1.nErrorStart || error2.nErrorStart != error1.nErrorStart)
-            && error2.nErrorStart >= error1.nErrorStart && error2.nErrorStart < error1.nErrorStart + error1.nErrorLength) {
-          if (!overlaps.contains(i)) {
-            overlaps.add(i);
-          }
-        }
-      }
-    }
-    if (overlaps.isEmpty()) {
-      return errors;
-    }
-//    MessageHandler.printToLogFile("overlaps: " + overlaps.size());
-//    for (int i : overlaps) {
-//      MessageHandler.printToLogFile("Rule: " + errors[i].aRuleIdentifier 
-//          + ", nStart: " + errors[i].nErrorStart + ", nLength: " + errors[i].nErrorLength);
-//    }
-//    MessageHandler.printToLogFile("");
-    List<SingleProofreadingError> filteredErrors = new ArrayList<>();
-    for (int i = 0; i < overlaps.size(); i++) {
-      int k = overlaps.get(i);
-      SingleProofreadingError error1 = duplicateSingleProofreadingError(errors[k]);
-      for(int j = 0; j < errors.length; j++) {
-        SingleProofreadingError error2 = errors[j];
-        if (k != j) {
-          if (error2.nErrorStart == error1.nErrorStart && error2.nErrorLength < error1.nErrorLength) {
-            error1.nErrorStart = error2.nErrorStart + error2.nErrorLength + 1;
-            error1.nErrorLength -= error1.nErrorStart;
-          } else if (error2.nErrorStart > error1.nErrorStart && error2.nErrorStart < error1.nErrorStart + error1.nErrorLength) {
-            if (error2.nErrorStart + error2.nErrorLength < error1.nErrorStart + error1.nErrorLength) {
-              SingleProofreadingError tmpError = duplicateSingleProofreadingError(error1);
-              error1.nErrorLength = error2.nErrorStart - error1.nErrorStart - 1;
-//              MessageHandler.printToLogFile("Add Error(1): Rule: " + error1.aRuleIdentifier 
-//                  + ", nStart: " + error1.nErrorStart + ", nLength: " + error1.nErrorLength);
-              filteredErrors.add(error1);
-              error1 = tmpError;
-              int diff = error2.nErrorStart + error2.nErrorLength - error1.nErrorStart;
-              error1.nErrorStart += (diff + 1);
-              error1.nErrorLength -= diff;
-            } else {
-              error1.nErrorLength = error2.nErrorStart - error1.nErrorStart - 1;
-            }
-          }
-        }
-      }
-//      MessageHandler.printToLogFile("Add Error(2): Rule: " + error1.aRuleIdentifier 
-//          + ", nStart: " + error1.nErrorStart + ", nLength: " + error1.nErrorLength);
-      filteredErrors.add(error1);
-    }
-    for(int i = 0; i < errors.length; i++) {
-      if (!overlaps.contains(i)) {
-        filteredErrors.add(errors[i]);
-      }
-    }
-//    MessageHandler.printToLogFile("");
-//    for (SingleProofreadingError error : filteredErrors) {
-//      MessageHandler.printToLogFile("Rule: " + error.aRuleIdentifier 
-//          + ", nStart: " + error.nErrorStart + ", nLength: " + error.nErrorLength);
-//    }
-    return filteredErrors.toArray(new SingleProofreadingError[0]);
+    return ErrorIntervals.splitOverlappingErrors(errors);
   }
 
   /**
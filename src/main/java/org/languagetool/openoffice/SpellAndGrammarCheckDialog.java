@@ -42,9 +42,12 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -78,8 +81,10 @@ import org.languagetool.Language;
 import org.languagetool.Languages;
 // import org.languagetool.gui.Configuration;
 import org.languagetool.gui.Tools;
+import org.languagetool.openoffice.DocumentCache.ChangedRange;
 import org.languagetool.openoffice.DocumentCache.TextParagraph;
 import org.languagetool.openoffice.MultiDocumentsHandler.WaitDialogThread;
+import org.languagetool.openoffice.OfficeDrawTools.ParagraphContainer;
 import org.languagetool.openoffice.OfficeDrawTools.UndoMarkupContainer;
 import org.languagetool.openoffice.OfficeTools.DocumentType;
 import org.languagetool.openoffice.OfficeTools.LoErrorType;
@@ -202,6 +207,8 @@ public class SpellAndGrammarCheckDialog extends Thread {
     if (documents.noLtSpeller()) {
       linguServices = new LinguisticServices(xContext);
     }
+    //  dictionaries may have been changed since the last run of the dialog
+    LinguisticServices.resetSpellCache();
   }
 
   /**
@@ -271,9 +278,15 @@ public class SpellAndGrammarCheckDialog extends Thread {
 
   /**
    * Actualize impress/calc document cache
+   * for impress and calc only the results of the changed shapes or sheets are removed
+   * (compared by the fingerprints of the last and the new extraction of the paragraphs)
    */
   private void actualizeNonWriterDocumentCache(SingleDocument document) {
-    if (docType != DocumentType.WRITER || documents.isBackgroundCheckOff()) {
+    ParagraphContainer oldContainer = docCache.getParagraphContainer();
+    if (docType == DocumentType.WRITER || oldContainer == null || docCache.isEmpty()) {
+      if (docType == DocumentType.WRITER && !documents.isBackgroundCheckOff()) {
+        return;
+      }
       DocumentCache oldCache = new DocumentCache(docCache);
       docCache.refresh(document, null, null, document.getXComponent(), 7);
       if (!oldCache.isEmpty()) {
@@ -292,6 +305,24 @@ public class SpellAndGrammarCheckDialog extends Thread {
           document.resetResultCache(true);
         }
       }
+      return;
+    }
+    docCache.refresh(document, null, null, document.getXComponent(), 7);
+    ParagraphContainer container = docCache.getParagraphContainer();
+    if (container == oldContainer) {
+      //  refresh has failed
+      return;
+    }
+    ChangedRange changed = DocumentCache.getChangedRange(oldContainer, container);
+    if (changed.from < changed.to || changed.oldSize != changed.newSize) {
+      if (debugMode) {
+        MessageHandler.printToLogFile("CheckDialog: actualizeNonWriterDocumentCache: Changed paragraphs: from: " 
+            + changed.from + ", to: " + changed.to + ", oldSize: " + changed.oldSize + ", newSize: " + changed.newSize);
+      }
+      //  the results of the text level caches may depend on the changed paragraphs
+      document.resetResultCache(false);
+      document.getParagraphsCache().get(0).removeAndShift(changed.from, changed.to, changed.oldSize, changed.newSize);
+      document.removeAndShiftIgnoredMatch(changed.from, changed.to, changed.oldSize, changed.newSize);
     }
   }
   
@@ -445,7 +476,16 @@ public class SpellAndGrammarCheckDialog extends Thread {
     }
     Map<Integer, List<Integer>> replacePoints = new HashMap<Integer, List<Integer>>();
     int nLength = word.length();
-    for (int n = 0; n < docCache.size(); n++) {
+    //  only the paragraphs with errors of the rule are looked at (see ResultCache.getParagraphsWithRuleError)
+    Set<Integer> paragraphs = new TreeSet<>();
+    for (ResultCache resultCache : document.getParagraphsCache()) {
+      paragraphs.addAll(resultCache.getParagraphsWithRuleError(ruleID));
+    }
+    OfficeMetrics.add("checkDialog.changeAllParagraphs", paragraphs.size());
+    for (int n : paragraphs) {
+      if (n >= docCache.size()) {
+        break;
+      }
       List<SingleProofreadingError[]> pErrors = new ArrayList<>();
       for (ResultCache resultCache : document.getParagraphsCache()) {
         pErrors.add(resultCache.getSafeMatches(n));
@@ -559,6 +599,8 @@ public class SpellAndGrammarCheckDialog extends Thread {
   
   /**
    * get a list of all spelling errors of the flat paragraph nPara
+   * the language of the words is only requested for multilingual paragraphs
+   * every different word is checked only once per language (the verdicts are cached by LinguisticServices)
    */
   public SingleProofreadingError[] getSpellErrors(int nPara, String text, Locale lang, SingleDocument document) throws Throwable {
     try {
@@ -567,17 +609,21 @@ public class SpellAndGrammarCheckDialog extends Thread {
         return null;
       }
       XFlatParagraph xFlatPara = null;
-      if (docType == DocumentType.WRITER) {
+      if (docType == DocumentType.WRITER && docCache.isMultilingualFlatParagraph(nPara)) {
         xFlatPara = document.getFlatParagraphTools().getFlatParagraphAt(nPara);
         if (xFlatPara == null) {
           return null;
         }
       }
-      Locale locale = null;
       List<AnalyzedSentence> analyzedSentences = docCache.getAnalyzedParagraph(nPara);
       if (analyzedSentences == null) {
         analyzedSentences = docCache.createAnalyzedParagraph(nPara, lt);
       }
+      //  collect all words to check and the language runs of the paragraph
+      List<SpellToken> spellTokens = new ArrayList<>();
+      Map<String, Locale> locales = new HashMap<>();
+      Map<String, Set<String>> wordsOfLocale = new HashMap<>();
+      String langString = OfficeTools.localeToString(lang);
       int pos = 0;
       for (AnalyzedSentence analyzedSentence : analyzedSentences) {
         AnalyzedTokenReadings[] tokens = analyzedSentence.getTokensWithoutWhitespace();
@@ -602,46 +648,75 @@ public class SpellAndGrammarCheckDialog extends Thread {
                 }
               }
             }
-            if (sToken.length() > 1) {
+            if (sToken.length() > 1 && !sToken.contains(" ")) {
+              String localeString = langString;
               if (xFlatPara != null) {
-                locale = xFlatPara.getLanguageOfText(nStart, nEnd - nStart);
-              }
-              if (locale == null) {
-                locale = lang;
-              }
-              if (linguServices == null) {
-                linguServices = new LinguisticServices(xContext);
-              }
-              if (!sToken.contains(" ") && !linguServices.isCorrectSpell(sToken, locale)) {
-                SingleProofreadingError aError = new SingleProofreadingError();
-                if (debugMode) {
-                  MessageHandler.printToLogFile("CheckDialog: getSpellErrors: Spell Error: Word: " + sToken 
-                      + ", Start: " + nStart + ", End: " + nEnd + ", Token(" + i + "): " + tokens[i].getToken()
-                      + (i < tokens.length - 1 ? (", Token(" + (i + 1) + "): " + tokens[i + 1].getToken()) : ""));
-                }
-                if (!document.isIgnoreOnce(nStart, nEnd, nPara, spellRuleId)) {
-                  aError.nErrorType = TextMarkupType.SPELLCHECK;
-                  aError.aFullComment = spellingError;
-                  aError.aShortComment = aError.aFullComment;
-                  aError.nErrorStart = nStart;
-                  aError.nErrorLength = nEnd - nStart;
-                  aError.aRuleIdentifier = spellRuleId;
-                  String[] alternatives = linguServices.getSpellAlternatives(token.getToken(), locale);
-                  if (alternatives != null) {
-                    aError.aSuggestions = alternatives;
-                  } else {
-                    aError.aSuggestions = new String[0];
-                  }
-                  aError = SingleCheck.correctRuleMatchWithFootnotes(aError, 
-                      docCache.getFlatParagraphFootnotes(nPara), docCache.getFlatParagraphDeletedCharacters(nPara));
-                  errorArray.add(aError);
+                Locale locale = xFlatPara.getLanguageOfText(nStart, nEnd - nStart);
+                if (locale != null) {
+                  localeString = OfficeTools.localeToString(locale);
+                  locales.putIfAbsent(localeString, locale);
                 }
               }
+              spellTokens.add(new SpellToken(sToken, token.getToken(), nStart, nEnd, localeString));
+              Set<String> words = wordsOfLocale.get(localeString);
+              if (words == null) {
+                words = new HashSet<>();
+                wordsOfLocale.put(localeString, words);
+              }
+              words.add(sToken);
             }
           }
         }
         pos = analyzedSentence.getCorrectedTextLength();
       }
+      if (spellTokens.isEmpty()) {
+        return new SingleProofreadingError[0];
+      }
+      locales.put(langString, lang);
+      //  check all different words of a language in one batch
+      if (linguServices == null) {
+        linguServices = new LinguisticServices(xContext);
+      }
+      Map<String, Set<String>> wrongWordsOfLocale = new HashMap<>();
+      for (String localeString : wordsOfLocale.keySet()) {
+        wrongWordsOfLocale.put(localeString, 
+            linguServices.getWrongSpelledWords(wordsOfLocale.get(localeString), locales.get(localeString)));
+      }
+      Map<String, String[]> alternativesCache = new HashMap<>();
+      for (SpellToken spellToken : spellTokens) {
+        if (!wrongWordsOfLocale.get(spellToken.localeString).contains(spellToken.word)) {
+          continue;
+        }
+        if (debugMode) {
+          MessageHandler.printToLogFile("CheckDialog: getSpellErrors: Spell Error: Word: " + spellToken.word 
+              + ", Start: " + spellToken.nStart + ", End: " + spellToken.nEnd + ", Token: " + spellToken.token);
+        }
+        if (!document.isIgnoreOnce(spellToken.nStart, spellToken.nEnd, nPara, spellRuleId)) {
+          SingleProofreadingError aError = new SingleProofreadingError();
+          aError.nErrorType = TextMarkupType.SPELLCHECK;
+          aError.aFullComment = spellingError;
+          aError.aShortComment = aError.aFullComment;
+          aError.nErrorStart = spellToken.nStart;
+          aError.nErrorLength = spellToken.nEnd - spellToken.nStart;
+          aError.aRuleIdentifier = spellRuleId;
+          String alternativesKey = spellToken.localeString + ":" + spellToken.token;
+          String[] alternatives;
+          if (alternativesCache.containsKey(alternativesKey)) {
+            alternatives = alternativesCache.get(alternativesKey);
+          } else {
+            alternatives = linguServices.getSpellAlternatives(spellToken.token, locales.get(spellToken.localeString));
+            alternativesCache.put(alternativesKey, alternatives);
+          }
+          if (alternatives != null) {
+            aError.aSuggestions = alternatives;
+          } else {
+            aError.aSuggestions = new String[0];
+          }
+          aError = SingleCheck.correctRuleMatchWithFootnotes(aError, 
+              docCache.getFlatParagraphFootnotes(nPara), docCache.getFlatParagraphDeletedCharacters(nPara));
+          errorArray.add(aError);
+        }
+      }
       return errorArray.toArray(new SingleProofreadingError[errorArray.size()]);
     } catch (Throwable t) {
       MessageHandler.showError(t);
@@ -940,6 +1015,25 @@ public class SpellAndGrammarCheckDialog extends Thread {
     }
   }
   
+  /**
+   * class contains a word to be spell checked, its position and the language of the word
+   */
+  private class SpellToken {
+    public String word;
+    public String token;
+    public int nStart;
+    public int nEnd;
+    public String localeString;
+    
+    SpellToken(String word, String token, int nStart, int nEnd, String localeString) {
+      this.word = word;
+      this.token = token;
+      this.nStart = nStart;
+      this.nEnd = nEnd;
+      this.localeString = localeString;
+    }
+  }
+  
   /**
    * class contains the SingleProofreadingError and the locale of the match
    */
@@ -2480,6 +2574,35 @@ public class SpellAndGrammarCheckDialog extends Thread {
       return null;
     }
 
+   /**
+     * get the first paragraph from nFPara (included) which may contain an error
+     * if the errors are taken from the result caches (see getNextGrammatikOrSpellErrorInParagraph):
+     * the first paragraph with errors or without an entry (not checked) in one of the caches, but not behind toPara
+     * else nFPara (every paragraph has to be checked)
+     */
+    private int getNextCandidateParagraph(int nFPara, int toPara) {
+      if (docType != DocumentType.WRITER || documents.getTextLevelCheckQueue() == null || documents.noLtSpeller()) {
+        return nFPara;
+      }
+      List<ResultCache> caches = currentDocument.getParagraphsCache();
+      int nCaches = Math.min(caches.size(), documents.getNumMinToCheckParas().size());
+      int nextPara = toPara;
+      for (int cacheNum = 0; cacheNum < nCaches && nextPara > nFPara; cacheNum++) {
+        if (cacheNum == 0 || documents.isSortedRuleForIndex(cacheNum)) {
+          ResultCache cache = caches.get(cacheNum);
+          int nPara = cache.getNextParagraphWithErrors(nFPara);
+          if (nPara >= 0 && nPara < nextPara) {
+            nextPara = nPara;
+          }
+          nextPara = Math.min(nextPara, cache.getNextParagraphWithoutEntry(nFPara));
+        }
+      }
+      if (nextPara > nFPara) {
+        OfficeMetrics.add("checkDialog.skippedParagraphs", nextPara - nFPara);
+      }
+      return nextPara;
+    }
+
    /**
      * returns the next match
      * starting at the current cursor position
@@ -2542,13 +2665,20 @@ public class SpellAndGrammarCheckDialog extends Thread {
         } else {
           x = 0;
         }
-        int nStart = 0;
-        for (int i = lastPara; i < y && i < docCache.size(); i++) {
-          nStart += docCache.getFlatParagraph(i).length() + 1;
-        }
+        int nStart = endOfRange < 0 ? 0 : docCache.getFlatParagraphsLength(lastPara, y);
         checkProgress.setMaximum(endOfRange < 0 ? docCache.size() : endOfRange);
         CheckError nextError = null;
         while (y < docCache.size() && y >= lastPara && nextError == null && (endOfRange < 0 || nStart < endOfRange)) {
+          int nextY = getNextCandidateParagraph(y, docCache.size());
+          if (nextY > y) {
+            //  paragraphs without errors are skipped (only the character offset is needed for a range)
+            if (endOfRange >= 0) {
+              nStart += docCache.getFlatParagraphsLength(y, nextY);
+            }
+            y = nextY;
+            x = 0;
+            continue;
+          }
           setProgressValue(endOfRange < 0 ? y - lastPara : nStart + (lastY == y ? lastX : 0), endOfRange < 0);
           nextError = getNextErrorInParagraph (x, y, currentDocument, docCursor, true);
           if(isDisposed) {
@@ -2592,6 +2722,11 @@ public class SpellAndGrammarCheckDialog extends Thread {
             y = 0;
           }
           while (y < lastPara) {
+            int nextY = getNextCandidateParagraph(y, lastPara);
+            if (nextY > y) {
+              y = nextY;
+              continue;
+            }
             setProgressValue(docCache.size() + y - lastPara, true);
             nextError = getNextErrorInParagraph (0, y, currentDocument, docCursor, true);
             if(isDisposed) {
@@ -100,6 +100,19 @@ public class SwJLanguageTool {
     }
   }
   
+  /**
+   * constructor for tests: the check is done by the given remote LT
+   */
+  SwJLanguageTool(LORemoteLanguageTool rlt) {
+    this.rlt = rlt;
+    config = null;
+    isMultiThread = false;
+    isRemote = true;
+    doReset = false;
+    lt = null;
+    mlt = null;
+  }
+  
   /**
    * Return true if check is done by a remote server
    */
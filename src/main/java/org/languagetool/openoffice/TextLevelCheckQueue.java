@@ -62,14 +62,20 @@ public class TextLevelCheckQueue {
   private int numSinceHeapTest = 0;
 
   private static boolean debugMode = false;   //  should be false except for testing
-  private static boolean debugModeTm;         // time measurement should be false except for testing
   
   protected TextLevelCheckQueue(MultiDocumentsHandler multiDocumentsHandler) {
     multiDocHandler = multiDocumentsHandler;
 //    queueIterator = new QueueIterator();
 //    queueIterator.start();
     debugMode = OfficeTools.DEBUG_MODE_TQ;
-    debugModeTm = OfficeTools.DEBUG_MODE_TM;
+    OfficeMetrics.setGauge(getMetricsName() + ".depth", () -> textRuleQueue.size());
+  }
+  
+  /**
+   * name of the queue used as prefix for metrics
+   */
+  protected String getMetricsName() {
+    return "queue";
   }
  
  /**
@@ -407,6 +413,7 @@ public class TextLevelCheckQueue {
     public String docId;
     boolean overrideRunning;
     int special = TextLevelCheckQueue.NO_FLAG;
+    final long queuedTime = OfficeMetrics.startTime();  //  to measure the wait time in queue
     
     public QueueEntry(TextParagraph nStart, TextParagraph nEnd, int nCache, int nCheck, String docId, boolean overrideRunning) {
       this.nStart = nStart;
@@ -512,7 +519,7 @@ public class TextLevelCheckQueue {
     @Override
     public void run() {
       try {
-        long startTime = 0;
+        long startTime;
         queueRuns = true;
         if (debugMode) {
           MessageHandler.printToLogFile("TextLevelCheckQueue: run: queue started");
@@ -541,18 +548,12 @@ public class TextLevelCheckQueue {
               if (lastDocId != null) {
                 QueueEntry queueEntry = null;
                 try {
-                  if (debugModeTm) {
-                    startTime = System.currentTimeMillis();
-                  }
+                  startTime = OfficeMetrics.startTime();
                   if (!interruptCheck) {
                     queueEntry = getNextQueueEntry(lastStart, lastDocId);
                   }
-                  if (debugModeTm) {
-                    long runTime = System.currentTimeMillis() - startTime;
-                    if (runTime > OfficeTools.TIME_TOLERANCE) {
-                      MessageHandler.printToLogFile("Time to run Text Level Check Queue (get Next Queue Entry): " + runTime);
-                    }
-                  }
+                  OfficeMetrics.recordTime(getMetricsName() + ".nextEntry.time", startTime, 
+                      "Time to run Text Level Check Queue (get Next Queue Entry): ");
                 } catch (Throwable e) {
                   //  there may be exceptions because of timing problems
                   //  catch them and write to log file but don't stop the queue
@@ -641,9 +642,8 @@ public class TextLevelCheckQueue {
                 }
               }
               try {
-                if (debugModeTm) {
-                  startTime = System.currentTimeMillis();
-                }
+                OfficeMetrics.recordTime(getMetricsName() + "." + queueEntry.nCache + ".wait.time", queueEntry.queuedTime);
+                startTime = OfficeMetrics.startTime();
                 Language entryLanguage = null;
                 if (!interruptCheck) {
                   entryLanguage = getLanguage(queueEntry.docId, queueEntry.nStart);
@@ -681,13 +681,9 @@ public class TextLevelCheckQueue {
                   numCheck++;
                   runQueueEntry(queueEntry, multiDocHandler, entryLanguage == null ? null : lt);
                 }
+                OfficeMetrics.recordTime(getMetricsName() + "." + queueEntry.nCache + ".run.time", startTime, 
+                    "Time to run Text Level Check Queue (run Queue Entry): ");
                 queueEntry = null;
-                if (debugModeTm) {
-                  long runTime = System.currentTimeMillis() - startTime;
-                  if (runTime > OfficeTools.TIME_TOLERANCE) {
-                    MessageHandler.printToLogFile("Time to run Text Level Check Queue (run Queue Entry): " + runTime);
-                  }
-                }
               } catch (Throwable e) {
                 //  there may be exceptions because of timing problems
                 //  catch them and write to log file but don't stop the queue
@@ -79,6 +79,15 @@ public class ViewCursorTools {
    */
   @Nullable
   public XTextViewCursor getViewCursor() {
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
+    return getTextViewCursor();
+  }
+
+  /** 
+   * Returns the view cursor (used inside of the class: not counted as call of the tools)
+   */
+  @Nullable
+  private XTextViewCursor getTextViewCursor() {
     isBusy++;
     try {
       XModel xModel = UnoRuntime.queryInterface(XModel.class, xComponent);
@@ -110,7 +119,7 @@ public class ViewCursorTools {
   private XTextCursor getTextCursorFromViewCursor(boolean getEnd) {
     isBusy++;
     try {
-      XTextViewCursor vCursor = getViewCursor();
+      XTextViewCursor vCursor = getTextViewCursor();
       if (vCursor == null) {
         return null;
       }
@@ -253,6 +262,14 @@ public class ViewCursorTools {
    * Returns null if method fails
    */
   XParagraphCursor getParagraphCursorFromViewCursor() {
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
+    return getParagraphCursor();
+  }
+
+  /** 
+   * Returns a Paragraph cursor from ViewCursor (used inside of the class: not counted as call of the tools)
+   */
+  private XParagraphCursor getParagraphCursor() {
     isBusy++;
     try {
       XTextCursor xTextCursor = getTextCursorFromViewCursor(false);
@@ -275,8 +292,9 @@ public class ViewCursorTools {
    */
   public String getViewCursorParagraphText() {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
     try {
-      XParagraphCursor xParagraphCursor = getParagraphCursorFromViewCursor();
+      XParagraphCursor xParagraphCursor = getParagraphCursor();
       if (xParagraphCursor == null) {
         return null;
       }
@@ -297,7 +315,7 @@ public class ViewCursorTools {
    */
   public String getAndSelectViewCursorParagraph() {
     try {
-      XTextViewCursor xVCursor = getViewCursor();
+      XTextViewCursor xVCursor = getTextViewCursor();
       if (xVCursor == null) {
         MessageHandler.printToLogFile("xVCursor == null");
         return null;
@@ -326,15 +344,16 @@ public class ViewCursorTools {
    */
   void setViewCursorSelection(short from, short length) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
     try {
-      XParagraphCursor xParagraphCursor = getParagraphCursorFromViewCursor();
+      XParagraphCursor xParagraphCursor = getParagraphCursor();
       if (xParagraphCursor == null) {
         return;
       }
       xParagraphCursor.collapseToStart();
       xParagraphCursor.gotoStartOfParagraph(true);
       short toStart = (short) xParagraphCursor.getString().length();
-      XTextViewCursor xVCursor = getViewCursor();
+      XTextViewCursor xVCursor = getTextViewCursor();
       xVCursor.goLeft(toStart, false);
       xVCursor.goRight(from, false);
       xVCursor.goRight(length, true);
@@ -350,8 +369,9 @@ public class ViewCursorTools {
    */
   public void setViewCursorParagraphText(int nStart, int nLength, String replace) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
     try {
-      XParagraphCursor xParagraphCursor = getParagraphCursorFromViewCursor();
+      XParagraphCursor xParagraphCursor = getParagraphCursor();
       if (xParagraphCursor == null) {
         return;
       }
@@ -374,6 +394,7 @@ public class ViewCursorTools {
    */
   public void insertText(String text, boolean override) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
     try {
       if (text != null && xComponent != null) {
         XTextDocument curDoc = UnoRuntime.queryInterface(XTextDocument.class, xComponent);
@@ -384,7 +405,7 @@ public class ViewCursorTools {
         if (xText == null) {
           return;
         }
-        XTextViewCursor xVCursor = getViewCursor();
+        XTextViewCursor xVCursor = getTextViewCursor();
         if (xVCursor == null) {
           MessageHandler.printToLogFile("ViewCursorTool: insertText: xVCursor == null");
           return;
@@ -445,8 +466,9 @@ public class ViewCursorTools {
    */
   public TextParagraph getViewCursorParagraph() {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
     try {
-      XTextViewCursor vCursor = getViewCursor();
+      XTextViewCursor vCursor = getTextViewCursor();
       if (vCursor == null) {
         return new TextParagraph(DocumentCache.CURSOR_TYPE_UNKNOWN, -1);
       }
@@ -648,8 +670,9 @@ public class ViewCursorTools {
    */
   int getViewCursorCharacter() {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
     try {
-      XParagraphCursor xParagraphCursor = getParagraphCursorFromViewCursor();
+      XParagraphCursor xParagraphCursor = getParagraphCursor();
       if (xParagraphCursor == null) {
         return -1;
       }
@@ -670,8 +693,9 @@ public class ViewCursorTools {
    */
   String getViewCursorSelectedArea() {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
     try {
-      XTextViewCursor vCursor = getViewCursor();
+      XTextViewCursor vCursor = getTextViewCursor();
       if (vCursor == null) {
         return null;
       }
@@ -736,8 +760,9 @@ public class ViewCursorTools {
    */
   public void setViewCursorToHeaderFooter(int xChar, int numPara) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
     try {
-      XTextViewCursor vCursor = getViewCursor();
+      XTextViewCursor vCursor = getTextViewCursor();
       if (vCursor != null) {
         List<XPropertySet> xPagePropertySets = getPagePropertySets();
         int nLastPara = 0;
@@ -779,6 +804,14 @@ public class ViewCursorTools {
    * Returns the Index Access to all tables of a document
    */
   public XIndexAccess getIndexAccessOfAllTables() {
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
+    return getTablesIndexAccess();
+  }
+
+  /** 
+   * Returns the Index Access to all tables (used inside of the class: not counted as call of the tools)
+   */
+  private XIndexAccess getTablesIndexAccess() {
     isBusy++;
     try {
       XTextDocument curDoc = getTextDocument();
@@ -802,10 +835,11 @@ public class ViewCursorTools {
    */
   public void setViewCursorToParagraphOfTable(int xChar, int numPara) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
     try {
-      XTextViewCursor vCursor = getViewCursor();
+      XTextViewCursor vCursor = getTextViewCursor();
       if (vCursor != null) {
-        XIndexAccess xTables = getIndexAccessOfAllTables();
+        XIndexAccess xTables = getTablesIndexAccess();
         if (xTables == null) {
           return;
         }
@@ -834,8 +868,9 @@ public class ViewCursorTools {
    */
   public void setViewCursorToParagraphOfFootnote(int xChar, int numPara) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
     try {
-      XTextViewCursor vCursor = getViewCursor();
+      XTextViewCursor vCursor = getTextViewCursor();
       if (vCursor != null) {
         XTextDocument curDoc = getTextDocument();
         if (curDoc == null) {
@@ -866,8 +901,9 @@ public class ViewCursorTools {
    */
   public void setViewCursorToParagraphOfEndnote(int xChar, int numPara) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
     try {
-      XTextViewCursor vCursor = getViewCursor();
+      XTextViewCursor vCursor = getTextViewCursor();
       if (vCursor != null) {
         XTextDocument curDoc = getTextDocument();
         if (curDoc == null) {
@@ -898,8 +934,9 @@ public class ViewCursorTools {
    */
   public void setViewCursorToParagraphOfShape(int xChar, int numPara) {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
     try {
-      XTextViewCursor vCursor = getViewCursor();
+      XTextViewCursor vCursor = getTextViewCursor();
       if (vCursor != null) {
         XTextDocument curDoc = getTextDocument();
         if (curDoc == null) {
@@ -943,8 +980,9 @@ public class ViewCursorTools {
    */
   public void setDocumentTextViewCursor(int xChar, int paraNum)  {
     isBusy++;
+    OfficeMetrics.increment(OfficeMetrics.TOOLS_VIEW_CURSOR);
     try {
-      XTextViewCursor vCursor = getViewCursor();
+      XTextViewCursor vCursor = getTextViewCursor();
       if (vCursor != null) {
         XTextDocument curDoc = getTextDocument();
         XText xText = curDoc.getText();
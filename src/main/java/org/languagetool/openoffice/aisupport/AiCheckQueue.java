@@ -18,12 +18,14 @@
  */
 package org.languagetool.openoffice.aisupport;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.languagetool.Language;
 import org.languagetool.openoffice.MessageHandler;
 import org.languagetool.openoffice.MultiDocumentsHandler;
 import org.languagetool.openoffice.OfficeTools;
+import org.languagetool.openoffice.ResultCache;
 import org.languagetool.openoffice.SingleDocument;
 import org.languagetool.openoffice.SwJLanguageTool;
 import org.languagetool.openoffice.TextLevelCheckQueue;
@@ -34,6 +36,8 @@ import org.languagetool.openoffice.FlatParagraphTools;
 import org.languagetool.openoffice.DocumentCache.TextParagraph;
 import org.languagetool.openoffice.OfficeTools.DocumentType;
 
+import com.sun.star.lang.Locale;
+
 /**
  * Class of a queue to handle check of AI error detection
  * @since 6.5
@@ -41,6 +45,9 @@ import org.languagetool.openoffice.OfficeTools.DocumentType;
  */
 public class AiCheckQueue extends TextLevelCheckQueue {
 
+  private static final int MAX_BATCH_PARAGRAPHS = 8;      //  maximal number of paragraphs checked by one request
+  private static final int MAX_BATCH_LENGTH = 1500;       //  maximal number of characters checked by one request
+
   private boolean debugMode = OfficeTools.DEBUG_MODE_AI;   //  should be false except for testing
 
   public AiCheckQueue(MultiDocumentsHandler multiDocumentsHandler) {
@@ -91,6 +98,14 @@ public class AiCheckQueue extends TextLevelCheckQueue {
      wakeupQueue();
    }
   
+  /**
+   * name of the queue used as prefix for metrics
+   */
+  @Override
+  protected String getMetricsName() {
+    return "aiQueue";
+  }
+  
    /**
     *  get an entry for the next unchecked paragraphs
     */
@@ -164,7 +179,59 @@ public class AiCheckQueue extends TextLevelCheckQueue {
               + ", nFPara = " + nFPara);
         }
         AiErrorDetection aiError = new AiErrorDetection(document, multiDocHandler.getConfiguration(), lt);
-        aiError.addAiRuleMatchesForParagraph(nFPara);
+        List<Integer> nFParas = getBatchParagraphs(document, docCache, nFPara);
+        if (debugMode && nFParas.size() > 1) {
+          MessageHandler.printToLogFile("AiCheckQueue: runQueueEntry: check " + nFParas.size() + " paragraphs by one request");
+        }
+        aiError.addAiRuleMatchesForParagraphs(nFParas);
+        if (nFParas.size() > 1) {
+          removeBatchedEntries(nFParas.subList(1, nFParas.size()), docCache, qEntry.docId);
+        }
+      }
+    }
+  }
+  
+  /**
+   * get the paragraph of the queue entry and the following unchecked paragraphs of the same language,
+   * which are checked together by one request
+   */
+  private List<Integer> getBatchParagraphs(SingleDocument document, DocumentCache docCache, int nFPara) {
+    List<Integer> nFParas = new ArrayList<>();
+    nFParas.add(nFPara);
+    if (nFPara < 0 || !docCache.isFinished()) {
+      return nFParas;
+    }
+    String paraText = docCache.getFlatParagraph(nFPara);
+    Locale locale = docCache.getFlatParagraphLocale(nFPara);
+    if (paraText == null || locale == null) {
+      return nFParas;
+    }
+    ResultCache aiCache = document.getParagraphsCache().get(OfficeTools.CACHE_AI);
+    int length = paraText.length();
+    for (int i = nFPara + 1; i < docCache.size() && nFParas.size() < MAX_BATCH_PARAGRAPHS; i++) {
+      paraText = docCache.getFlatParagraph(i);
+      Locale paraLocale = docCache.getFlatParagraphLocale(i);
+      if (aiCache.getCacheEntry(i) != null || paraText == null || paraLocale == null 
+          || !locale.Language.equals(paraLocale.Language) || !locale.Country.equals(paraLocale.Country)
+          || length + paraText.length() > MAX_BATCH_LENGTH) {
+        break;
+      }
+      length += paraText.length();
+      nFParas.add(i);
+    }
+    return nFParas;
+  }
+  
+  /**
+   * remove the queue entries of paragraphs already checked by a batch
+   */
+  private void removeBatchedEntries(List<Integer> nFParas, DocumentCache docCache, String docId) {
+    synchronized(textRuleQueue) {
+      for (int nFPara : nFParas) {
+        TextParagraph nTPara = docCache.getNumberOfTextParagraph(nFPara);
+        if (nTPara != null) {
+          textRuleQueue.remove(new QueueEntry(nTPara, nTPara, OfficeTools.CACHE_AI, 0, docId, false));
+        }
       }
     }
   }
@@ -21,8 +21,11 @@ package org.languagetool.openoffice.aisupport;
 import java.awt.Color;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.regex.Pattern;
 
@@ -54,6 +57,7 @@ public class AiDetectionRule extends TextLevelRule {
   private static final Pattern SINGLE_QUOTES = Pattern.compile("[‚‘’'›‹]");
   private static final Pattern PUNCTUATION = Pattern.compile("[,.!?:]");
   private static final Pattern OPENING_BRACKETS = Pattern.compile("[{(\\[]");
+  private static final String QUOTE_KEY = "\"";       //  index key of all quotes
 
   private boolean debugMode = OfficeTools.DEBUG_MODE_AI;   //  should be false except for testing
 
@@ -89,7 +93,7 @@ public class AiDetectionRule extends TextLevelRule {
 
   }
   
-  private boolean isIgnoredToken(String paraToken, String resultToken) {
+  static boolean isIgnoredToken(String paraToken, String resultToken) {
 /*
     if (resultToken.equals("\"")) {
       return QUOTES.matcher(paraToken).matches();
@@ -111,10 +115,88 @@ public class AiDetectionRule extends TextLevelRule {
     return false;
   }
 
-  private boolean isQuote(String token) {
+  private static boolean isQuote(String token) {
     return (QUOTES.matcher(token).matches() || SINGLE_QUOTES.matcher(token).matches());
   }
 
+  /**
+   * key of a result token in the token index: all quotes are equivalent (see isIgnoredToken)
+   */
+  private static String getIndexKey(String resultToken) {
+    return isQuote(resultToken) ? QUOTE_KEY : resultToken;
+  }
+
+  /**
+   * Index of the positions of all result tokens (ascending)
+   */
+  static Map<String, List<Integer>> getTokenIndex(List<AiToken> resultTokens) {
+    Map<String, List<Integer>> resultIndex = new HashMap<>();
+    for (int j = 0; j < resultTokens.size(); j++) {
+      resultIndex.computeIfAbsent(getIndexKey(resultTokens.get(j).token), k -> new ArrayList<>()).add(j);
+    }
+    return resultIndex;
+  }
+
+  /**
+   * Find the next pair of equal (or ignored) tokens behind a difference at paragraph token i and result token j
+   * The pair with the smallest distance n = max(i1 - i, j1 - j) is taken; if there is more than one,
+   * the one with the highest i1 and then the highest j1 (same order as a search of growing squares)
+   * The square must lie inside both token lists. Returns null if there is no such pair.
+   * Uses the token index: runs in O(n log m) instead of O(n^3) for a search of all squares
+   */
+  static int[] findNextSyncPosition(List<AiToken> paraTokens, List<AiToken> resultTokens, 
+      Map<String, List<Integer>> resultIndex, int i, int j) {
+    int maxN = Math.min(paraTokens.size() - 1 - i, resultTokens.size() - 1 - j);
+    int bestN = maxN + 1;
+    int bestI = -1;
+    int bestJ = -1;
+    for (int i1 = i; i1 - i <= bestN && i1 - i <= maxN; i1++) {
+      int d = i1 - i;
+      String paraToken = paraTokens.get(i1).token;
+      for (String key : getParaTokenKeys(paraToken)) {
+        List<Integer> positions = resultIndex.get(key);
+        if (positions == null) {
+          continue;
+        }
+        //  highest position <= j + d gives distance d; else lowest position > j + d gives distance j1 - j
+        int n = Collections.binarySearch(positions, j + d);
+        int j1 = -1;
+        if (n < 0) {
+          n = -n - 1;
+          if (n > 0 && positions.get(n - 1) >= j) {
+            j1 = positions.get(n - 1);
+          } else if (n < positions.size()) {
+            j1 = positions.get(n);
+          }
+        } else {
+          j1 = positions.get(n);
+        }
+        if (j1 < j || (i1 == i && j1 == j)) {
+          continue;
+        }
+        int dist = Math.max(d, j1 - j);
+        if (dist <= maxN && (dist < bestN || (dist == bestN && (i1 > bestI || (i1 == bestI && j1 > bestJ))))) {
+          bestN = dist;
+          bestI = i1;
+          bestJ = j1;
+        }
+      }
+    }
+    return bestI < 0 ? null : new int[] { bestI, bestJ };
+  }
+
+  /**
+   * keys of the result tokens which are equal to a paragraph token or ignored (see isIgnoredToken)
+   */
+  private static List<String> getParaTokenKeys(String paraToken) {
+    if (isQuote(paraToken)) {
+      return Collections.singletonList(QUOTE_KEY);
+    } else if (paraToken.equals("–")) {
+      return Arrays.asList(paraToken, "-");
+    }
+    return Collections.singletonList(paraToken);
+  }
+
   @Override
   public RuleMatch[] match(List<AnalyzedSentence> sentences) throws IOException {
     List<RuleMatch> matches = new ArrayList<>();
@@ -148,6 +230,7 @@ public class AiDetectionRule extends TextLevelRule {
       }
       pos += sentence.getCorrectedTextLength();
     }
+    Map<String, List<Integer>> resultIndex = getTokenIndex(resultTokens);
     int i;
     int j = 0;
     for (i = 0; i < paraTokens.size() && j < resultTokens.size(); i++) {
@@ -168,60 +251,55 @@ public class AiDetectionRule extends TextLevelRule {
         String suggestion = null;
         AiToken singleWordToken = null;
         boolean endFound = false;
-        for (int n = 1; !endFound && i + n < paraTokens.size() && j + n < resultTokens.size(); n++) {
-          for (int i1 = i + n; !endFound && i1 >= i; i1--) {
-            for(int j1 = j + n; j1 >= j; j1--) {
-              if (paraTokens.get(i1).token.equals(resultTokens.get(j1).token) 
-                  || isIgnoredToken(paraTokens.get(i1).token, resultTokens.get(j1).token)) {
-                endFound = true;
-                if (i1 - 1 < i) {
-                  if (i > 0) {
-                    posStart = paraTokens.get(i - 1).startPos;
-                    posEnd = paraTokens.get(i1 - 1).endPos;
-                    sugStart = resultTokens.get(j - 1).startPos;
-                    sugEnd = resultTokens.get(j1 - 1).endPos;
-                    singleWordToken = j == j1 ? resultTokens.get(j1 - 1) : null;
-                  } else {
-                    posEnd = paraTokens.get(i1).endPos;
-                    if (j < 1) {
-                      j = 1;
-                    }
-                    if (j1 < 0) {
-                      j1 = 0;
-                    }
-                    sugStart = resultTokens.get(j - 1).startPos;
-                    sugEnd = resultTokens.get(j1).endPos;
-                    singleWordToken = j - 1 == j1 ? resultTokens.get(j1) : null;
-                  }
-                } else {
-                  posEnd = paraTokens.get(i1 - 1).endPos;
-                  if (j < 0) {
-                    j = 0;
-                  }
-                  if (j1 < 1) {
-                    j1 = 1;
-                  }
-                  if (j <= j1 - 1) {
-                    sugStart = resultTokens.get(j).startPos;
-                    sugEnd = resultTokens.get(j1 - 1).endPos;
-                    singleWordToken = j == j1 - 1 ? resultTokens.get(j) : null;
-                  } else {
-                    if (i > 0 && !PUNCTUATION.matcher(paraTokens.get(i - 1).token).matches()) {
-                      posStart = paraTokens.get(i - 1).endPos;
-                    } else {
-                      posEnd = paraTokens.get(i1).startPos;
-                    }
-                    sugStart = resultTokens.get(j1).endPos;
-                    sugEnd = resultTokens.get(j1).endPos;
-                  }
-                }
-                nSenTokens += (i1 - i + 1);
-                j = j1;
-                i = i1;
-                break;
+        int[] syncPos = findNextSyncPosition(paraTokens, resultTokens, resultIndex, i, j);
+        if (syncPos != null) {
+          int i1 = syncPos[0];
+          int j1 = syncPos[1];
+          endFound = true;
+          if (i1 - 1 < i) {
+            if (i > 0) {
+              posStart = paraTokens.get(i - 1).startPos;
+              posEnd = paraTokens.get(i1 - 1).endPos;
+              sugStart = resultTokens.get(j - 1).startPos;
+              sugEnd = resultTokens.get(j1 - 1).endPos;
+              singleWordToken = j == j1 ? resultTokens.get(j1 - 1) : null;
+            } else {
+              posEnd = paraTokens.get(i1).endPos;
+              if (j < 1) {
+                j = 1;
+              }
+              if (j1 < 0) {
+                j1 = 0;
+              }
+              sugStart = resultTokens.get(j - 1).startPos;
+              sugEnd = resultTokens.get(j1).endPos;
+              singleWordToken = j - 1 == j1 ? resultTokens.get(j1) : null;
+            }
+          } else {
+            posEnd = paraTokens.get(i1 - 1).endPos;
+            if (j < 0) {
+              j = 0;
+            }
+            if (j1 < 1) {
+              j1 = 1;
+            }
+            if (j <= j1 - 1) {
+              sugStart = resultTokens.get(j).startPos;
+              sugEnd = resultTokens.get(j1 - 1).endPos;
+              singleWordToken = j == j1 - 1 ? resultTokens.get(j) : null;
+            } else {
+              if (i > 0 && !PUNCTUATION.matcher(paraTokens.get(i - 1).token).matches()) {
+                posStart = paraTokens.get(i - 1).endPos;
+              } else {
+                posEnd = paraTokens.get(i1).startPos;
               }
+              sugStart = resultTokens.get(j1).endPos;
+              sugEnd = resultTokens.get(j1).endPos;
             }
           }
+          nSenTokens += (i1 - i + 1);
+          j = j1;
+          i = i1;
         }
         if (!endFound) {
           posEnd = paraTokens.get(paraTokens.size() - 1).endPos;
@@ -51,6 +51,7 @@ import javax.swing.JPanel;
 import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
 import javax.swing.ToolTipManager;
 
 import org.languagetool.gui.Configuration;
@@ -118,6 +119,7 @@ public class AiDialog extends Thread implements ActionListener {
   private String resultText;
   private Locale locale;
   private boolean atWork;
+  private volatile boolean isCanceled;
   private boolean focusLost;
 
   /**
@@ -623,7 +625,8 @@ public class AiDialog extends Thread implements ActionListener {
     instruction.setEnabled(!work);
     paragraph.setEnabled(!work);
     result.setEnabled(!work);
-    execute.setEnabled(!work);
+    execute.setEnabled(true);       //  cancels the request while at work
+    execute.setText(messages.getString(work ? "guiCancelButton" : "loAiDialogExecuteButton"));
     copyResult.setEnabled(!work);
     reset.setEnabled(!work);
     clear.setEnabled(!work);
@@ -634,7 +637,6 @@ public class AiDialog extends Thread implements ActionListener {
     close.setEnabled(true);
     contentPane.revalidate();
     contentPane.repaint();
-    dialog.setEnabled(!work);
     atWork = work;
   }
   
@@ -662,22 +664,52 @@ public class AiDialog extends Thread implements ActionListener {
       }
       String text = paragraph.getText();
       setAtWorkButtonState(true);
+      isCanceled = false;
+      //  the request runs in its own thread, so that the partial answer can be shown and the request can be canceled
+      Thread aiThread = new Thread(() -> runInstruction(instructionText, text));
+      aiThread.setName("AiDialogRequest");
+      aiThread.start();
+    } catch (Throwable t) {
+      MessageHandler.showError(t);
+      closeDialog();
+      setAtWorkButtonState(false);
+    }
+  }
+  
+  /**
+   * run the AI request and show the answer while it is generated
+   */
+  private void runInstruction(String instructionText, String text) {
+    try {
       AiRemote aiRemote = new AiRemote(config);
       if (debugMode) {
         MessageHandler.printToLogFile("AiParagraphChanging: runInstruction: instruction: " + instructionText + ", text: " + text);
       }
-      String output = aiRemote.runInstruction(instructionText, text, locale, false);
+      StringBuilder partialOutput = new StringBuilder();
+      String output = aiRemote.runInstruction(instructionText, text, locale, false, false, token -> {
+        partialOutput.append(token);
+        String partialText = partialOutput.toString();
+        SwingUtilities.invokeLater(() -> result.setText(partialText));
+        return !isCanceled;
+      });
       if (debugMode) {
         MessageHandler.printToLogFile("AiParagraphChanging: runAiChangeOnParagraph: output: " + output);
       }
-      result.setEnabled(true);
-      result.setText(output);
-      resultText = output;
+      SwingUtilities.invokeLater(() -> {
+        if (output != null) {
+          result.setEnabled(true);
+          result.setText(output);
+          resultText = output;
+        }
+        setAtWorkButtonState(false);
+      });
     } catch (Throwable t) {
       MessageHandler.showError(t);
-      closeDialog();
+      SwingUtilities.invokeLater(() -> {
+        closeDialog();
+        setAtWorkButtonState(false);
+      });
     }
-    setAtWorkButtonState(false);
   }
 
   /**
@@ -685,7 +717,15 @@ public class AiDialog extends Thread implements ActionListener {
    */
   @Override
   public void actionPerformed(ActionEvent action) {
-    if (!atWork) {
+    if (atWork) {
+      //  cancel a running request
+      if (action.getActionCommand().equals("execute") || action.getActionCommand().equals("close")) {
+        isCanceled = true;
+        if (action.getActionCommand().equals("close")) {
+          closeDialog();
+        }
+      }
+    } else {
       try {
         if (debugMode) {
           MessageHandler.printToLogFile("CheckDialog: actionPerformed: Action: " + action.getActionCommand());
@@ -19,8 +19,13 @@
 package org.languagetool.openoffice.aisupport;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.JLanguageTool;
@@ -29,6 +34,7 @@ import org.languagetool.gui.Configuration;
 import org.languagetool.openoffice.DocumentCache;
 import org.languagetool.openoffice.MessageHandler;
 import org.languagetool.openoffice.MultiDocumentsHandler;
+import org.languagetool.openoffice.OfficeMetrics;
 import org.languagetool.openoffice.OfficeTools;
 import org.languagetool.openoffice.ResultCache;
 import org.languagetool.openoffice.SingleCheck;
@@ -56,6 +62,18 @@ public class AiErrorDetection {
   private final Configuration config;
   private final SwJLanguageTool lt;
 //  private final int minParaLength = (int) (AiRemote.CORRECT_INSTRUCTION.length() * 1.2);
+  private static final String BATCH_INSTRUCTION = ". The text contains several paragraphs, each of them starts with a marker "
+      + "like [[1]]. Keep every marker unchanged at the beginning of the corrected paragraph";
+  private static final Pattern BATCH_MARKER = Pattern.compile("\\[\\[(\\d+)\\]\\]");
+  private static final int MAX_SENTENCE_RESULTS = 5000;    //  maximal number of stored AI results of sentences
+  //  AI results of single sentences (key: hash of sentence and AI configuration), least recently used are removed
+  private static final Map<String, String> sentenceResults = new LinkedHashMap<String, String>(256, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+      return size() > MAX_SENTENCE_RESULTS;
+    }
+  };
   private static String lastLanguage = null;
   private static String correctCommand = null;
   
@@ -95,11 +113,7 @@ public class AiErrorDetection {
         return;
       }
       Locale locale = docCache.getFlatParagraphLocale(nFPara);
-      if (lastLanguage == null || !lastLanguage.equals(locale.Language)) {
-        lastLanguage = new String(locale.Language);
-        correctCommand = AiRemote.getInstruction(AiRemote.CORRECT_INSTRUCTION, locale);
-//        MessageHandler.printToLogFile("AiErrorDetection: addAiRuleMatchesForParagraph: correctCommand: " + correctCommand);
-      }
+      setCorrectCommand(locale);
       RuleMatch[] ruleMatches = getAiRuleMatchesForParagraph(nFPara, paraText, locale, footnotePos, deletedChars);
       if (debugMode && ruleMatches != null) {
         MessageHandler.printToLogFile("AiErrorDetection: addAiRuleMatchesForParagraph: nFPara: " + nFPara + ", rulematches: " + ruleMatches.length);
@@ -110,6 +124,134 @@ public class AiErrorDetection {
     }
   }
 
+  /**
+   * check several paragraphs of the same language by one request to the AI
+   * every paragraph is marked by a numbered marker; if the markers of the answer are damaged,
+   * the paragraphs are checked one by one
+   */
+  public void addAiRuleMatchesForParagraphs(List<Integer> nFParas) {
+    if (docCache == null || nFParas == null || nFParas.isEmpty()) {
+      return;
+    }
+    if (nFParas.size() == 1) {
+      addAiRuleMatchesForParagraph(nFParas.get(0));
+      return;
+    }
+    try {
+      List<Integer> batchParas = new ArrayList<>();
+      List<String> batchTexts = new ArrayList<>();
+      List<List<AnalyzedSentence>> batchSentences = new ArrayList<>();
+      List<Integer> singleParas = new ArrayList<>();
+      Locale locale = null;
+      for (int nFPara : nFParas) {
+        String paraText = docCache.getFlatParagraph(nFPara);
+        if (paraText == null || paraText.trim().isEmpty()) {
+          addMatchesByAiRule(nFPara, null, docCache.getFlatParagraphFootnotes(nFPara), 
+              docCache.getFlatParagraphDeletedCharacters(nFPara));
+          continue;
+        }
+        if (locale == null) {
+          locale = docCache.getFlatParagraphLocale(nFPara);
+          setCorrectCommand(locale);
+        }
+        paraText = DocumentCache.fixLinebreak(SingleCheck.removeFootnotes(paraText, 
+            docCache.getFlatParagraphFootnotes(nFPara), docCache.getFlatParagraphDeletedCharacters(nFPara)));
+        List<AnalyzedSentence> analyzedSentences = getAnalyzedParagraph(nFPara, paraText);
+        if (analyzedSentences != null && hasSentenceResults(analyzedSentences)) {
+          //  changed paragraph: only the changed sentences are sent
+          singleParas.add(nFPara);
+          continue;
+        }
+        batchParas.add(nFPara);
+        batchTexts.add(paraText);
+        batchSentences.add(analyzedSentences);
+      }
+      for (int nFPara : singleParas) {
+        addAiRuleMatchesForParagraph(nFPara);
+      }
+      if (batchParas.size() < 2) {
+        for (int nFPara : batchParas) {
+          addAiRuleMatchesForParagraph(nFPara);
+        }
+        return;
+      }
+      AiRemote aiRemote = new AiRemote(config);
+      String result = aiRemote.runInstruction(correctCommand + BATCH_INSTRUCTION, getBatchText(batchTexts), locale, false, true);
+      List<String> results = result == null ? null : splitBatchResult(result, batchTexts.size());
+      OfficeMetrics.increment("aiBatch.requests");
+      if (results == null) {
+        if (debugMode) {
+          MessageHandler.printToLogFile("AiErrorDetection: addAiRuleMatchesForParagraphs: markers damaged: check paragraphs one by one");
+        }
+        OfficeMetrics.increment("aiBatch.fallbacks");
+        for (int nFPara : batchParas) {
+          addAiRuleMatchesForParagraph(nFPara);
+        }
+        return;
+      }
+      OfficeMetrics.add("aiBatch.paragraphs", batchParas.size());
+      for (int i = 0; i < batchParas.size(); i++) {
+        int nFPara = batchParas.get(i);
+        int[] footnotePos = docCache.getFlatParagraphFootnotes(nFPara);
+        List<Integer> deletedChars = docCache.getFlatParagraphDeletedCharacters(nFPara);
+        RuleMatch[] ruleMatches = null;
+        List<AnalyzedSentence> analyzedSentences = batchSentences.get(i);
+        if (analyzedSentences != null) {
+          ruleMatches = getMatchesForAiResult(results.get(i), batchTexts.get(i), analyzedSentences, locale);
+        }
+        addMatchesByAiRule(nFPara, ruleMatches, footnotePos, deletedChars);
+      }
+    } catch (Throwable t) {
+      MessageHandler.showError(t);
+    }
+  }
+
+  /**
+   * text of a batch: every paragraph starts with a marker [[n]] (n = 1, 2, ...)
+   */
+  static String getBatchText(List<String> paraTexts) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < paraTexts.size(); i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      sb.append("[[").append(i + 1).append("]] ").append(paraTexts.get(i));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * split the answer to a batch into the corrected paragraphs
+   * returns null if the markers are damaged (not all markers are found exactly once in ascending order)
+   * or if a paragraph is missing
+   */
+  static List<String> splitBatchResult(String result, int nParas) {
+    Matcher matcher = BATCH_MARKER.matcher(result);
+    List<String> results = new ArrayList<>();
+    int lastEnd = -1;
+    while (matcher.find()) {
+      if (Integer.parseInt(matcher.group(1)) != results.size() + 1 || results.size() >= nParas
+          || (lastEnd < 0 && !result.substring(0, matcher.start()).trim().isEmpty())) {
+        return null;
+      }
+      if (lastEnd >= 0) {
+        results.set(results.size() - 1, result.substring(lastEnd, matcher.start()).trim());
+      }
+      results.add("");
+      lastEnd = matcher.end();
+    }
+    if (results.size() != nParas) {
+      return null;
+    }
+    results.set(nParas - 1, result.substring(lastEnd).trim());
+    for (String paraResult : results) {
+      if (paraResult.isEmpty()) {
+        return null;
+      }
+    }
+    return results;
+  }
+
   public void addAiRuleMatchesForParagraph(String paraText, Locale locale, int[] footnotePos, List<Integer> deletedChars) {
     try {
       RuleMatch[] ruleMatches = getAiRuleMatchesForParagraph(-1, paraText, locale, footnotePos, deletedChars);
@@ -144,10 +286,20 @@ public class AiErrorDetection {
     }
     paraText = DocumentCache.fixLinebreak(SingleCheck.removeFootnotes(paraText, 
         footnotePos, deletedChars));
-    List<AnalyzedSentence> analyzedSentences;
     if (nFPara < 0) {
       paraText = DocumentCache.fixLinebreak(SingleCheck.removeFootnotes(paraText, 
           footnotePos, deletedChars));
+    }
+    List<AnalyzedSentence> analyzedSentences = getAnalyzedParagraph(nFPara, paraText);
+    if (analyzedSentences == null) {
+      return null;
+    }
+    return getMatchesByAiRule(nFPara, paraText, analyzedSentences, locale, footnotePos, deletedChars);
+  }
+  
+  private List<AnalyzedSentence> getAnalyzedParagraph(int nFPara, String paraText) throws Throwable {
+    List<AnalyzedSentence> analyzedSentences;
+    if (nFPara < 0) {
       analyzedSentences =  lt.analyzeText(paraText.replace("\u00AD", ""));
     } else {
       analyzedSentences = docCache.getAnalyzedParagraph(nFPara);
@@ -158,15 +310,146 @@ public class AiErrorDetection {
         if (debugMode) {
           MessageHandler.printToLogFile("AiErrorDetection: getAiRuleMatchesForParagraph: analyzedSentences == null");
         }
-        return null;
       }
     }
-    return getMatchesByAiRule(nFPara, paraText, analyzedSentences, locale, footnotePos, deletedChars);
+    return analyzedSentences;
   }
     
   private RuleMatch[] getMatchesByAiRule(int nFPara, String paraText, List<AnalyzedSentence> analyzedSentences,
       Locale locale, int[] footnotePos, List<Integer> deletedChars) throws Throwable {
-    String result = getAiResult(paraText, locale);
+    String result = null;
+    if (analyzedSentences.size() > 1) {
+      result = getAiResultBySentences(analyzedSentences, locale);
+    }
+    if (result == null) {
+      result = getAiResult(paraText, locale);
+    }
+    return getMatchesForAiResult(result, paraText, analyzedSentences, locale);
+  }
+  
+  /**
+   * get the AI result of a paragraph from the results of its sentences
+   * only the sentences without a result (e.g. changed sentences) are sent to the AI
+   * returns null if no sentence of the paragraph has a result (the whole paragraph should be sent)
+   * or if the request of the changed sentences failed
+   */
+  private String getAiResultBySentences(List<AnalyzedSentence> analyzedSentences, Locale locale) throws Throwable {
+    List<String> sentenceTexts = new ArrayList<>();
+    List<String> results = new ArrayList<>();
+    List<Integer> nMissing = new ArrayList<>();
+    for (AnalyzedSentence sentence : analyzedSentences) {
+      String sentenceText = sentence.getText();
+      String result = sentenceText.trim().isEmpty() ? "" : getSentenceResult(sentenceText.trim());
+      if (result == null) {
+        nMissing.add(results.size());
+      }
+      sentenceTexts.add(sentenceText);
+      results.add(result);
+    }
+    if (nMissing.size() == results.size()) {
+      return null;
+    }
+    if (!nMissing.isEmpty()) {
+      if (debugMode) {
+        MessageHandler.printToLogFile("AiErrorDetection: getAiResultBySentences: request " + nMissing.size() 
+            + " of " + results.size() + " sentences");
+      }
+      OfficeMetrics.add("aiSentences.requested", nMissing.size());
+      AiRemote aiRemote = new AiRemote(config);
+      List<String> newResults;
+      if (nMissing.size() == 1) {
+        String result = aiRemote.runInstruction(correctCommand, sentenceTexts.get(nMissing.get(0)).trim(), locale, true, true);
+        newResults = result == null || result.trim().isEmpty() ? null : Collections.singletonList(result.trim());
+      } else {
+        List<String> missingTexts = new ArrayList<>();
+        for (int n : nMissing) {
+          missingTexts.add(sentenceTexts.get(n).trim());
+        }
+        String result = aiRemote.runInstruction(correctCommand + BATCH_INSTRUCTION, getBatchText(missingTexts), locale, false, true);
+        newResults = result == null ? null : splitBatchResult(result, missingTexts.size());
+      }
+      if (newResults == null) {
+        return null;
+      }
+      for (int i = 0; i < nMissing.size(); i++) {
+        results.set(nMissing.get(i), newResults.get(i));
+      }
+    }
+    return joinSentenceResults(sentenceTexts, results);
+  }
+  
+  /**
+   * join the results of the sentences of a paragraph
+   * the white spaces around the sentences are taken from the original sentences
+   */
+  static String joinSentenceResults(List<String> sentenceTexts, List<String> results) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < sentenceTexts.size(); i++) {
+      String sentenceText = sentenceTexts.get(i);
+      String trimmed = sentenceText.trim();
+      if (trimmed.isEmpty()) {
+        sb.append(sentenceText);
+        continue;
+      }
+      int start = sentenceText.indexOf(trimmed);
+      sb.append(sentenceText, 0, start).append(results.get(i)).append(sentenceText.substring(start + trimmed.length()));
+    }
+    return sb.toString();
+  }
+  
+  /**
+   * store the results of the single sentences of a paragraph
+   * only possible if the AI result has the same number of sentences as the paragraph
+   */
+  private void putSentenceResults(List<AnalyzedSentence> analyzedSentences, List<AnalyzedSentence> analyzedAiResult) {
+    if (analyzedSentences.size() < 2 || analyzedSentences.size() != analyzedAiResult.size()) {
+      return;
+    }
+    for (int i = 0; i < analyzedSentences.size(); i++) {
+      String sentenceText = analyzedSentences.get(i).getText().trim();
+      String result = analyzedAiResult.get(i).getText().trim();
+      if (!sentenceText.isEmpty() && !result.isEmpty()) {
+        synchronized (sentenceResults) {
+          sentenceResults.put(getSentenceKey(sentenceText), result);
+        }
+      }
+    }
+  }
+  
+  /**
+   * true if a sentence of a paragraph with more than one sentence has a stored result
+   */
+  private boolean hasSentenceResults(List<AnalyzedSentence> analyzedSentences) {
+    if (analyzedSentences.size() < 2) {
+      return false;
+    }
+    synchronized (sentenceResults) {
+      for (AnalyzedSentence sentence : analyzedSentences) {
+        String sentenceText = sentence.getText().trim();
+        if (!sentenceText.isEmpty() && sentenceResults.containsKey(getSentenceKey(sentenceText))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+  
+  private String getSentenceResult(String sentenceText) {
+    String result;
+    synchronized (sentenceResults) {
+      result = sentenceResults.get(getSentenceKey(sentenceText));
+    }
+    OfficeMetrics.countCacheAccess("aiSentenceCache", result != null);
+    return result;
+  }
+  
+  private String getSentenceKey(String sentenceText) {
+    //  the language is part of the (translated) correctCommand
+    return AiResponseCache.getKey(config.aiUrl(), config.aiModel(), correctCommand, AiRemote.CACHED_TEMPERATURE, null, sentenceText);
+  }
+  
+  private RuleMatch[] getMatchesForAiResult(String result, String paraText, List<AnalyzedSentence> analyzedSentences,
+      Locale locale) throws Throwable {
     if (result == null || result.trim().isEmpty()) {
       if (debugMode) {
         MessageHandler.printToLogFile("AiErrorDetection: getMatchesByAiRule: result: " + (result == null? "NULL" : "EMPTY"));
@@ -181,6 +464,7 @@ public class AiErrorDetection {
       startTime = System.currentTimeMillis();
     }
     List<AnalyzedSentence> analyzedAiResult =  lt.analyzeText(result.replace("\u00AD", ""));
+    putSentenceResults(analyzedSentences, analyzedAiResult);
     AiDetectionRule aiRule = new AiDetectionRule(result, paraText, analyzedAiResult, 
         document.getMultiDocumentsHandler().getLinguisticServices(), locale , messages, config.aiShowStylisticChanges());
     RuleMatch[] matches = aiRule.match(analyzedSentences);
@@ -219,6 +503,14 @@ public class AiErrorDetection {
     document.remarkChangedParagraphs(changedParas, changedParas, false);
   }
     
+  private static void setCorrectCommand(Locale locale) {
+    if (lastLanguage == null || !lastLanguage.equals(locale.Language)) {
+      lastLanguage = new String(locale.Language);
+      correctCommand = AiRemote.getInstruction(AiRemote.CORRECT_INSTRUCTION, locale);
+//        MessageHandler.printToLogFile("AiErrorDetection: addAiRuleMatchesForParagraph: correctCommand: " + correctCommand);
+    }
+  }
+    
   private String getAiResult(String para, Locale locale) throws Throwable {
     if (para == null || para.isEmpty()) {
       return "";
@@ -226,7 +518,7 @@ public class AiErrorDetection {
 //    String text = CORRECT_COMMAND + ": " + para;
 //    MessageHandler.showMessage("Input is: " + text);
     AiRemote aiRemote = new AiRemote(config);
-    String output = aiRemote.runInstruction(correctCommand, para, locale, true);
+    String output = aiRemote.runInstruction(correctCommand, para, locale, true, true);
 //    String output = aiRemote.runInstruction(AiRemote.CORRECT_INSTRUCTION, para, locale, true);
     return output;
   }
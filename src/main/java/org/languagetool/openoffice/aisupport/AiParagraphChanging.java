@@ -136,7 +136,15 @@ public class AiParagraphChanging extends Thread {
       if (debugMode) {
         MessageHandler.printToLogFile("AiParagraphChanging: runInstruction: instruction: " + instruction + ", text: " + text);
       }
-      String output = aiRemote.runInstruction(instruction, text, locale, onlyPara);
+      //  show the answer while it is generated; cancel button of the wait dialog cancels the request
+      StringBuilder partialOutput = new StringBuilder();
+      WaitDialogThread streamDialog = waitDialog;
+      //  the answers to change a text are not cached: the same request should give a new answer
+      String output = aiRemote.runInstruction(instruction, text, locale, onlyPara, false, token -> {
+        partialOutput.append(token);
+        streamDialog.setMessage(partialOutput.toString());
+        return !streamDialog.canceled();
+      });
       if (debugMode) {
         MessageHandler.printToLogFile("AiParagraphChanging: runAiChangeOnParagraph: output: " + output);
       }
@@ -19,19 +19,12 @@
 package org.languagetool.openoffice.aisupport;
 
 import java.awt.Image;
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.ConnectException;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -48,6 +41,7 @@ import org.languagetool.gui.Configuration;
 import org.languagetool.openoffice.MessageHandler;
 import org.languagetool.openoffice.MultiDocumentsHandler;
 import org.languagetool.openoffice.OfficeTools;
+import org.languagetool.openoffice.aisupport.AiTransport.Response;
 
 import com.sun.star.lang.Locale;
 
@@ -73,6 +67,19 @@ public class AiRemote {
   public final static String EXPAND_INSTRUCTION = "Expand following text";
 */
   private enum AiType { EDITS, COMPLETIONS, CHAT }
+  private final static double TEMPERATURE = 0.7;            //  temperature of requests to change a text (answers vary)
+  final static double CACHED_TEMPERATURE = 0;               //  temperature of cached requests (deterministic answers)
+  
+  /**
+   * Callback for answers requested as stream
+   */
+  public interface AiTokenCallback {
+    /**
+     * called for every new part of the answer
+     * returns false if the request should be canceled
+     */
+    boolean onToken(String token);
+  }
   
   private final static Map<String, String> commands = new HashMap<>();
   private static String lastLang = null;
@@ -100,27 +107,27 @@ public class AiRemote {
     }
   }
   
-  HttpURLConnection getConnection(byte[] postData, URL url) throws RuntimeException {
-    try {
-      HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-      conn.setDoOutput(true);
-      conn.setInstanceFollowRedirects(false);
-      conn.setRequestMethod("POST");
-      conn.setRequestProperty("Content-Type", "application/json");
-      conn.setRequestProperty("charset", "utf-8");
-      conn.setRequestProperty("Authorization", apiKey);
-      conn.setRequestProperty("Content-Length", Integer.toString(postData.length));
-      
-      try (DataOutputStream wr = new DataOutputStream(conn.getOutputStream())) {
-        wr.write(postData);
-      }
-      return conn;
-    } catch (Exception e) {
-      throw new RuntimeException(e);
-    }
-  }
-
   public String runInstruction(String instruction, String text, Locale locale, boolean onlyOneParagraph) {
+    return runInstruction(instruction, text, locale, onlyOneParagraph, false);
+  }
+  
+  /**
+   * run an instruction on a text
+   * if useCache is set, the request is sent with temperature 0 (deterministic answer) and an answer for the same
+   * URL, model, instruction, language and text is taken from the persistent cache
+   * useCache should only be set for the detection of errors (not for the rewriting of texts)
+   */
+  public String runInstruction(String instruction, String text, Locale locale, boolean onlyOneParagraph, boolean useCache) {
+    return runInstruction(instruction, text, locale, onlyOneParagraph, useCache, null);
+  }
+  
+  /**
+   * run an instruction on a text
+   * if tokenCallback is set, the answer is requested as stream (not for edits) and every new part is given to the callback
+   * returns null if the request failed or was canceled by the callback
+   */
+  public String runInstruction(String instruction, String text, Locale locale, boolean onlyOneParagraph, 
+      boolean useCache, AiTokenCallback tokenCallback) {
     if (instruction == null || text == null) {
       return null;
     }
@@ -149,35 +156,11 @@ public class AiRemote {
     String langName = locale.Language;
     String org = text == null ? instruction : text;
     if (text != null) {
-      text = text.replace("\n", "\r").replace("\r", " ").replace("\"", "\\\"");
+      text = text.replace("\n", "\r").replace("\r", " ");
     }
-    String urlParameters;
-//    instruction = addLanguageName(instruction, locale);
-    if (aiType == AiType.CHAT) {
-      urlParameters = "{\"model\": \"" + model + "\", " 
-//          + "\"response_format\": { \"type\": \"json_object\" }, "
-          + "\"language\": \"" + langName + "\", "
-          + "\"messages\": [ { \"role\": \"user\", "
-          + "\"content\": \"" + instruction + (text == null ? "" : ": {" + text + "}") + "\" } ], "
-          + "\"seed\": 1, "
-          + "\"temperature\": 0.7}";
-    } else if (aiType == AiType.EDITS) {
-      urlParameters = "{\"model\": \"" + model + "\", " 
-//          + "\"response_format\": { \"type\": \"json_object\" },"
-          + "\"instruction\": \"" + instruction + "\","
-          + "\"input\": \"" + text + "\", "
-//          + "\"seed\": 1, "
-          + "\"temperature\": 0.7}";
-    } else {
-      urlParameters = "{\"model\": \"" + model + "\", " 
-//          + "\"response_format\": { \"type\": \"json_object\" },"
-          + "\"prompt\": \"" + instruction + ": {" + text + "}\", "
-//          + "\"seed\": 1, "
-          + "\"temperature\": 0.7}";
-    }
-
-    byte[] postData = urlParameters.getBytes(StandardCharsets.UTF_8);
-    
+    boolean stream = tokenCallback != null && aiType != AiType.EDITS;
+    double temperature = useCache ? CACHED_TEMPERATURE : TEMPERATURE;
+    String urlParameters = getRequest(instruction, text, langName, temperature, stream).toString();
     URL checkUrl;
     try {
       checkUrl = new URL(url);
@@ -188,39 +171,132 @@ public class AiRemote {
     if (debugMode) {
       MessageHandler.printToLogFile("AiRemote: runInstruction: postData: " + urlParameters);
     }
-    HttpURLConnection conn = getConnection(postData, checkUrl);
     try {
-      if (conn.getResponseCode() == HttpURLConnection.HTTP_OK) {
-        try (InputStream inputStream = conn.getInputStream()) {
-          String out = readStream(inputStream, "utf-8");
-          out = parseJasonOutput(out);
-          if (out == null) {
+      String cacheKey = null;
+      String body = null;
+      if (useCache) {
+        cacheKey = AiResponseCache.getKey(url, model, instruction, temperature, langName, text);
+        body = AiResponseCache.getInstance().get(cacheKey);
+        if (debugMode && body != null) {
+          MessageHandler.printToLogFile("AiRemote: runInstruction: answer taken from cache");
+        }
+      }
+      boolean isNewAnswer = false;
+      if (body == null) {
+        Response response;
+        if (stream) {
+          StringBuilder content = new StringBuilder();
+          response = AiTransport.getInstance().post(checkUrl, apiKey, urlParameters, 
+              data -> addStreamData(data, content, tokenCallback));
+          if (response.isCanceled) {
+            if (debugMode) {
+              MessageHandler.printToLogFile("AiRemote: runInstruction: stream canceled");
+            }
             return null;
           }
-          out = filterOutput (out, org, instruction, onlyOneParagraph);
-          if (debugModeTm) {
-            long runTime = System.currentTimeMillis() - startTime;
-            MessageHandler.printToLogFile("AiRemote: runInstruction: Time to generate Answer: " + runTime);
-          }
-          return out;
+          body = response.isOk() ? toResponseBody(content.toString()) : null;
+        } else {
+          response = AiTransport.getInstance().post(checkUrl, apiKey, urlParameters);
+          body = response.isOk() ? response.body : null;
         }
-      } else {
-        try (InputStream inputStream = conn.getErrorStream()) {
-          String error = readStream(inputStream, "utf-8");
-          MessageHandler.showMessage("Got error: " + error + " - HTTP response code " + conn.getResponseCode());
+        if (body == null) {
+          MessageHandler.showMessage("Got error: " + response.body + " - HTTP response code " + response.code);
+          return null;
         }
+        isNewAnswer = true;
+      }
+      String out = parseJasonOutput(body);
+      if (out == null) {
+        return null;
+      }
+      if (cacheKey != null && isNewAnswer) {
+        AiResponseCache.getInstance().put(cacheKey, body);
       }
+      out = filterOutput (out, org, instruction, onlyOneParagraph);
+      if (debugModeTm) {
+        long runTime = System.currentTimeMillis() - startTime;
+        MessageHandler.printToLogFile("AiRemote: runInstruction: Time to generate Answer: " + runTime);
+      }
+      return out;
     } catch (ConnectException e) {
       MessageHandler.showMessage("Could not connect to server at: " + url);
       MessageHandler.showError(e);
     } catch (Exception e) {
       MessageHandler.showError(e);
-    } finally {
-      conn.disconnect();
     }
     return null;
   }
   
+  /**
+   * JSON request for the AI type (special characters are escaped by JSONObject)
+   */
+  private JSONObject getRequest(String instruction, String text, String langName, double temperature, boolean stream) {
+    JSONObject request = new JSONObject();
+    request.put("model", model);
+    if (aiType == AiType.CHAT) {
+      JSONObject message = new JSONObject();
+      message.put("role", "user");
+      message.put("content", instruction + (text == null ? "" : ": {" + text + "}"));
+      request.put("language", langName);
+      request.put("messages", new JSONArray().put(message));
+      request.put("seed", 1);
+    } else if (aiType == AiType.EDITS) {
+      request.put("instruction", instruction);
+      request.put("input", text);
+    } else {
+      request.put("prompt", instruction + ": {" + text + "}");
+    }
+    request.put("temperature", temperature);
+    if (stream) {
+      request.put("stream", true);
+    }
+    return request;
+  }
+  
+  /**
+   * add the content of a data record of a streamed answer and give it to the callback
+   * returns false if the callback cancels the request
+   */
+  private boolean addStreamData(String data, StringBuilder content, AiTokenCallback tokenCallback) {
+    String token;
+    try {
+      JSONObject choice = new JSONObject(data).getJSONArray("choices").getJSONObject(0);
+      if (aiType == AiType.CHAT) {
+        JSONObject delta = choice.optJSONObject("delta");
+        if (delta == null) {
+          //  server doesn't support streams: complete answer in one line
+          delta = choice.optJSONObject("message");
+        }
+        token = delta == null ? "" : delta.optString("content", "");
+      } else {
+        token = choice.optString("text", "");
+      }
+    } catch (Throwable t) {
+      if (debugMode) {
+        MessageHandler.printToLogFile("AiRemote: addStreamData: data not supported: " + data);
+      }
+      return true;
+    }
+    if (token.isEmpty()) {
+      return true;
+    }
+    content.append(token);
+    return tokenCallback.onToken(token);
+  }
+  
+  /**
+   * answer of the server as if the complete answer was requested at once (used for parsing and cache)
+   */
+  private String toResponseBody(String content) {
+    JSONObject choice = new JSONObject();
+    if (aiType == AiType.CHAT) {
+      choice.put("message", new JSONObject().put("content", content));
+    } else {
+      choice.put("text", content);
+    }
+    return new JSONObject().put("choices", new JSONArray().put(choice)).toString();
+  }
+  
   private String removeSurroundingBrackets(String out, String org) {
     if (out.startsWith("{") && out.endsWith("}")) {
       if (!org.startsWith("{") || !org.endsWith("}")) {
@@ -257,18 +333,6 @@ public class AiRemote {
     return out;
   }
   
-  private String readStream(InputStream stream, String encoding) throws IOException {
-    StringBuilder sb = new StringBuilder();
-    try (InputStreamReader isr = new InputStreamReader(stream, encoding);
-         BufferedReader br = new BufferedReader(isr)) {
-      String line;
-      while ((line = br.readLine()) != null) {
-        sb.append(line).append('\r');
-      }
-    }
-    return sb.toString();
-  }
-  
   String parseJasonOutput(String text) {
     try {
       JSONObject jsonObject = new JSONObject(text);
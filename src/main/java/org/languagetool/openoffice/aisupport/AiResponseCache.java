@@ -0,0 +1,175 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice.aisupport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.languagetool.openoffice.MessageHandler;
+import org.languagetool.openoffice.OfficeMetrics;
+import org.languagetool.openoffice.OfficeTools;
+
+/**
+ * Persistent cache of the raw answers of an AI API
+ * The answers are stored as files in the cache directory of LT, named by the hash of
+ * URL, model, instruction, temperature, language and text (independent from documents and sessions)
+ * Only deterministic answers (temperature 0) of the error detection are cached; the answers to rewrite a text are not
+ * The number of files is limited; the oldest files are removed
+ * @since 6.5
+ * @author Fred Kruse
+ */
+class AiResponseCache {
+
+  private static final String AI_CACHE_DIR = "ai";
+  private static final String FILE_EXTENSION = ".json";
+  private static final int MAX_FILES = 20000;            //  maximal number of cached answers
+  private static final int FILES_TO_REMOVE = 2000;       //  number of files removed if MAX_FILES is reached
+
+  private static AiResponseCache responseCache = null;
+
+  private final File cacheDir;
+  private int nFiles;
+
+  AiResponseCache(File cacheDir) {
+    this.cacheDir = cacheDir;
+    if (!cacheDir.exists()) {
+      cacheDir.mkdirs();
+    }
+    nFiles = countFiles();
+    if (nFiles > MAX_FILES) {
+      removeOldestFiles();
+    }
+  }
+
+  /**
+   * get the cache shared by all AI requests
+   */
+  static synchronized AiResponseCache getInstance() {
+    if (responseCache == null) {
+      responseCache = new AiResponseCache(new File(OfficeTools.getCacheDir(), AI_CACHE_DIR));
+    }
+    return responseCache;
+  }
+
+  /**
+   * get the key of a request
+   */
+  static String getKey(String url, String model, String instruction, double temperature, String language, String text) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (String s : new String[] { url, model, instruction, Double.toString(temperature), language, text }) {
+        digest.update((s == null ? "" : s).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+      }
+      byte[] hash = digest.digest();
+      StringBuilder sb = new StringBuilder(2 * hash.length);
+      for (byte b : hash) {
+        sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      //  SHA-256 is supported by every JRE
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * get the cached answer; null if there is none
+   */
+  String get(String key) {
+    File file = new File(cacheDir, key + FILE_EXTENSION);
+    String response = null;
+    if (file.isFile()) {
+      try {
+        response = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        file.setLastModified(System.currentTimeMillis());   //  remove least recently used files first
+      } catch (IOException e) {
+        MessageHandler.printException(e);
+      }
+    }
+    OfficeMetrics.countCacheAccess("aiResponseCache", response != null);
+    return response;
+  }
+
+  /**
+   * store an answer; the file is written to a temporary file first and moved, so that no incomplete files are read
+   */
+  void put(String key, String response) {
+    File file = new File(cacheDir, key + FILE_EXTENSION);
+    try {
+      File tmpFile = File.createTempFile(key, ".tmp", cacheDir);
+      Files.write(tmpFile.toPath(), response.getBytes(StandardCharsets.UTF_8));
+      boolean isNew = !file.exists();
+      try {
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      if (isNew) {
+        synchronized (this) {
+          nFiles++;
+          if (nFiles > MAX_FILES) {
+            removeOldestFiles();
+          }
+        }
+      }
+    } catch (IOException e) {
+      MessageHandler.printException(e);
+    }
+  }
+
+  private File[] getCacheFiles() {
+    File[] files = cacheDir.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+    return files == null ? new File[0] : files;
+  }
+
+  private int countFiles() {
+    return getCacheFiles().length;
+  }
+
+  /**
+   * remove the oldest files, so that new answers can be stored
+   * the times of the last use are read once before sorting, since get() changes them in other threads
+   */
+  private synchronized void removeOldestFiles() {
+    File[] files = getCacheFiles();
+    long[] lastUsed = new long[files.length];
+    Integer[] order = new Integer[files.length];
+    for (int i = 0; i < files.length; i++) {
+      lastUsed[i] = files[i].lastModified();
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingLong(i -> lastUsed[i]));
+    int nRemove = files.length - MAX_FILES + FILES_TO_REMOVE;
+    for (int i = 0; i < nRemove && i < files.length; i++) {
+      files[order[i]].delete();
+    }
+    nFiles = countFiles();
+    MessageHandler.printToLogFile("AiResponseCache: " + nRemove + " old answers removed");
+  }
+
+}
@@ -0,0 +1,319 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice.aisupport;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+
+import org.languagetool.openoffice.MessageHandler;
+import org.languagetool.openoffice.OfficeMetrics;
+import org.languagetool.openoffice.OfficeTools;
+
+/**
+ * HTTP transport to an AI API shared by all AI requests (edits, completions and chat)
+ * - connections are kept alive and reused (the response is always read completely and the connection is not closed)
+ * - the number of concurrent requests is bounded
+ * - the rate of requests is limited by a token bucket
+ * - requests are repeated with exponential backoff if the server answers 429 (too many requests) or 5xx
+ * - answers can be read as stream (server sent events or chunked JSON lines)
+ * @since 6.5
+ * @author Fred Kruse
+ */
+class AiTransport {
+
+  static final int MAX_CONCURRENT_REQUESTS = 4;     //  below http.maxConnections (default 5) so all connections stay in the keep alive cache
+  static final double REQUESTS_PER_SECOND = 5.0;    //  mean rate of requests
+  static final int MAX_BURST = 5;                   //  number of requests which may be sent without delay
+  static final int MAX_RETRIES = 4;                 //  number of repeats of a failed request
+  static final long INITIAL_BACKOFF = 500;          //  milliseconds to wait before the first repeat
+  static final long MAX_BACKOFF = 30000;            //  maximal milliseconds to wait before a repeat
+  private static final int CONNECT_TIMEOUT = 10000;
+  private static final int READ_TIMEOUT = 300000;   //  local models may need some minutes for long texts
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+  private static AiTransport transport = null;
+
+  private final Semaphore inFlight;
+  private final TokenBucket rateLimiter;
+  private final int maxRetries;
+  private final long initialBackoff;
+  private final boolean debugMode = OfficeTools.DEBUG_MODE_AI;
+
+  AiTransport(int maxConcurrentRequests, double requestsPerSecond, int maxBurst, int maxRetries, long initialBackoff) {
+    inFlight = new Semaphore(maxConcurrentRequests, true);
+    rateLimiter = new TokenBucket(requestsPerSecond, maxBurst);
+    this.maxRetries = maxRetries;
+    this.initialBackoff = initialBackoff;
+  }
+
+  /**
+   * get the transport shared by all AI requests
+   */
+  static synchronized AiTransport getInstance() {
+    if (transport == null) {
+      transport = new AiTransport(MAX_CONCURRENT_REQUESTS, REQUESTS_PER_SECOND, MAX_BURST, MAX_RETRIES, INITIAL_BACKOFF);
+    }
+    return transport;
+  }
+
+  /**
+   * send a JSON request by POST and return the answer of the server
+   * failed requests are repeated; the answer of the last try is returned
+   * throws an IOException if the server can't be reached
+   */
+  Response post(URL url, String apiKey, String json) throws IOException {
+    return post(url, apiKey, json, null);
+  }
+
+  /**
+   * send a JSON request by POST; if streamHandler != null the answer is read as stream and
+   * every data record is given to the handler (the body of the response is empty)
+   * a request is not repeated if the stream has already started
+   */
+  Response post(URL url, String apiKey, String json, StreamHandler streamHandler) throws IOException {
+    byte[] postData = json.getBytes(StandardCharsets.UTF_8);
+    boolean[] isStarted = { false };
+    StreamHandler handler = streamHandler == null ? null : data -> {
+      isStarted[0] = true;
+      return streamHandler.onData(data);
+    };
+    long backoff = initialBackoff;
+    long startTime = OfficeMetrics.startTime();
+    for (int nTry = 0; ; nTry++) {
+      Response response;
+      try {
+        response = send(url, apiKey, postData, handler);
+      } catch (ConnectException e) {
+        //  the server doesn't run: a repeat makes no sense
+        throw e;
+      } catch (InterruptedIOException e) {
+        throw e;
+      } catch (IOException e) {
+        //  e.g. a kept alive connection was closed by the server
+        if (nTry >= maxRetries || isStarted[0]) {
+          throw e;
+        }
+        if (debugMode) {
+          MessageHandler.printToLogFile("AiTransport: post: try " + (nTry + 1) + " failed: " + e.getMessage());
+        }
+        response = null;
+      }
+      if (response != null && (!response.isRetryable() || nTry >= maxRetries)) {
+        OfficeMetrics.recordTime("ai.request.time", startTime);
+        return response;
+      }
+      long waitTime = backoff;
+      if (response != null) {
+        if (debugMode) {
+          MessageHandler.printToLogFile("AiTransport: post: try " + (nTry + 1) + " failed: HTTP response code " + response.code);
+        }
+        waitTime = Math.max(waitTime, response.retryAfter);
+      }
+      OfficeMetrics.increment("ai.request.retries");
+      sleep(Math.min(waitTime, MAX_BACKOFF));
+      backoff = Math.min(2 * backoff, MAX_BACKOFF);
+    }
+  }
+
+  /**
+   * send one request; waits for the rate limiter and then for a free slot
+   * (a slot is not blocked while waiting for the rate limiter)
+   */
+  private Response send(URL url, String apiKey, byte[] postData, StreamHandler handler) throws IOException {
+    sleep(rateLimiter.reserve());
+    try {
+      inFlight.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+    try {
+      HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+      conn.setDoOutput(true);
+      conn.setInstanceFollowRedirects(false);
+      conn.setConnectTimeout(CONNECT_TIMEOUT);
+      conn.setReadTimeout(READ_TIMEOUT);
+      conn.setRequestMethod("POST");
+      conn.setRequestProperty("Content-Type", "application/json");
+      conn.setRequestProperty("charset", "utf-8");
+      conn.setRequestProperty("Authorization", apiKey);
+      conn.setRequestProperty("Content-Length", Integer.toString(postData.length));
+      try (OutputStream out = conn.getOutputStream()) {
+        out.write(postData);
+      }
+      int code = conn.getResponseCode();
+      if (code == HttpURLConnection.HTTP_OK && handler != null) {
+        boolean isCanceled = readEventStream(conn.getInputStream(), handler);
+        if (isCanceled) {
+          //  the rest of the answer is not read: the connection can't be reused
+          conn.disconnect();
+        }
+        return new Response(code, "", 0, isCanceled);
+      }
+      //  the body has to be read completely (also on errors) to give the connection back to the keep alive cache
+      String body = readStream(code == HttpURLConnection.HTTP_OK ? conn.getInputStream() : conn.getErrorStream());
+      return new Response(code, body, getRetryAfter(conn.getHeaderField("Retry-After")), false);
+    } finally {
+      inFlight.release();
+    }
+  }
+
+  private static String readStream(InputStream stream) throws IOException {
+    if (stream == null) {
+      return "";
+    }
+    try (InputStream in = stream) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int n;
+      while ((n = in.read(buffer)) >= 0) {
+        out.write(buffer, 0, n);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * read an answer sent as stream: server sent events ("data: ..." lines, ended by "data: [DONE]")
+   * or JSON objects in separate lines
+   * returns true if the handler has canceled the stream
+   */
+  private static boolean readEventStream(InputStream stream, StreamHandler handler) throws IOException {
+    try (BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+      String line;
+      boolean isDone = false;
+      while ((line = in.readLine()) != null) {
+        if (isDone) {
+          continue;
+        }
+        String data = null;
+        if (line.startsWith("data:")) {
+          data = line.substring(5).trim();
+        } else if (line.startsWith("{")) {
+          data = line;
+        }
+        if ("[DONE]".equals(data)) {
+          isDone = true;
+        } else if (data != null && !data.isEmpty() && !handler.onData(data)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * milliseconds given by a Retry-After header (only seconds are supported); 0 if not set
+   */
+  private static long getRetryAfter(String retryAfter) {
+    if (retryAfter != null) {
+      try {
+        return Long.parseLong(retryAfter.trim()) * 1000;
+      } catch (NumberFormatException e) {
+      }
+    }
+    return 0;
+  }
+
+  private static void sleep(long millis) throws InterruptedIOException {
+    if (millis > 0) {
+      try {
+        Thread.sleep(millis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+    }
+  }
+
+  /**
+   * Answer of the server
+   */
+  static class Response {
+    final int code;
+    final String body;
+    final long retryAfter;
+    final boolean isCanceled;
+
+    Response(int code, String body, long retryAfter, boolean isCanceled) {
+      this.code = code;
+      this.body = body;
+      this.retryAfter = retryAfter;
+      this.isCanceled = isCanceled;
+    }
+
+    boolean isOk() {
+      return code == HttpURLConnection.HTTP_OK;
+    }
+
+    boolean isRetryable() {
+      return code == HTTP_TOO_MANY_REQUESTS || code >= 500;
+    }
+  }
+
+  /**
+   * Handler of the data records of a streamed answer
+   */
+  interface StreamHandler {
+    /**
+     * returns false if the rest of the stream should not be read
+     */
+    boolean onData(String data);
+  }
+
+  /**
+   * Token bucket to limit the rate of requests
+   * Every request reserves a token; if there is none the request has to wait till the reserved token is refilled
+   */
+  static class TokenBucket {
+    private final double tokensPerMillis;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double tokensPerSecond, int capacity) {
+      tokensPerMillis = tokensPerSecond / 1000.;
+      this.capacity = capacity;
+      tokens = capacity;
+      lastRefill = System.currentTimeMillis();
+    }
+
+    /**
+     * reserve a token; returns the milliseconds to wait till the token is available
+     */
+    synchronized long reserve() {
+      long now = System.currentTimeMillis();
+      tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerMillis);
+      lastRefill = now;
+      tokens -= 1;
+      return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerMillis);
+    }
+  }
+
+}
@@ -20,12 +20,17 @@ package org.languagetool.openoffice.stylestatistic;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.ResourceBundle;
 
+import org.languagetool.AnalyzedSentence;
 import org.languagetool.JLanguageTool;
 import org.languagetool.openoffice.MessageHandler;
+import org.languagetool.openoffice.ParagraphCounts;
 import org.languagetool.openoffice.ResultCache;
+import org.languagetool.openoffice.stylestatistic.StatAnCache.TextChange;
+import org.languagetool.openoffice.stylestatistic.StatAnSnapshot.RuleNumbers;
 import org.languagetool.rules.AbstractStatisticSentenceStyleRule;
 import org.languagetool.rules.AbstractStatisticStyleRule;
 import org.languagetool.rules.ReadabilityRule;
@@ -33,6 +38,8 @@ import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
 import org.languagetool.rules.TextLevelRule;
 
+import com.sun.star.linguistic2.SingleProofreadingError;
+
 /**
  * Adapter between LT Rules and Analyzes Dialog 
  * @since 6.2
@@ -47,9 +54,15 @@ public class LevelRule {
   private boolean withDirectSpeech;
   private int procentualStep;
   private int optimalNumberWords;
-  private List<Integer> numSyllables = new ArrayList<>();
-  private List<Integer> numFound = new ArrayList<>();
-  private List<Integer> numBase = new ArrayList<>();
+  private ParagraphCounts numSyllables = new ParagraphCounts(new int[0]);
+  private ParagraphCounts numFound = new ParagraphCounts(new int[0]);
+  private ParagraphCounts numBase = new ParagraphCounts(new int[0]);
+  private List<SingleProofreadingError[]> paraErrors = new ArrayList<>();
+  private int newFrom;                                //  numbers collected by addParagraph
+  private int[] newFound;
+  private int[] newBase;
+  private int[] newSyllables;
+  private List<SingleProofreadingError[]> newErrors;
   private double unitFactor;
   
   public LevelRule (TextLevelRule rule, StatAnCache cache) {
@@ -62,45 +75,12 @@ public class LevelRule {
   
   public void generateBasicNumbers(StatAnCache cache) {
     try {
-      ResultCache statAnalysisCache = new ResultCache();
-      numFound.clear();
-      numBase.clear();
-      numSyllables.clear();
       if (debugMode) {
         MessageHandler.printToLogFile("withDirectSpeech: " + withDirectSpeech);
       }
-      String langCode = cache.getDocShortCodeLanguage();
-      for (int i = 0; i < cache.size(); i++) {
-        if (langCode.equals(cache.getLanguageFlatParagraph(i))) {
-          RuleMatch[] matches = rule.match(cache.getAnalysedParagraph(i), null);
-          if (matches != null && matches.length > 0) {
-            int n = cache.getNumFlatParagraph(i);
-            statAnalysisCache.put(n, cache.createLoErrors(matches));
-          }
-          if (rule instanceof AbstractStatisticSentenceStyleRule) {
-            numFound.add(((AbstractStatisticSentenceStyleRule) rule).getNumberOfMatches());
-            numBase.add(((AbstractStatisticSentenceStyleRule) rule).getSentenceCount());
-  //          MessageHandler.printToLogFile("RuleId: " + rule.getId() + ", matches: " + (matches == null ? "null" : matches.length) 
-  //              +  ", numFound: " + ((AbstractStatisticSentenceStyleRule) rule).getNumberOfMatches());
-          } else if (rule instanceof AbstractStatisticStyleRule) {
-            numFound.add(((AbstractStatisticStyleRule) rule).getNumberOfMatches());
-            numBase.add(((AbstractStatisticStyleRule) rule).getWordCount());
-  //          MessageHandler.printToLogFile("RuleId: " + rule.getId() + ", matches: " + (matches == null ? "null" : matches.length) 
-  //              +  ", numFound: " + ((AbstractStatisticStyleRule) rule).getNumberOfMatches());
-          } else if (rule instanceof ReadabilityRule) {
-            numFound.add(((ReadabilityRule) rule).getAllWords());
-            numSyllables.add(((ReadabilityRule) rule).getAllSyllables());
-            numBase.add(((ReadabilityRule) rule).getAllSentences());
-          }
-        } else {
-          numFound.add(0);
-          numBase.add(0);
-          if (rule instanceof ReadabilityRule) {
-            numSyllables.add(0);
-          }
-        }
-      }
-      cache.setNewResultcache(rule.getId(), statAnalysisCache);
+      matchParagraphs(cache, 0, cache.size());
+      finishBasicNumbers(null);
+      setResultCache(cache);
       if (debugMode) {
         MessageHandler.printToLogFile("Number of: numFound: " + numFound.size() + ", numBase: " + numBase.size() +
             ", numSyllables: " + numSyllables.size());
@@ -110,6 +90,131 @@ public class LevelRule {
     }
   }
   
+  /**
+   * match the text paragraphs from (inclusive) to (exclusive) by the rule
+   */
+  private void matchParagraphs(StatAnCache cache, int from, int to) throws IOException {
+    startBasicNumbers(from, to);
+    String langCode = cache.getDocShortCodeLanguage();
+    for (int i = from; i < to; i++) {
+      if (langCode.equals(cache.getLanguageFlatParagraph(i))) {
+        addParagraph(cache, i, cache.getAnalysedParagraph(i));
+      }
+    }
+  }
+  
+  /**
+   * start the collection of the numbers of the text paragraphs from (inclusive) to (exclusive)
+   * the numbers are added by addParagraph and set by finishBasicNumbers
+   */
+  void startBasicNumbers(int from, int to) {
+    newFrom = from;
+    newFound = new int[to - from];
+    newBase = new int[to - from];
+    newSyllables = new int[to - from];
+    newErrors = new ArrayList<>(Collections.nCopies(to - from, null));
+  }
+  
+  /**
+   * match a text paragraph (in the language of the document) by the rule and store the numbers
+   */
+  void addParagraph(StatAnCache cache, int nTPara, List<AnalyzedSentence> sentences) throws IOException {
+    int n = nTPara - newFrom;
+    RuleMatch[] matches = rule.match(sentences, null);
+    if (matches != null && matches.length > 0) {
+      newErrors.set(n, cache.createLoErrors(matches));
+    }
+    if (rule instanceof AbstractStatisticSentenceStyleRule) {
+      newFound[n] = ((AbstractStatisticSentenceStyleRule) rule).getNumberOfMatches();
+      newBase[n] = ((AbstractStatisticSentenceStyleRule) rule).getSentenceCount();
+    } else if (rule instanceof AbstractStatisticStyleRule) {
+      newFound[n] = ((AbstractStatisticStyleRule) rule).getNumberOfMatches();
+      newBase[n] = ((AbstractStatisticStyleRule) rule).getWordCount();
+    } else if (rule instanceof ReadabilityRule) {
+      newFound[n] = ((ReadabilityRule) rule).getAllWords();
+      newSyllables[n] = ((ReadabilityRule) rule).getAllSyllables();
+      newBase[n] = ((ReadabilityRule) rule).getAllSentences();
+    }
+  }
+  
+  /**
+   * take the numbers of a text paragraph from a snapshot (the paragraph nOld of the snapshot has the same text)
+   */
+  void addParagraph(int nTPara, RuleNumbers numbers, int nOld) {
+    int n = nTPara - newFrom;
+    newErrors.set(n, numbers.getErrors(nOld));
+    newFound[n] = numbers.getFound(nOld);
+    newBase[n] = numbers.getBase(nOld);
+    newSyllables[n] = numbers.getSyllables(nOld);
+  }
+  
+  /**
+   * set the collected numbers
+   * change == null: the numbers of all paragraphs were collected
+   * else: the numbers of the changed paragraphs replace the old ones
+   */
+  void finishBasicNumbers(TextChange change) {
+    if (change == null) {
+      //  sums of ranges of paragraphs (chapters) are calculated in O(log n)
+      numFound = new ParagraphCounts(newFound);
+      numBase = new ParagraphCounts(newBase);
+      numSyllables = new ParagraphCounts(newSyllables);
+      paraErrors = newErrors;
+    } else {
+      numFound = numFound.replace(change.from, change.oldTo, newFound);
+      numBase = numBase.replace(change.from, change.oldTo, newBase);
+      numSyllables = numSyllables.replace(change.from, change.oldTo, newSyllables);
+      paraErrors.subList(change.from, change.oldTo).clear();
+      paraErrors.addAll(change.from, newErrors);
+    }
+    newFound = null;
+    newBase = null;
+    newSyllables = null;
+    newErrors = null;
+  }
+  
+  /**
+   * set the errors of the rule as result cache of the statistical analysis
+   */
+  void setResultCache(StatAnCache cache) {
+    cache.setNewResultcache(rule.getId(), createResultCache(cache));
+  }
+  
+  /**
+   * key of the numbers of the rule in a snapshot
+   */
+  String getSnapshotKey() {
+    return StatAnSnapshot.getRuleKey(rule, withDirectSpeech);
+  }
+  
+  /**
+   * get the numbers of all paragraphs to store them in a snapshot
+   */
+  RuleNumbers getSnapshotNumbers() {
+    int[] nFound = new int[numFound.size()];
+    int[] nBase = new int[numBase.size()];
+    int[] nSyllables = new int[numSyllables.size()];
+    for (int i = 0; i < nFound.length; i++) {
+      nFound[i] = numFound.get(i);
+      nBase[i] = numBase.get(i);
+      nSyllables[i] = numSyllables.get(i);
+    }
+    return new RuleNumbers(nFound, nBase, nSyllables, paraErrors);
+  }
+  
+  /**
+   * create the result cache of the errors of all paragraphs (stored by the number of flat paragraph)
+   */
+  private ResultCache createResultCache(StatAnCache cache) {
+    ResultCache statAnalysisCache = new ResultCache();
+    for (int i = 0; i < paraErrors.size(); i++) {
+      if (paraErrors.get(i) != null) {
+        statAnalysisCache.put(cache.getNumFlatParagraph(i), paraErrors.get(i));
+      }
+    }
+    return statAnalysisCache;
+  }
+  
   /**
    * get level of occurrence of filler words(0 - 6)
    */
@@ -154,26 +259,17 @@ public class LevelRule {
   
   public int getLevel(int from, int to) throws Throwable {
     if (rule instanceof AbstractStatisticSentenceStyleRule || rule instanceof AbstractStatisticStyleRule) {
-      int nBase = 0;
-      int nFound = 0;
-      for (int i = from; i < to && i < numBase.size(); i++) {
-        nFound += numFound.get(i);
-        nBase += numBase.get(i);
-      }
+      long nBase = numBase.sum(from, to);
+      long nFound = numFound.sum(from, to);
       if (nBase == 0) {
         return 7;
       }
       double percent = ((double) nFound) * unitFactor / ((double) nBase);
       return getFoundWordsLevel(percent);
     } else if (rule instanceof ReadabilityRule) {
-      int nAllSentences = 0;
-      int nAllSyllables = 0;
-      int nAllWords = 0;
-      for (int i = from; i < to; i++) {
-        nAllWords += numFound.get(i);
-        nAllSentences += numBase.get(i);
-        nAllSyllables += numSyllables.get(i);
-      }
+      long nAllWords = numFound.sum(from, to);
+      long nAllSentences = numBase.sum(from, to);
+      long nAllSyllables = numSyllables.sum(from, to);
       if (nAllSentences == 0 || nAllWords == 0) {
         return 7;
       }
@@ -215,13 +311,7 @@ public class LevelRule {
     if (debugMode) {
       MessageHandler.printToLogFile("withDirectSpeech: " + withDirectSpeech + ", wDirectSpeech: " + wDirectSpeech);
     }
-    if (withDirectSpeech != wDirectSpeech) {
-      withDirectSpeech = wDirectSpeech;
-      if (rule instanceof AbstractStatisticSentenceStyleRule) {
-        ((AbstractStatisticSentenceStyleRule) rule).setWithoutDirectSpeech(!withDirectSpeech);
-      } else if (rule instanceof AbstractStatisticStyleRule) {
-        ((AbstractStatisticStyleRule) rule).setWithoutDirectSpeech(!withDirectSpeech);
-      }
+    if (setDirectSpeech(wDirectSpeech)) {
       if (debugMode) {
         MessageHandler.printToLogFile("Generate basic numbers");
       }
@@ -229,6 +319,22 @@ public class LevelRule {
     }
   }
   
+  /**
+   * set the option without generating the numbers; returns true if it was changed
+   */
+  boolean setDirectSpeech(boolean wDirectSpeech) {
+    if (withDirectSpeech == wDirectSpeech) {
+      return false;
+    }
+    withDirectSpeech = wDirectSpeech;
+    if (rule instanceof AbstractStatisticSentenceStyleRule) {
+      ((AbstractStatisticSentenceStyleRule) rule).setWithoutDirectSpeech(!withDirectSpeech);
+    } else if (rule instanceof AbstractStatisticStyleRule) {
+      ((AbstractStatisticStyleRule) rule).setWithoutDirectSpeech(!withDirectSpeech);
+    }
+    return true;
+  }
+  
   public void setCurrentStep(int step) {
     if (step > 0) {
       procentualStep = step;
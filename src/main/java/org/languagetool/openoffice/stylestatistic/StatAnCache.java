@@ -26,6 +26,9 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.Language;
@@ -53,6 +56,7 @@ import com.sun.star.text.TextMarkupType;
 
 import org.languagetool.openoffice.MessageHandler;
 import org.languagetool.openoffice.MultiDocumentsHandler;
+import org.languagetool.openoffice.OfficeMetrics;
 import org.languagetool.openoffice.OfficeTools;
 import org.languagetool.openoffice.SingleDocument;
 import org.languagetool.openoffice.SwJLanguageTool;
@@ -66,8 +70,10 @@ public class StatAnCache {
   
   private final static int MAX_NAME_LENGTH = 80;
   private final static boolean debugMode = false;
+  private final static int MIN_PARAGRAPHS_PER_TASK = 32;   //  paragraphs analyzed by one task without further splitting
   
-  private final Map<Integer, List<AnalyzedSentence>> analyzedParagraphs;
+  private Map<Integer, List<AnalyzedSentence>> analyzedParagraphs;
+  private List<String> paraTexts;
   private final String langCode;
   private List<Heading> headings = new ArrayList<>();
   private List<Paragraph> paragraphs = new ArrayList<>();
@@ -86,10 +92,11 @@ public class StatAnCache {
     lt = document.getMultiDocumentsHandler().getLanguageTool();
     docCache = document.getDocumentCache();
     analyzedParagraphs = docCache.getAllAnalyzedParagraphs();
-    
-    while (docCache.getHeadingMap() == null) {
+    //  the heading map is set when the document cache is initialized
+    Map<Integer, Integer> headingMap = null;
+    while (headingMap == null) {
       try {
-        Thread.sleep(50);
+        headingMap = docCache.waitForHeadingMap();
       } catch (InterruptedException e) {
         MessageHandler.showError(e);
       }
@@ -97,37 +104,145 @@ public class StatAnCache {
     if (waitdialog != null) {
       waitdialog.initializeProgressBar(0, 100);
     }
+    paraTexts = getTextParagraphs();
+    analyzeParagraphs(0, paraTexts.size(), waitdialog);
+    setHeadings();
+    setParagraphs();
+  }
+  
+  /**
+   * update the cache after the document was changed
+   * the changed range is found by comparing the texts of the paragraphs with the texts of the last update
+   * only the changed and inserted paragraphs are analyzed, headings and paragraphs are set new
+   * returns the changed range or null if there is no change
+   */
+  public TextChange update() {
+    docCache = document.getDocumentCache();
+    List<String> newTexts = getTextParagraphs();
+    TextChange change = TextChange.getChange(paraTexts, newTexts);
+    if (change == null) {
+      return null;
+    }
+    if (debugMode) {
+      MessageHandler.printToLogFile("StatAnCache: update: from: " + change.from + ", oldTo: " + change.oldTo + ", newTo: " + change.newTo);
+    }
+    paraTexts = newTexts;
+    analyzedParagraphs = docCache.getAllAnalyzedParagraphs();
+    analyzeParagraphs(change.from, change.newTo, null);
+    headings = new ArrayList<>();
+    paragraphs = new ArrayList<>();
+    setHeadings();
+    setParagraphs();
+    return change;
+  }
+  
+  private List<String> getTextParagraphs() {
     int textSize = docCache.textSize(DocumentCache.CURSOR_TYPE_TEXT);
+    List<String> texts = new ArrayList<>(textSize);
     for (int i = 0; i < textSize; i++) {
-      try {
-        int nFPara = docCache.getFlatParagraphNumber(new TextParagraph(DocumentCache.CURSOR_TYPE_TEXT, i));
-        Locale locale = docCache.getFlatParagraphLocale(nFPara);
-        if (docCache.getAnalyzedParagraph(nFPara) == null && locale != null && langCode.equals(locale.Language)) {
-          Language lang = MultiDocumentsHandler.getLanguage(docCache.getFlatParagraphLocale(nFPara));
-          if (lang != null) {
-            SwJLanguageTool tmpLt = lt;
-            if(!lang.equals(tmpLt.getLanguage())) {
-              tmpLt = document.getMultiDocumentsHandler().getLanguageTool();
-              if(!lang.equals(tmpLt.getLanguage())) {
-                tmpLt = document.getMultiDocumentsHandler().initLanguageTool(lang, false);
+      String text = docCache.getTextParagraph(new TextParagraph(DocumentCache.CURSOR_TYPE_TEXT, i));
+      texts.add(text == null ? "" : text);
+    }
+    return texts;
+  }
+  
+  /**
+   * analyze the not analyzed text paragraphs of the document language from (inclusive) to (exclusive)
+   * the paragraphs are split into ranges which are analyzed in parallel
+   * the language tools are prepared before, because they can't be initialized in parallel
+   */
+  private void analyzeParagraphs(int from, int to, WaitDialogThread waitdialog) {
+    long startTime = OfficeMetrics.startTime();
+    Map<Language, SwJLanguageTool> languageTools = new HashMap<>();
+    List<Integer> nFParas = new ArrayList<>();
+    List<SwJLanguageTool> paraLts = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      int nFPara = docCache.getFlatParagraphNumber(new TextParagraph(DocumentCache.CURSOR_TYPE_TEXT, i));
+      Locale locale = docCache.getFlatParagraphLocale(nFPara);
+      if (locale != null && langCode.equals(locale.Language) && (docCache.getAnalyzedParagraph(nFPara) == null
+          || !docCache.isCorrectAnalyzedParagraphLength(nFPara, docCache.getFlatParagraph(nFPara)))) {
+        Language lang = MultiDocumentsHandler.getLanguage(locale);
+        if (lang != null) {
+          SwJLanguageTool paraLt = languageTools.get(lang);
+          if (paraLt == null) {
+            paraLt = lt;
+            if(!lang.equals(paraLt.getLanguage())) {
+              paraLt = document.getMultiDocumentsHandler().getLanguageTool();
+              if(!lang.equals(paraLt.getLanguage())) {
+                paraLt = document.getMultiDocumentsHandler().initLanguageTool(lang, false);
               }
             }
-            docCache.createAnalyzedParagraph(nFPara, tmpLt);
+            languageTools.put(lang, paraLt);
+          }
+          if (paraLt != null) {
+            nFParas.add(nFPara);
+            paraLts.add(paraLt);
           }
         }
-      } catch (IOException e) {
-        MessageHandler.showError(e);
       }
-//      if (sentences == null) {
-//        sentences = new ArrayList<>();
-//      }
-//      analyzedParagraphs.add(sentences);
-      if (waitdialog != null) {
-        waitdialog.setValueForProgressBar(90 * i / textSize);;
+    }
+    if (!nFParas.isEmpty()) {
+      AtomicInteger nAnalyzed = new AtomicInteger();
+      ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 
+          (nFParas.size() + MIN_PARAGRAPHS_PER_TASK - 1) / MIN_PARAGRAPHS_PER_TASK)));
+      try {
+        pool.invoke(new AnalyzeTask(nFParas, paraLts, 0, nFParas.size(), nAnalyzed, waitdialog));
+      } finally {
+        pool.shutdown();
+      }
+    }
+    if (waitdialog != null) {
+      waitdialog.setValueForProgressBar(90);
+    }
+    OfficeMetrics.recordTime("statAnCache.analyze", startTime);
+    if (debugMode) {
+      MessageHandler.printToLogFile("StatAnCache: analyzeParagraphs: " + nFParas.size() + " paragraphs analyzed");
+    }
+  }
+  
+  /**
+   * analysis of a range of paragraphs
+   * ranges with more than MIN_PARAGRAPHS_PER_TASK paragraphs are split into two tasks
+   */
+  private class AnalyzeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final List<Integer> nFParas;
+    private final List<SwJLanguageTool> paraLts;
+    private final int from;
+    private final int to;
+    private final AtomicInteger nAnalyzed;
+    private final WaitDialogThread waitdialog;
+    
+    AnalyzeTask(List<Integer> nFParas, List<SwJLanguageTool> paraLts, int from, int to, 
+        AtomicInteger nAnalyzed, WaitDialogThread waitdialog) {
+      this.nFParas = nFParas;
+      this.paraLts = paraLts;
+      this.from = from;
+      this.to = to;
+      this.nAnalyzed = nAnalyzed;
+      this.waitdialog = waitdialog;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > MIN_PARAGRAPHS_PER_TASK) {
+        int middle = (from + to) / 2;
+        invokeAll(new AnalyzeTask(nFParas, paraLts, from, middle, nAnalyzed, waitdialog),
+            new AnalyzeTask(nFParas, paraLts, middle, to, nAnalyzed, waitdialog));
+        return;
+      }
+      for (int i = from; i < to; i++) {
+        try {
+          docCache.createAnalyzedParagraph(nFParas.get(i), paraLts.get(i));
+        } catch (IOException e) {
+          MessageHandler.showError(e);
+        }
+        int n = nAnalyzed.incrementAndGet();
+        if (waitdialog != null) {
+          waitdialog.setValueForProgressBar(90 * n / nFParas.size());
+        }
       }
     }
-    setHeadings();
-    setParagraphs();
   }
   
   private void setHeadings() {
@@ -143,13 +258,23 @@ public class StatAnCache {
   }
   
   private void setParagraphs() {
-    for (int i = 0; i < docCache.textSize(DocumentCache.CURSOR_TYPE_TEXT); i++) {
-      paragraphs.add(new Paragraph(getNameOfParagraph(i), getHeadingHierarchy(i), i));
+    for (int i = 0; i < paraTexts.size(); i++) {
+      paragraphs.add(new Paragraph(getNameOfParagraph(paraTexts.get(i)), getHeadingHierarchy(i), i));
     }
   }
   
+  /**
+   * number of text paragraphs (at the time of the last update)
+   */
   public int size() {
-    return docCache.textSize(DocumentCache.CURSOR_TYPE_TEXT);
+    return paraTexts.size();
+  }
+
+  /**
+   * text of a text paragraph (at the time of the last update)
+   */
+  public String getTextParagraph(int n) {
+    return paraTexts.get(n);
   }
 
   public List<AnalyzedSentence> getAnalysedParagraph(int n) {
@@ -218,12 +343,8 @@ public class StatAnCache {
   }
   
   private int getHeadingHierarchy(int nPara) {
-    for (int i = 0; i < headings.size(); i++) {
-      if(headings.get(i).paraNum == nPara) {
-        return (headings.get(i).hierarchy);
-      }
-    }
-    return -1;
+    Integer hierarchy = docCache.getHeadingMap().get(nPara);
+    return hierarchy == null ? -1 : hierarchy;
   }
   
   public List<Heading> getAllHeadings() {
@@ -520,6 +641,43 @@ public class StatAnCache {
     }
   }
 
+  /**
+   * changed range of text paragraphs: the paragraphs from (inclusive) to oldTo (exclusive)
+   * are replaced by the paragraphs from to newTo (exclusive)
+   */
+  public static class TextChange {
+    public final int from;
+    public final int oldTo;
+    public final int newTo;
+    
+    TextChange(int from, int oldTo, int newTo) {
+      this.from = from;
+      this.oldTo = oldTo;
+      this.newTo = newTo;
+    }
+    
+    /**
+     * get the changed range between the old and the new texts (common begin and end are not changed)
+     * returns null if the texts are equal
+     */
+    static TextChange getChange(List<String> oldTexts, List<String> newTexts) {
+      int minSize = Math.min(oldTexts.size(), newTexts.size());
+      int from = 0;
+      while (from < minSize && oldTexts.get(from).equals(newTexts.get(from))) {
+        from++;
+      }
+      if (from == oldTexts.size() && from == newTexts.size()) {
+        return null;
+      }
+      int nEnd = 0;
+      while (nEnd < minSize - from 
+          && oldTexts.get(oldTexts.size() - 1 - nEnd).equals(newTexts.get(newTexts.size() - 1 - nEnd))) {
+        nEnd++;
+      }
+      return new TextChange(from, oldTexts.size() - nEnd, newTexts.size() - nEnd);
+    }
+  }
+
   public class Heading {
     String name;
     int hierarchy;
@@ -68,6 +68,7 @@ import org.languagetool.openoffice.OfficeTools;
 import org.languagetool.openoffice.ViewCursorTools;
 import org.languagetool.openoffice.stylestatistic.StatAnCache.Heading;
 import org.languagetool.openoffice.stylestatistic.StatAnCache.Paragraph;
+import org.languagetool.openoffice.stylestatistic.StatAnCache.TextChange;
 import org.languagetool.openoffice.SingleDocument;
 import org.languagetool.rules.AbstractStatisticSentenceStyleRule;
 import org.languagetool.rules.AbstractStatisticStyleRule;
@@ -121,7 +122,6 @@ public class StatAnDialog extends Thread  {
   private int hierarchy = 1;
   
   private int lastSinglePara = -1;
-  private String lastParaText = null;
   
   private Chapter chapter = null;
 
@@ -129,6 +129,7 @@ public class StatAnDialog extends Thread  {
 
   private StatAnCache cache = null;
   private StatAnConfiguration config = null;
+  private StatAnEngine engine = null;
   private XComponent lastComponent = null;
   private TextLevelRule selectedRule;
   private LevelRule levelRule;
@@ -174,6 +175,13 @@ public class StatAnDialog extends Thread  {
     dialog.setVisible(false);
     document.getMultiDocumentsHandler().setStatAnDialogRunning(false);
     waitdialog.close();
+    if (engine != null) {
+      try {
+        engine.createSnapshot(cache).write(document);
+      } catch (Throwable t) {
+        MessageHandler.printException(t);
+      }
+    }
   }
   
   private boolean hasReadabilityRule() {
@@ -225,15 +233,20 @@ public class StatAnDialog extends Thread  {
 
       @Override
       public void windowGainedFocus(WindowEvent e) {
-        if (lastSinglePara < 0 || lastParaText.equals(document.getDocumentCache().getFlatParagraph(lastSinglePara))) {
+        if (cache == null) {
           return;
         }
         try {
+          //  only the paragraphs changed while the dialog had no focus are analyzed again
+          TextChange change = cache.update();
+          if (change == null) {
+            return;
+          }
+          engine.updateBasicNumbers(cache, change);
           if(isLevelRule) {
-            levelRule.generateBasicNumbers(cache);
+            levelRule.setResultCache(cache);
             setLeftLevelRulePanel();
           } else {
-            usedWordRule.generateBasicNumbers(cache);
             setLeftUsedWordRulePanel();
           }
           setRightRulePanel();
@@ -245,9 +258,6 @@ public class StatAnDialog extends Thread  {
 
       @Override
       public void windowLostFocus(WindowEvent e) {
-        if (lastSinglePara >= 0) {
-          lastParaText = new String(document.getDocumentCache().getFlatParagraph(lastSinglePara));
-        }
       }
       
     });
@@ -259,19 +269,13 @@ public class StatAnDialog extends Thread  {
         lastComponent = xComponent;
           refreshCache(document, waitdialog);
       }
+      //  the numbers of all rules are generated in one pass
+      //  the numbers of unchanged paragraphs are taken from the snapshot of the last session
+      engine = new StatAnEngine(rules, cache, config);
+      engine.generateBasicNumbers(cache, StatAnSnapshot.read(document, cache));
       selectedRule = rules.get(method);
       isLevelRule = isLevelRule(selectedRule);
-      if (isLevelRule) {
-        levelRule = new LevelRule(selectedRule, cache);
-      } else {
-        usedWordRule = new UsedWordRule(selectedRule, cache);
-      }
-      configRule();
-      if (isLevelRule) {
-        levelRule.generateBasicNumbers(cache);
-      } else {
-        usedWordRule.generateBasicNumbers(cache);
-      }
+      setSelectedRuleNumbers();
       if (debugMode) {
         MessageHandler.printToLogFile("Init done");
       }
@@ -295,14 +299,8 @@ public class StatAnDialog extends Thread  {
     leftPanel = new JPanel();
     rightPanel = new JPanel();
     if(isLevelRule) {
-      levelRule = new LevelRule(selectedRule, cache);
-      configRule();
-      levelRule.generateBasicNumbers(cache);
       setLeftLevelRulePanel();
     } else {
-      usedWordRule = new UsedWordRule(selectedRule, cache);
-      configRule();
-      usedWordRule.generateBasicNumbers(cache);
       setLeftUsedWordRulePanel();
     }
     setRightRulePanel();
@@ -339,15 +337,11 @@ public class StatAnDialog extends Thread  {
           method = this.getMethodByRule(selectedRuleName);
           isLevelRule = isLevelRule(selectedRule);
           try {
+            //  the numbers of the rule are taken from the engine: the document is not matched again
+            setSelectedRuleNumbers();
             if(isLevelRule) {
-              levelRule = new LevelRule(selectedRule, cache);
-              configRule();
-              levelRule.generateBasicNumbers(cache);
               setLeftLevelRulePanel();
             } else {
-              usedWordRule = new UsedWordRule(selectedRule, cache);
-              configRule();
-              usedWordRule.generateBasicNumbers(cache);
               setLeftUsedWordRulePanel();
             }
             setRightRulePanel();
@@ -844,6 +838,21 @@ public class StatAnDialog extends Thread  {
     }
   }
   
+  /**
+   * set the numbers of the selected rule from the statistics engine
+   */
+  private void setSelectedRuleNumbers() {
+    if (isLevelRule) {
+      levelRule = engine.getLevelRule(selectedRule);
+      configRule();
+      levelRule.setResultCache(cache);
+    } else {
+      usedWordRule = engine.getUsedWordRule(selectedRule);
+      configRule();
+      cache.setNewResultcache(null, null);
+    }
+  }
+  
   private void configRule() {
     if (debugMode) {
       MessageHandler.printToLogFile("New configuration set");
@@ -0,0 +1,178 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice.stylestatistic;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.openoffice.MessageHandler;
+import org.languagetool.openoffice.OfficeMetrics;
+import org.languagetool.openoffice.stylestatistic.StatAnCache.TextChange;
+import org.languagetool.openoffice.stylestatistic.StatAnSnapshot.RuleNumbers;
+import org.languagetool.rules.TextLevelRule;
+
+/**
+ * Statistics of all rules of the statistical analysis
+ * The numbers of all rules are generated in one pass over the analyzed paragraphs and stored side by side,
+ * so that the selected rule of the dialog can be changed without matching the document again
+ * @since 6.5
+ * @author Fred Kruse
+ */
+public class StatAnEngine {
+
+  private final static boolean debugMode = false;
+
+  private final Map<TextLevelRule, LevelRule> levelRules = new LinkedHashMap<>();
+  private final Map<TextLevelRule, UsedWordRule> usedWordRules = new LinkedHashMap<>();
+
+  public StatAnEngine(List<TextLevelRule> rules, StatAnCache cache, StatAnConfiguration config) {
+    for (TextLevelRule rule : rules) {
+      if (LevelRule.isLevelRule(rule)) {
+        LevelRule levelRule = new LevelRule(rule, cache);
+        if (LevelRule.hasStatisticalOptions(rule)) {
+          levelRule.setDirectSpeech(!config.isWithoutDirectSpeech(rule));
+        }
+        levelRules.put(rule, levelRule);
+      } else if (UsedWordRule.isUsedWordRule(rule)) {
+        UsedWordRule usedWordRule = new UsedWordRule(rule, cache);
+        usedWordRule.setDirectSpeech(!config.isWithoutDirectSpeech(rule));
+        usedWordRule.setListExcludedWords(config.getExcludedWords(rule));
+        usedWordRules.put(rule, usedWordRule);
+      }
+    }
+  }
+
+  /**
+   * get the numbers of a level rule (null if the rule is not a level rule)
+   */
+  public LevelRule getLevelRule(TextLevelRule rule) {
+    return levelRules.get(rule);
+  }
+
+  /**
+   * get the numbers of a used word rule (null if the rule is not a used word rule)
+   */
+  public UsedWordRule getUsedWordRule(TextLevelRule rule) {
+    return usedWordRules.get(rule);
+  }
+
+  /**
+   * generate the numbers of all rules for the whole document
+   * if snapshot != null the numbers of the paragraphs with unchanged text are taken from the snapshot
+   */
+  public void generateBasicNumbers(StatAnCache cache, StatAnSnapshot snapshot) {
+    long startTime = OfficeMetrics.startTime();
+    matchParagraphs(cache, 0, cache.size(), null, snapshot);
+    OfficeMetrics.recordTime("statAnEngine.generate", startTime);
+  }
+
+  /**
+   * update the numbers of all rules after a change of the document (see StatAnCache.update)
+   * only the changed and inserted paragraphs are matched
+   */
+  public void updateBasicNumbers(StatAnCache cache, TextChange change) {
+    matchParagraphs(cache, change.from, change.newTo, change, null);
+  }
+
+  /**
+   * create a snapshot of the numbers of all rules
+   */
+  public StatAnSnapshot createSnapshot(StatAnCache cache) {
+    StatAnSnapshot snapshot = new StatAnSnapshot(cache);
+    for (LevelRule levelRule : levelRules.values()) {
+      snapshot.putRuleNumbers(levelRule.getSnapshotKey(), levelRule.getSnapshotNumbers());
+    }
+    for (UsedWordRule usedWordRule : usedWordRules.values()) {
+      snapshot.putRuleNumbers(usedWordRule.getSnapshotKey(), usedWordRule.getSnapshotNumbers());
+    }
+    return snapshot;
+  }
+
+  /**
+   * match the text paragraphs from (inclusive) to (exclusive) by all rules
+   * every paragraph is taken once from the cache and given to all rules
+   * the numbers of a rule are taken from the snapshot (if not null) for paragraphs with unchanged text
+   */
+  private void matchParagraphs(StatAnCache cache, int from, int to, TextChange change, StatAnSnapshot snapshot) {
+    try {
+      Map<LevelRule, RuleNumbers> levelNumbers = new HashMap<>();
+      for (LevelRule levelRule : levelRules.values()) {
+        levelRule.startBasicNumbers(from, to);
+        RuleNumbers numbers = snapshot == null ? null : snapshot.getRuleNumbers(levelRule.getSnapshotKey());
+        if (numbers != null && numbers.isLevelNumbers() && numbers.size() == snapshot.size()) {
+          levelNumbers.put(levelRule, numbers);
+        }
+      }
+      Map<UsedWordRule, RuleNumbers> usedWordNumbers = new HashMap<>();
+      for (UsedWordRule usedWordRule : usedWordRules.values()) {
+        usedWordRule.startBasicNumbers(from, to);
+        RuleNumbers numbers = snapshot == null ? null : snapshot.getRuleNumbers(usedWordRule.getSnapshotKey());
+        if (numbers != null && !numbers.isLevelNumbers() && numbers.size() == snapshot.size()) {
+          usedWordNumbers.put(usedWordRule, numbers);
+        }
+      }
+      int nReused = 0;
+      String langCode = cache.getDocShortCodeLanguage();
+      for (int i = from; i < to; i++) {
+        if (langCode.equals(cache.getLanguageFlatParagraph(i))) {
+          int nOld = snapshot == null ? -1 : snapshot.getParagraph(StatAnSnapshot.getParagraphKey(cache, i));
+          List<AnalyzedSentence> sentences = cache.getAnalysedParagraph(i);
+          for (LevelRule levelRule : levelRules.values()) {
+            RuleNumbers numbers = levelNumbers.get(levelRule);
+            if (nOld >= 0 && numbers != null) {
+              levelRule.addParagraph(i, numbers, nOld);
+              nReused++;
+            } else {
+              levelRule.addParagraph(cache, i, sentences);
+            }
+          }
+          for (UsedWordRule usedWordRule : usedWordRules.values()) {
+            RuleNumbers numbers = usedWordNumbers.get(usedWordRule);
+            if (nOld >= 0 && numbers != null) {
+              usedWordRule.addParagraph(i, numbers, nOld);
+              nReused++;
+            } else {
+              usedWordRule.addParagraph(i, sentences);
+            }
+          }
+        }
+      }
+      if (snapshot != null) {
+        OfficeMetrics.add("statAnEngine.reusedNumbers", nReused);
+      }
+      for (LevelRule levelRule : levelRules.values()) {
+        levelRule.finishBasicNumbers(change);
+      }
+      for (UsedWordRule usedWordRule : usedWordRules.values()) {
+        usedWordRule.finishBasicNumbers(change, cache.size());
+      }
+      if (debugMode) {
+        MessageHandler.printToLogFile("StatAnEngine: Paragraphs " + from + " - " + to + " matched by "
+            + (levelRules.size() + usedWordRules.size()) + " rules");
+      }
+    } catch (IOException e) {
+      MessageHandler.showError(e);
+    }
+  }
+
+}
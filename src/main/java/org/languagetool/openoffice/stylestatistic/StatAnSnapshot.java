@@ -0,0 +1,258 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice.stylestatistic;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.languagetool.JLanguageTool;
+import org.languagetool.openoffice.CacheIO;
+import org.languagetool.openoffice.MessageHandler;
+import org.languagetool.openoffice.ResultCache;
+import org.languagetool.openoffice.SingleDocument;
+import org.languagetool.rules.TextLevelRule;
+
+import com.sun.star.linguistic2.SingleProofreadingError;
+
+/**
+ * Snapshot of the numbers of the statistical analysis of a document
+ * The snapshot is saved next to the cache files of the document (see CacheIO) when the dialog is closed.
+ * If the dialog is opened again the numbers of the paragraphs with unchanged text (and language) are taken
+ * from the snapshot, only the other paragraphs are matched by the rules
+ * The numbers are stored for every rule configuration (rule ID and direct speech option)
+ * @since 6.5
+ * @author Fred Kruse
+ */
+public class StatAnSnapshot implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String ltVersion;
+  private final String langCode;
+  private final List<String> paraKeys;                             //  hash of language and text of every text paragraph
+  private final Map<String, RuleNumbers> ruleNumbers = new HashMap<>();
+  private transient Map<String, Integer> paraIndex = null;
+
+  StatAnSnapshot(StatAnCache cache) {
+    ltVersion = JLanguageTool.VERSION;
+    langCode = cache.getDocShortCodeLanguage();
+    paraKeys = new ArrayList<>(cache.size());
+    for (int i = 0; i < cache.size(); i++) {
+      paraKeys.add(getParagraphKey(cache, i));
+    }
+  }
+
+  /**
+   * read the snapshot of a document
+   * returns null if there is none or if it was created by another version of LT or for another language
+   */
+  static StatAnSnapshot read(SingleDocument document, StatAnCache cache) {
+    CacheIO cacheIO = document.getCacheIO();
+    if (cacheIO == null) {
+      return null;
+    }
+    Object o = cacheIO.readStatAnSnapshot();
+    if (!(o instanceof StatAnSnapshot)) {
+      return null;
+    }
+    StatAnSnapshot snapshot = (StatAnSnapshot) o;
+    if (!JLanguageTool.VERSION.equals(snapshot.ltVersion) || !cache.getDocShortCodeLanguage().equals(snapshot.langCode)) {
+      MessageHandler.printToLogFile("Version or language has changed: Statistical analysis rejected");
+      return null;
+    }
+    return snapshot;
+  }
+
+  /**
+   * save the snapshot next to the cache files of the document (only if the caches are saved)
+   */
+  void write(SingleDocument document) {
+    CacheIO cacheIO = document.getCacheIO();
+    if (cacheIO != null) {
+      cacheIO.saveStatAnSnapshot(this);
+    }
+  }
+
+  /**
+   * key of the numbers of a rule: the numbers depend on the direct speech option
+   */
+  static String getRuleKey(TextLevelRule rule, boolean withDirectSpeech) {
+    return rule.getId() + (withDirectSpeech ? "" : ":withoutDirectSpeech");
+  }
+
+  /**
+   * key of a text paragraph: SHA-256 hash of language and text as hex string
+   */
+  static String getParagraphKey(StatAnCache cache, int nTPara) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(cache.getLanguageFlatParagraph(nTPara).getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      byte[] hash = digest.digest(cache.getTextParagraph(nTPara).getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder(2 * hash.length);
+      for (byte b : hash) {
+        sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      //  SHA-256 is supported by every JRE
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * number of text paragraphs
+   */
+  int size() {
+    return paraKeys.size();
+  }
+
+  /**
+   * number of the paragraph with the key in the snapshot; -1 if there is none
+   */
+  int getParagraph(String paraKey) {
+    if (paraIndex == null) {
+      paraIndex = new HashMap<>();
+      for (int i = 0; i < paraKeys.size(); i++) {
+        paraIndex.put(paraKeys.get(i), i);
+      }
+    }
+    Integer n = paraIndex.get(paraKey);
+    return n == null ? -1 : n;
+  }
+
+  /**
+   * numbers of a rule configuration; null if there are none
+   */
+  RuleNumbers getRuleNumbers(String ruleKey) {
+    return ruleNumbers.get(ruleKey);
+  }
+
+  void putRuleNumbers(String ruleKey, RuleNumbers numbers) {
+    ruleNumbers.put(ruleKey, numbers);
+  }
+
+  /**
+   * numbers of all paragraphs for one rule configuration
+   * level rules: counts and errors; used word rules: word counts (the words are stored once as dictionary)
+   */
+  static class RuleNumbers implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int[] nFound;
+    private final int[] nBase;
+    private final int[] nSyllables;
+    private final ResultCache errors;
+    private final List<String> words;
+    private final int[][] wordIds;
+    private final int[][] wordCounts;
+
+    RuleNumbers(int[] nFound, int[] nBase, int[] nSyllables, List<SingleProofreadingError[]> paraErrors) {
+      this.nFound = nFound;
+      this.nBase = nBase;
+      this.nSyllables = nSyllables;
+      errors = new ResultCache();
+      for (int i = 0; i < paraErrors.size(); i++) {
+        if (paraErrors.get(i) != null) {
+          errors.put(i, paraErrors.get(i));
+        }
+      }
+      words = null;
+      wordIds = null;
+      wordCounts = null;
+    }
+
+    RuleNumbers(List<Map<String, Integer>> paraWordCounts) {
+      nFound = null;
+      nBase = null;
+      nSyllables = null;
+      errors = null;
+      words = new ArrayList<>();
+      Map<String, Integer> ids = new HashMap<>();
+      wordIds = new int[paraWordCounts.size()][];
+      wordCounts = new int[paraWordCounts.size()][];
+      for (int i = 0; i < paraWordCounts.size(); i++) {
+        Map<String, Integer> counts = paraWordCounts.get(i);
+        wordIds[i] = new int[counts.size()];
+        wordCounts[i] = new int[counts.size()];
+        int n = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+          Integer id = ids.get(entry.getKey());
+          if (id == null) {
+            id = words.size();
+            ids.put(entry.getKey(), id);
+            words.add(entry.getKey());
+          }
+          wordIds[i][n] = id;
+          wordCounts[i][n] = entry.getValue();
+          n++;
+        }
+      }
+    }
+
+    /**
+     * number of paragraphs
+     */
+    int size() {
+      return nFound != null ? nFound.length : wordIds.length;
+    }
+
+    boolean isLevelNumbers() {
+      return nFound != null;
+    }
+
+    int getFound(int nPara) {
+      return nFound[nPara];
+    }
+
+    int getBase(int nPara) {
+      return nBase[nPara];
+    }
+
+    int getSyllables(int nPara) {
+      return nSyllables[nPara];
+    }
+
+    /**
+     * errors of a paragraph; null if there are none
+     */
+    SingleProofreadingError[] getErrors(int nPara) {
+      return errors.getSafeMatches(nPara);
+    }
+
+    /**
+     * word counts of a paragraph
+     */
+    Map<String, Integer> getWordCounts(int nPara) {
+      Map<String, Integer> counts = new HashMap<>();
+      for (int i = 0; i < wordIds[nPara].length; i++) {
+        counts.put(words.get(wordIds[nPara][i]), wordCounts[nPara][i]);
+      }
+      return counts;
+    }
+  }
+
+}
@@ -20,18 +20,21 @@ package org.languagetool.openoffice.stylestatistic;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.Set;
 
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.AnalyzedTokenReadings;
 import org.languagetool.JLanguageTool;
 import org.languagetool.openoffice.MessageHandler;
 import org.languagetool.openoffice.ResultCache;
+import org.languagetool.openoffice.stylestatistic.StatAnCache.TextChange;
+import org.languagetool.openoffice.stylestatistic.StatAnSnapshot.RuleNumbers;
+import org.languagetool.openoffice.stylestatistic.WordFrequencyIndex.MostUsedWords;
+import org.languagetool.openoffice.stylestatistic.WordFrequencyIndex.WordCount;
 import org.languagetool.rules.AbstractStyleTooOftenUsedWordRule;
 import org.languagetool.rules.ReadabilityRule;
 import org.languagetool.rules.TextLevelRule;
@@ -54,10 +57,12 @@ public class UsedWordRule {
   private int procentualStep;
   private int optimalNumberWords;
   private boolean withDirectSpeech;
-  private List<Map<String, Integer>> wordMapList = new ArrayList<>();
+  private WordFrequencyIndex wordIndex = new WordFrequencyIndex(new ArrayList<>());
   private List<String> excludedWords = new ArrayList<>();
   private List<WordFrequency> mostUsed = new ArrayList<>();
   private String selectedWord;
+  private int newFrom;                                //  word counts collected by addParagraph
+  private List<Map<String, Integer>> newWordMaps;
   
   public UsedWordRule(TextLevelRule rule, StatAnCache cache) {
     this.rule = rule;
@@ -72,33 +77,97 @@ public class UsedWordRule {
         if (debugMode) {
           MessageHandler.printToLogFile("withDirectSpeech: " + withDirectSpeech);
         }
-        String langCode = cache.getDocShortCodeLanguage();
-        for (int i = 0; i < cache.size(); i++) {
-          if (langCode.equals(cache.getLanguageFlatParagraph(i))) {
-            rule.match(cache.getAnalysedParagraph(i), null);
-            wordMapList.add(new HashMap<>(((AbstractStyleTooOftenUsedWordRule) rule).getWordMap()));
-            if (debugMode) {
-              MessageHandler.printToLogFile("Paragraph " + i + ": Number of words: " + wordMapList.get(i).size());
-            }
-          } else {
-            wordMapList.add(new HashMap<>());
-          }
-        }
-        mostUsed = getMostUsed(0, cache.size());
+        matchParagraphs(cache, 0, cache.size());
+        finishBasicNumbers(null, cache.size());
       }
       cache.setNewResultcache(null, null);
     } catch (IOException e) {
       MessageHandler.showError(e);
     }
   }
+  
+  /**
+   * match the text paragraphs from (inclusive) to (exclusive) by the rule
+   */
+  private void matchParagraphs(StatAnCache cache, int from, int to) throws IOException {
+    startBasicNumbers(from, to);
+    String langCode = cache.getDocShortCodeLanguage();
+    for (int i = from; i < to; i++) {
+      if (langCode.equals(cache.getLanguageFlatParagraph(i))) {
+        addParagraph(i, cache.getAnalysedParagraph(i));
+      }
+    }
+  }
+  
+  /**
+   * start the collection of the word counts of the text paragraphs from (inclusive) to (exclusive)
+   * the counts are added by addParagraph and set by finishBasicNumbers
+   */
+  void startBasicNumbers(int from, int to) {
+    newFrom = from;
+    newWordMaps = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) {
+      newWordMaps.add(Collections.emptyMap());
+    }
+  }
+  
+  /**
+   * match a text paragraph (in the language of the document) by the rule and store the counts of the words
+   */
+  void addParagraph(int nTPara, List<AnalyzedSentence> sentences) throws IOException {
+    rule.match(sentences, null);
+    newWordMaps.set(nTPara - newFrom, new HashMap<>(((AbstractStyleTooOftenUsedWordRule) rule).getWordMap()));
+    if (debugMode) {
+      MessageHandler.printToLogFile("Paragraph " + nTPara + ": Number of words: " + newWordMaps.get(nTPara - newFrom).size());
+    }
+  }
+  
+  /**
+   * take the word counts of a text paragraph from a snapshot (the paragraph nOld of the snapshot has the same text)
+   */
+  void addParagraph(int nTPara, RuleNumbers numbers, int nOld) {
+    newWordMaps.set(nTPara - newFrom, numbers.getWordCounts(nOld));
+  }
+  
+  /**
+   * set the collected counts
+   * change == null: the counts of all paragraphs were collected
+   * else: the counts of the changed paragraphs replace the old ones
+   */
+  void finishBasicNumbers(TextChange change, int nParas) {
+    if (change == null) {
+      //  the maps are only needed to build the index
+      wordIndex = new WordFrequencyIndex(newWordMaps);
+    } else {
+      wordIndex.replaceParagraphs(change.from, change.oldTo, newWordMaps);
+    }
+    newWordMaps = null;
+    mostUsed = getMostUsed(0, nParas);
+  }
+
+  /**
+   * key of the numbers of the rule in a snapshot
+   */
+  String getSnapshotKey() {
+    return StatAnSnapshot.getRuleKey(rule, withDirectSpeech);
+  }
+  
+  /**
+   * get the word counts of all paragraphs to store them in a snapshot
+   */
+  RuleNumbers getSnapshotNumbers() {
+    List<Map<String, Integer>> wordMaps = new ArrayList<>(wordIndex.size());
+    for (int i = 0; i < wordIndex.size(); i++) {
+      wordMaps.add(wordIndex.getWordCounts(i));
+    }
+    return new RuleNumbers(wordMaps);
+  }
 
   public void setWithDirectSpeach(boolean wDirectSpeech, StatAnCache cache) {
     if (debugMode) {
       MessageHandler.printToLogFile("withDirectSpeech: " + withDirectSpeech + ", wDirectSpeech: " + wDirectSpeech);
     }
-    if (withDirectSpeech != wDirectSpeech) {
-      withDirectSpeech = wDirectSpeech;
-      ((AbstractStyleTooOftenUsedWordRule) rule).setWithoutDirectSpeech(!withDirectSpeech);
+    if (setDirectSpeech(wDirectSpeech)) {
       if (debugMode) {
         MessageHandler.printToLogFile("Generate basic numbers");
       }
@@ -106,6 +175,18 @@ public class UsedWordRule {
     }
   }
   
+  /**
+   * set the option without generating the numbers; returns true if it was changed
+   */
+  boolean setDirectSpeech(boolean wDirectSpeech) {
+    if (withDirectSpeech == wDirectSpeech) {
+      return false;
+    }
+    withDirectSpeech = wDirectSpeech;
+    ((AbstractStyleTooOftenUsedWordRule) rule).setWithoutDirectSpeech(!withDirectSpeech);
+    return true;
+  }
+  
   public void setListExcludedWords(List<String> words) {
     excludedWords.clear();
     if (words != null) {
@@ -125,52 +206,17 @@ public class UsedWordRule {
   }
 
   private List<WordFrequency> getMostUsed(int from, int to) {
-    Map<String, Integer> wordMap = new HashMap<>();
     List<WordFrequency> wordList = new ArrayList<>();
-    for (int i = from; i < to; i++) {
-      if (debugMode) {
-        MessageHandler.printToLogFile("i = " + i + ": Number of words: " + wordMapList.get(i).keySet().size());
-      }
-      for (String word : wordMapList.get(i).keySet()) {
-        if (!excludedWords.contains(word)) {
-          if (wordMap.containsKey(word)) {
-            int nWords = wordMap.get(word);
-            nWords += wordMapList.get(i).get(word);
-            wordMap.put(word, nWords);
-          } else {
-            wordMap.put(word, wordMapList.get(i).get(word));
-          }
-        }
-      }
-    }
+    MostUsedWords mostUsedWords = wordIndex.getMostUsed(from, to, MAX_LIST_LENGTH, excludedWords);
     if (debugMode) {
-      MessageHandler.printToLogFile("Number of words: " + wordMap.size());
+      MessageHandler.printToLogFile("Number of words: " + mostUsedWords.nWords);
     }
-    int nWords = 0;
-    for (String word : wordMap.keySet()) {
-      nWords += wordMap.get(word);
-    }
-    if (debugMode) {
-      MessageHandler.printToLogFile("Number of words: " + nWords);
-    }
-    if (nWords < 1) {
+    if (mostUsedWords.nWords < 1) {
       return wordList;
     }
-    Set<String> words = new HashSet<>(wordMap.keySet());
-    int limit = MAX_LIST_LENGTH <= words.size() ? MAX_LIST_LENGTH : words.size();
-    for (int i = 0; i < limit; i++) {
-      String mostUsed = null;
-      int num = 0;
-      for (String word : words) {
-        int wordNum = wordMap.get(word);
-        if (wordNum > num) {
-          mostUsed = word;
-          num = wordNum;
-        }
-      }
-      double percent = ((double) num) * 100. / ((double) nWords);
-      wordList.add(new WordFrequency(mostUsed, percent));
-      words.remove(mostUsed);
+    for (WordCount wordCount : mostUsedWords.words) {
+      double percent = ((double) wordCount.count) * 100. / ((double) mostUsedWords.nWords);
+      wordList.add(new WordFrequency(wordCount.word, percent));
     }
     return wordList;
   }
@@ -192,10 +238,7 @@ public class UsedWordRule {
   }
   
   public boolean isRelevantParagraph(int nTPara) {
-    if(wordMapList.get(nTPara).get(selectedWord) == null) {
-      return false;
-    }
-    return (wordMapList.get(nTPara).get(selectedWord) > 0);
+    return wordIndex.getCount(nTPara, selectedWord) > 0;
   }
 
   private int getDefaultRuleStep() {
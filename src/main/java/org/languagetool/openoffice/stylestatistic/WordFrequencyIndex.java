@@ -0,0 +1,307 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice.stylestatistic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Index of the frequencies of words in ranges of paragraphs
+ * - every word is encoded by an ID (index in a word table)
+ * - the counts of a paragraph are stored as sorted arrays of IDs and counts
+ * - a segment tree stores the merged counts of ranges of paragraphs, so that the counts of
+ *   any range are merged from O(log n) nodes
+ * - the most used words are selected by a heap; the counts of a query are summed up in a buffer
+ *   which is reused by all queries (only the entries of the found words are reset)
+ * @since 6.5
+ * @author Fred Kruse
+ */
+class WordFrequencyIndex {
+
+  private static final int[] EMPTY = new int[0];
+
+  private final Map<String, Integer> wordIds = new HashMap<>();
+  private final List<String> words = new ArrayList<>();
+  private int nParas;
+  //  nodes of the segment tree: leaves (paragraphs) at nParas ... 2 * nParas - 1, node i merges the nodes 2i and 2i + 1
+  private int[][] nodeIds;
+  private int[][] nodeCounts;
+  private int[] queryCounts = EMPTY;    //  buffer of getMostUsed: counts indexed by word ID (all 0 outside of a query)
+
+  /**
+   * create the index from the word counts of every paragraph
+   */
+  WordFrequencyIndex(List<Map<String, Integer>> paraWordCounts) {
+    nParas = paraWordCounts.size();
+    nodeIds = new int[2 * nParas][];
+    nodeCounts = new int[2 * nParas][];
+    for (int i = 0; i < nParas; i++) {
+      setLeaf(nParas + i, paraWordCounts.get(i));
+    }
+    for (int i = nParas - 1; i > 0; i--) {
+      merge(i);
+    }
+  }
+
+  /**
+   * replace the word counts of the paragraphs from (inclusive) to oldTo (exclusive)
+   * if the number of paragraphs is not changed only the nodes above the changed paragraphs are merged again,
+   * else all nodes above the paragraphs are built new
+   */
+  void replaceParagraphs(int from, int oldTo, List<Map<String, Integer>> paraWordCounts) {
+    if (oldTo - from == paraWordCounts.size()) {
+      BitSet changedNodes = new BitSet(nParas);
+      for (int i = 0; i < paraWordCounts.size(); i++) {
+        int leaf = nParas + from + i;
+        setLeaf(leaf, paraWordCounts.get(i));
+        for (int node = leaf / 2; node > 0 && !changedNodes.get(node); node /= 2) {
+          changedNodes.set(node);
+        }
+      }
+      //  children have higher numbers than their parents
+      for (int node = changedNodes.previousSetBit(nParas - 1); node > 0; node = changedNodes.previousSetBit(node - 1)) {
+        merge(node);
+      }
+      return;
+    }
+    int newParas = nParas - (oldTo - from) + paraWordCounts.size();
+    int[][] newIds = new int[2 * newParas][];
+    int[][] newCounts = new int[2 * newParas][];
+    int shift = paraWordCounts.size() - (oldTo - from);
+    for (int i = 0; i < from; i++) {
+      newIds[newParas + i] = nodeIds[nParas + i];
+      newCounts[newParas + i] = nodeCounts[nParas + i];
+    }
+    for (int i = oldTo; i < nParas; i++) {
+      newIds[newParas + i + shift] = nodeIds[nParas + i];
+      newCounts[newParas + i + shift] = nodeCounts[nParas + i];
+    }
+    nParas = newParas;
+    nodeIds = newIds;
+    nodeCounts = newCounts;
+    for (int i = 0; i < paraWordCounts.size(); i++) {
+      setLeaf(nParas + from + i, paraWordCounts.get(i));
+    }
+    for (int i = nParas - 1; i > 0; i--) {
+      merge(i);
+    }
+  }
+
+  /**
+   * set the sorted IDs and counts of the words of a paragraph
+   */
+  private void setLeaf(int leaf, Map<String, Integer> wordCounts) {
+    int[] ids = new int[wordCounts.size()];
+    int n = 0;
+    for (Map.Entry<String, Integer> entry : wordCounts.entrySet()) {
+      if (entry.getValue() != null && entry.getValue() > 0) {
+        ids[n] = getOrAddId(entry.getKey());
+        n++;
+      }
+    }
+    ids = n == 0 ? EMPTY : Arrays.copyOf(ids, n);
+    Arrays.sort(ids);
+    int[] counts = new int[ids.length];
+    for (int j = 0; j < ids.length; j++) {
+      counts[j] = wordCounts.get(words.get(ids[j]));
+    }
+    nodeIds[leaf] = ids;
+    nodeCounts[leaf] = counts;
+  }
+
+  private int getOrAddId(String word) {
+    Integer id = wordIds.get(word);
+    if (id == null) {
+      id = words.size();
+      wordIds.put(word, id);
+      words.add(word);
+    }
+    return id;
+  }
+
+  /**
+   * merge the sorted counts of the children of a node
+   */
+  private void merge(int node) {
+    int[] ids1 = nodeIds[2 * node];
+    int[] counts1 = nodeCounts[2 * node];
+    int[] ids2 = nodeIds[2 * node + 1];
+    int[] counts2 = nodeCounts[2 * node + 1];
+    int[] ids = new int[ids1.length + ids2.length];
+    int[] counts = new int[ids.length];
+    int i = 0;
+    int j = 0;
+    int n = 0;
+    while (i < ids1.length || j < ids2.length) {
+      if (j >= ids2.length || (i < ids1.length && ids1[i] < ids2[j])) {
+        ids[n] = ids1[i];
+        counts[n] = counts1[i];
+        i++;
+      } else if (i >= ids1.length || ids2[j] < ids1[i]) {
+        ids[n] = ids2[j];
+        counts[n] = counts2[j];
+        j++;
+      } else {
+        ids[n] = ids1[i];
+        counts[n] = counts1[i] + counts2[j];
+        i++;
+        j++;
+      }
+      n++;
+    }
+    nodeIds[node] = n == ids.length ? ids : (n == 0 ? EMPTY : Arrays.copyOf(ids, n));
+    nodeCounts[node] = n == counts.length ? counts : (n == 0 ? EMPTY : Arrays.copyOf(counts, n));
+  }
+
+  /**
+   * number of paragraphs
+   */
+  int size() {
+    return nParas;
+  }
+
+  /**
+   * count of a word in a paragraph
+   */
+  int getCount(int nPara, String word) {
+    Integer id = word == null ? null : wordIds.get(word);
+    if (id == null || nPara < 0 || nPara >= nParas) {
+      return 0;
+    }
+    int n = Arrays.binarySearch(nodeIds[nParas + nPara], id);
+    return n < 0 ? 0 : nodeCounts[nParas + nPara][n];
+  }
+
+  /**
+   * word counts of a paragraph
+   */
+  Map<String, Integer> getWordCounts(int nPara) {
+    int[] ids = nodeIds[nParas + nPara];
+    Map<String, Integer> wordCounts = new HashMap<>();
+    for (int i = 0; i < ids.length; i++) {
+      wordCounts.put(words.get(ids[i]), nodeCounts[nParas + nPara][i]);
+    }
+    return wordCounts;
+  }
+
+  /**
+   * get the most used words of the paragraphs from (inclusive) to (exclusive)
+   * excluded words are not counted
+   */
+  MostUsedWords getMostUsed(int from, int to, int maxWords, Collection<String> excludedWords) {
+    from = Math.max(0, from);
+    to = Math.min(to, nParas);
+    if (queryCounts.length < words.size()) {
+      queryCounts = new int[Math.max(words.size(), 2 * queryCounts.length)];
+    }
+    int[] counts = queryCounts;
+    List<Integer> usedIds = new ArrayList<>();
+    try {
+      //  add the nodes covering the range (iterative segment tree query)
+      for (int l = from + nParas, r = to + nParas; l < r; l /= 2, r /= 2) {
+        if ((l & 1) == 1) {
+          addNode(l, counts, usedIds);
+          l++;
+        }
+        if ((r & 1) == 1) {
+          r--;
+          addNode(r, counts, usedIds);
+        }
+      }
+      if (excludedWords != null) {
+        for (String word : excludedWords) {
+          Integer id = wordIds.get(word);
+          if (id != null) {
+            counts[id] = 0;
+          }
+        }
+      }
+      long nWords = 0;
+      //  heap of the most used words; the root is the least used (the word with the higher ID if the counts are equal)
+      PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, maxWords + 1), 
+          (id1, id2) -> counts[id1] != counts[id2] ? Integer.compare(counts[id1], counts[id2]) : Integer.compare(id2, id1));
+      for (int id : usedIds) {
+        if (counts[id] > 0) {
+          nWords += counts[id];
+          heap.add(id);
+          if (heap.size() > maxWords) {
+            heap.poll();
+          }
+        }
+      }
+      List<WordCount> mostUsed = new ArrayList<>(heap.size());
+      while (!heap.isEmpty()) {
+        int id = heap.poll();
+        mostUsed.add(new WordCount(words.get(id), counts[id]));
+      }
+      Collections.reverse(mostUsed);
+      return new MostUsedWords(mostUsed, nWords);
+    } finally {
+      //  reset only the used entries: the costs don't depend on the number of all words
+      for (int id : usedIds) {
+        counts[id] = 0;
+      }
+    }
+  }
+
+  private void addNode(int node, int[] counts, List<Integer> usedIds) {
+    int[] ids = nodeIds[node];
+    int[] nodeCount = nodeCounts[node];
+    for (int i = 0; i < ids.length; i++) {
+      if (counts[ids[i]] == 0) {
+        usedIds.add(ids[i]);
+      }
+      counts[ids[i]] += nodeCount[i];
+    }
+  }
+
+  /**
+   * count of a word
+   */
+  static class WordCount {
+    final String word;
+    final int count;
+
+    WordCount(String word, int count) {
+      this.word = word;
+      this.count = count;
+    }
+  }
+
+  /**
+   * most used words of a range (sorted by descending count) and the number of all counted words
+   */
+  static class MostUsedWords {
+    final List<WordCount> words;
+    final long nWords;
+
+    MostUsedWords(List<WordCount> words, long nWords) {
+      this.words = words;
+      this.nWords = nWords;
+    }
+  }
+
+}
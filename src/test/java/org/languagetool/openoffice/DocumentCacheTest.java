@@ -0,0 +1,142 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.languagetool.openoffice.DocumentCache.ChangedRange;
+import org.languagetool.openoffice.OfficeDrawTools.ParagraphContainer;
+import org.languagetool.openoffice.OfficeTools.DocumentType;
+
+import com.sun.star.lang.Locale;
+
+public class DocumentCacheTest {
+
+  private static DocumentCache createDocumentCache(List<String> paragraphs) {
+    List<List<String>> textParagraphs = new ArrayList<>();
+    List<List<Integer>> chapterBegins = new ArrayList<>();
+    for (int i = 0; i < DocumentCache.NUMBER_CURSOR_TYPES; i++) {
+      textParagraphs.add(i == DocumentCache.CURSOR_TYPE_TEXT ? new ArrayList<>(paragraphs) : new ArrayList<>());
+      chapterBegins.add(new ArrayList<>());
+    }
+    List<int[]> footnotes = new ArrayList<>();
+    for (int i = 0; i < paragraphs.size(); i++) {
+      footnotes.add(new int[0]);
+    }
+    DocumentCache docCache = new DocumentCache(DocumentType.WRITER);
+    docCache.setForTest(paragraphs, textParagraphs, footnotes, chapterBegins, new Locale("en", "US", ""));
+    return docCache;
+  }
+
+  /**
+   * container of an extraction of a document with one block (shape or sheet) per text; the paragraphs are separated by '\n'
+   */
+  private static ParagraphContainer createContainer(String... blockTexts) {
+    List<String> paragraphs = new ArrayList<>();
+    List<Locale> locales = new ArrayList<>();
+    List<Integer> blockBegins = new ArrayList<>();
+    List<Long> blockFingerprints = new ArrayList<>();
+    for (String text : blockTexts) {
+      blockBegins.add(paragraphs.size());
+      blockFingerprints.add(ParagraphContainer.getFingerprint(text.hashCode(), text.length()));
+      for (String paragraph : text.split("\n")) {
+        paragraphs.add(paragraph);
+        locales.add(new Locale("en", "US", ""));
+      }
+    }
+    return new ParagraphContainer(paragraphs, locales, new ArrayList<>(), blockBegins, blockFingerprints);
+  }
+
+  private static void assertChangedRange(int from, int to, int oldSize, int newSize, ChangedRange changed) {
+    assertEquals(from, changed.from);
+    assertEquals(to, changed.to);
+    assertEquals(oldSize, changed.oldSize);
+    assertEquals(newSize, changed.newSize);
+  }
+
+  @Test
+  public void testFlatParagraphsLength() {
+    DocumentCache docCache = createDocumentCache(Arrays.asList("one", "", "three", "four"));
+    assertEquals(4 + 1 + 6 + 5, docCache.getFlatParagraphsLength(0, 4));
+    assertEquals(1 + 6, docCache.getFlatParagraphsLength(1, 3));
+    assertEquals(0, docCache.getFlatParagraphsLength(2, 2));
+    assertEquals(6 + 5, docCache.getFlatParagraphsLength(2, 10));
+    //  the lengths follow the changes of paragraphs
+    docCache.setFlatParagraph(1, "two");
+    assertEquals(4 + 4 + 6 + 5, docCache.getFlatParagraphsLength(0, 4));
+    docCache.setFlatParagraph(3, "", new Locale("en", "US", ""));
+    assertEquals(4 + 4 + 6 + 1, docCache.getFlatParagraphsLength(0, 4));
+  }
+
+  @Test
+  public void testChangedRange() {
+    ParagraphContainer oldContainer = createContainer("a1\na2", "b1\nb2\nb3", "c1");
+    //  unchanged
+    assertChangedRange(6, 6, 6, 6, DocumentCache.getChangedRange(oldContainer, createContainer("a1\na2", "b1\nb2\nb3", "c1")));
+    //  changed block in the middle
+    assertChangedRange(2, 6, 6, 7, DocumentCache.getChangedRange(oldContainer, createContainer("a1\na2", "b1\nB2\nb3\nb4", "c1")));
+    //  inserted block
+    assertChangedRange(2, 4, 6, 8, DocumentCache.getChangedRange(oldContainer, createContainer("a1\na2", "x1\nx2", "b1\nb2\nb3", "c1")));
+    //  removed block (the end of the range is related to the new size)
+    assertChangedRange(2, 2, 6, 3, DocumentCache.getChangedRange(oldContainer, createContainer("a1\na2", "c1")));
+    //  empty block lists
+    assertChangedRange(0, 6, 0, 6, DocumentCache.getChangedRange(createContainer(), oldContainer));
+    assertChangedRange(0, 0, 6, 0, DocumentCache.getChangedRange(oldContainer, createContainer()));
+    assertChangedRange(0, 0, 0, 0, DocumentCache.getChangedRange(createContainer(), createContainer()));
+  }
+
+  @Test
+  public void testChangedRangeWithoutFingerprints() {
+    ParagraphContainer oldContainer = createContainer("a1\na2", "b1\nb2\nb3", "c1");
+    //  an incomplete extraction with the same number of paragraphs is not taken as unchanged
+    ParagraphContainer incomplete = new ParagraphContainer(oldContainer.paragraphs, oldContainer.locales, oldContainer.pageBegins);
+    assertChangedRange(0, 6, 6, 6, DocumentCache.getChangedRange(oldContainer, incomplete));
+    assertChangedRange(0, 6, 6, 6, DocumentCache.getChangedRange(incomplete, oldContainer));
+    //  fingerprints which don't cover all paragraphs
+    ParagraphContainer uncovered = createContainer("a1\na2", "b1\nb2\nb3", "c1");
+    uncovered.blockFingerprints.remove(2);
+    assertChangedRange(0, 6, 6, 6, DocumentCache.getChangedRange(oldContainer, uncovered));
+    uncovered = createContainer("a1\na2", "b1\nb2\nb3", "c1");
+    uncovered.blockBegins.set(0, 1);
+    assertChangedRange(0, 6, 6, 6, DocumentCache.getChangedRange(uncovered, oldContainer));
+  }
+
+  @Test
+  public void testTakeBlock() {
+    //  "Aa" and "BB" have the same hash code and length
+    ParagraphContainer container = createContainer("Aa", "b1\nb2", "Aa");
+    long fingerprint = ParagraphContainer.getFingerprint("BB".hashCode(), "BB".length());
+    assertEquals(fingerprint, (long) container.blockFingerprints.get(0));
+    assertEquals(-1, container.takeBlock(fingerprint, "BB"));
+    assertEquals(0, container.takeBlock(fingerprint, "Aa"));
+    assertEquals(2, container.takeBlock(fingerprint, "Aa"));
+    assertEquals(-1, container.takeBlock(fingerprint, "Aa"));
+    //  an empty last paragraph of the text is not part of the block
+    String text = "b1\nb2\n";
+    container = createContainer(text);
+    assertEquals(2, container.paragraphs.size());
+    assertEquals(0, container.takeBlock(ParagraphContainer.getFingerprint(text.hashCode(), text.length()), text));
+  }
+
+}
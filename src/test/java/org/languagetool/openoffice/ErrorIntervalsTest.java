@@ -0,0 +1,81 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.sun.star.linguistic2.SingleProofreadingError;
+
+public class ErrorIntervalsTest {
+
+  private static SingleProofreadingError error(int start, int length, String ruleId) {
+    SingleProofreadingError error = new SingleProofreadingError();
+    error.nErrorStart = start;
+    error.nErrorLength = length;
+    error.aRuleIdentifier = ruleId;
+    error.aSuggestions = new String[0];
+    return error;
+  }
+
+  @Test
+  public void testGetIndicesAt() {
+    SingleProofreadingError[] errors = { error(10, 5, "A"), error(0, 30, "B"), error(12, 2, "C"), error(40, 3, "D") };
+    ErrorIntervals intervals = new ErrorIntervals(errors);
+    assertEquals(Arrays.asList(1), intervals.getIndicesAt(0));
+    assertEquals(Arrays.asList(1, 0, 2), intervals.getIndicesAt(12));
+    assertEquals(Arrays.asList(1), intervals.getIndicesAt(15));
+    assertTrue(intervals.getIndicesAt(30).isEmpty());
+    assertEquals(Arrays.asList(3), intervals.getIndicesAt(42));
+    assertTrue(intervals.getIndicesAt(43).isEmpty());
+  }
+
+  @Test
+  public void testGetIgnoredIndices() {
+    SingleProofreadingError[] errors = { error(0, 4, "A"), error(5, 4, "A"), error(5, 4, "B") };
+    ErrorIntervals intervals = new ErrorIntervals(errors);
+    Map<String, Set<Integer>> ignored = new HashMap<>();
+    ignored.put("A", new HashSet<>(Arrays.asList(6)));
+    assertEquals(new HashSet<>(Arrays.asList(1)), intervals.getIgnoredIndices(errors, ignored));
+  }
+
+  @Test
+  public void testSplitOverlappingErrors() {
+    SingleProofreadingError[] errors = { error(0, 20, "A"), error(5, 3, "B"), error(30, 2, "C") };
+    SingleProofreadingError[] result = ErrorIntervals.splitOverlappingErrors(errors);
+    assertEquals(4, result.length);
+    assertEquals(0, result[0].nErrorStart);
+    assertEquals(4, result[0].nErrorLength);
+    assertEquals(9, result[1].nErrorStart);
+    assertEquals(11, result[1].nErrorLength);
+    assertEquals("B", result[2].aRuleIdentifier);
+    assertEquals("C", result[3].aRuleIdentifier);
+    SingleProofreadingError[] noOverlaps = { error(0, 4, "A"), error(5, 3, "B") };
+    assertTrue(noOverlaps == ErrorIntervals.splitOverlappingErrors(noOverlaps));
+  }
+
+}
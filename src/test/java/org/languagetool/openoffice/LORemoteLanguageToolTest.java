@@ -0,0 +1,140 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.languagetool.openoffice.RemoteResultCache.RemoteMatches;
+import org.languagetool.remote.CheckConfiguration;
+import org.languagetool.remote.CheckConfigurationBuilder;
+import org.languagetool.remote.RemoteLanguageTool;
+import org.languagetool.remote.RemoteRuleMatch;
+
+public class LORemoteLanguageToolTest {
+
+  private static final int MAX_TEXT_LENGTH = 100;
+
+  private LtServerStandIn server;
+  private RemoteLanguageTool remoteLanguageTool;
+  private CheckConfiguration remoteConfig;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new LtServerStandIn();
+    remoteLanguageTool = new RemoteLanguageTool(server.getUrl());
+    remoteConfig = new CheckConfigurationBuilder("en-US").build();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+
+  /**
+   * text of nParagraphs paragraphs with one error each (the word is given to get different texts for different tests)
+   */
+  private static String getText(int nParagraphs, String word) {
+    List<String> paragraphs = new ArrayList<>();
+    for (int i = 0; i < nParagraphs; i++) {
+      paragraphs.add("Paragraph " + i + " of " + word + " has an " + LtServerStandIn.ERROR_WORD + " in it.");
+    }
+    return String.join(OfficeTools.END_OF_PARAGRAPH, paragraphs);
+  }
+
+  @Test
+  public void testChunkBoundsAtParagraphEnds() {
+    String text = getText(20, "bounds");
+    List<Integer> chunkBounds = LORemoteLanguageTool.getChunkBounds(text, MAX_TEXT_LENGTH);
+    assertTrue(chunkBounds.size() > 3);
+    assertEquals(0, (int) chunkBounds.get(0));
+    assertEquals(text.length(), (int) chunkBounds.get(chunkBounds.size() - 1));
+    for (int i = 1; i < chunkBounds.size(); i++) {
+      assertTrue(chunkBounds.get(i) - chunkBounds.get(i - 1) <= MAX_TEXT_LENGTH);
+      if (i < chunkBounds.size() - 1) {
+        assertTrue(text.startsWith(OfficeTools.END_OF_PARAGRAPH, chunkBounds.get(i) - OfficeTools.NUMBER_PARAGRAPH_CHARS));
+      }
+    }
+  }
+
+  @Test
+  public void testChunkBoundsAtBlanks() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 50; i++) {
+      sb.append("word").append(i).append(' ');
+    }
+    String text = sb.toString();
+    List<Integer> chunkBounds = LORemoteLanguageTool.getChunkBounds(text, MAX_TEXT_LENGTH);
+    assertTrue(chunkBounds.size() > 2);
+    for (int i = 1; i < chunkBounds.size() - 1; i++) {
+      assertTrue(chunkBounds.get(i) - chunkBounds.get(i - 1) <= MAX_TEXT_LENGTH);
+      assertEquals(' ', text.charAt(chunkBounds.get(i) - 1));
+    }
+  }
+
+  @Test
+  public void testShortTextIsOneChunk() {
+    String text = getText(1, "short");
+    assertEquals(Arrays.asList(0, text.length()), LORemoteLanguageTool.getChunkBounds(text, MAX_TEXT_LENGTH));
+  }
+
+  @Test
+  public void testCheckChunks() throws IOException {
+    server.setDelay(40);   //  the answers of the parallel requests come back in a different order
+    String text = getText(20, "chunks");
+    List<Integer> chunkBounds = LORemoteLanguageTool.getChunkBounds(text, MAX_TEXT_LENGTH);
+    int nChunks = chunkBounds.size() - 1;
+    List<RemoteMatches> remoteMatches = LORemoteLanguageTool.checkChunks(remoteLanguageTool, text, chunkBounds,
+        remoteConfig, "testCheckChunks");
+    assertNotNull(remoteMatches);
+    assertEquals(nChunks, remoteMatches.size());
+    assertEquals(nChunks, server.getRequestTexts().size());
+    //  the matches rebased to the whole text are in the order of the text
+    List<Integer> positions = new ArrayList<>();
+    for (int i = 0; i < nChunks; i++) {
+      for (RemoteRuleMatch match : remoteMatches.get(i).matches) {
+        assertEquals(LtServerStandIn.RULE_ID, match.getRuleId());
+        positions.add(chunkBounds.get(i) + remoteMatches.get(i).offset + match.getErrorOffset());
+      }
+    }
+    assertEquals(LtServerStandIn.getErrorPositions(text), positions);
+    //  the second check is answered by the result cache
+    assertNotNull(LORemoteLanguageTool.checkChunks(remoteLanguageTool, text, chunkBounds, remoteConfig, "testCheckChunks"));
+    assertEquals(nChunks, server.getRequestTexts().size());
+  }
+
+  @Test
+  public void testCheckChunksFailure() throws IOException {
+    server.setFails(true);
+    String text = getText(20, "failure");
+    List<Integer> chunkBounds = LORemoteLanguageTool.getChunkBounds(text, MAX_TEXT_LENGTH);
+    assertNull(LORemoteLanguageTool.checkChunks(remoteLanguageTool, text, chunkBounds, remoteConfig, "testCheckChunksFailure"));
+  }
+
+}
@@ -0,0 +1,175 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in of a LT server for the tests of the remote check
+ * Every occurrence of the word ERROR_WORD in a checked text is returned as match of the rule TEST_RULE
+ */
+class LtServerStandIn {
+
+  static final String ERROR_WORD = "error";
+  static final String RULE_ID = "TEST_RULE";
+
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final List<String> requestTexts = new ArrayList<>();
+  private final List<String> requestModes = new ArrayList<>();
+  private volatile boolean fails = false;
+  private volatile int delay = 0;
+
+  LtServerStandIn() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(executor);   //  requests are answered in parallel
+    server.createContext("/v2/check", exchange -> {
+      String text = "";
+      String mode = null;
+      try (InputStream in = exchange.getRequestBody()) {
+        for (String param : readAll(in).split("&")) {
+          int n = param.indexOf('=');
+          if (n > 0) {
+            String name = param.substring(0, n);
+            String value = URLDecoder.decode(param.substring(n + 1), "UTF-8");
+            if (name.equals("text")) {
+              text = value;
+            } else if (name.equals("mode")) {
+              mode = value;
+            }
+          }
+        }
+      }
+      int nRequest;
+      synchronized (requestTexts) {
+        requestTexts.add(text);
+        requestModes.add(mode);
+        nRequest = requestTexts.size();
+      }
+      if (delay > 0) {
+        try {
+          //  later requests are answered first
+          Thread.sleep(Math.max(1, delay - 10 * (nRequest % 4)));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      int code = fails ? 500 : 200;
+      byte[] answer = (fails ? "server error" : getAnswer(text)).getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(code, answer.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(answer);
+      }
+    });
+    server.start();
+  }
+
+  URL getUrl() throws IOException {
+    return new URL("http://localhost:" + server.getAddress().getPort());
+  }
+
+  void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  void setFails(boolean fails) {
+    this.fails = fails;
+  }
+
+  /**
+   * delay of the answers in milliseconds (later requests are answered earlier)
+   */
+  void setDelay(int delay) {
+    this.delay = delay;
+  }
+
+  List<String> getRequestTexts() {
+    synchronized (requestTexts) {
+      return new ArrayList<>(requestTexts);
+    }
+  }
+
+  List<String> getRequestModes() {
+    synchronized (requestTexts) {
+      return new ArrayList<>(requestModes);
+    }
+  }
+
+  /**
+   * positions of all occurrences of ERROR_WORD in a text
+   */
+  static List<Integer> getErrorPositions(String text) {
+    List<Integer> positions = new ArrayList<>();
+    for (int n = text.indexOf(ERROR_WORD); n >= 0; n = text.indexOf(ERROR_WORD, n + 1)) {
+      positions.add(n);
+    }
+    return positions;
+  }
+
+  private static String getAnswer(String text) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\"software\":{\"name\":\"LanguageTool\",\"version\":\"6.5\",\"buildDate\":\"2024-01-01 00:00:00 +0000\",")
+      .append("\"apiVersion\":1,\"premium\":false,\"status\":\"\"},")
+      .append("\"warnings\":{\"incompleteResults\":false},")
+      .append("\"language\":{\"name\":\"English (US)\",\"code\":\"en-US\",")
+      .append("\"detectedLanguage\":{\"name\":\"English (US)\",\"code\":\"en-US\",\"confidence\":0.9}},")
+      .append("\"matches\":[");
+    boolean isFirst = true;
+    for (int n : getErrorPositions(text)) {
+      if (!isFirst) {
+        sb.append(',');
+      }
+      isFirst = false;
+      sb.append("{\"message\":\"Test error\",\"shortMessage\":\"\",\"replacements\":[{\"value\":\"mistake\"}],")
+        .append("\"offset\":").append(n).append(",\"length\":").append(ERROR_WORD.length()).append(',')
+        .append("\"context\":{\"text\":\"").append(ERROR_WORD).append("\",\"offset\":0,\"length\":")
+        .append(ERROR_WORD.length()).append("},\"sentence\":\"").append(ERROR_WORD).append("\",")
+        .append("\"type\":{\"typeName\":\"Other\"},")
+        .append("\"rule\":{\"id\":\"").append(RULE_ID).append("\",\"description\":\"Test rule\",\"issueType\":\"misspelling\",")
+        .append("\"category\":{\"id\":\"TYPOS\",\"name\":\"Possible Typo\"}}}");
+    }
+    sb.append("]}");
+    return sb.toString();
+  }
+
+  private static String readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int n;
+    while ((n = in.read(buffer)) >= 0) {
+      out.write(buffer, 0, n);
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,75 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ParagraphCountsTest {
+
+  @Test
+  public void testSum() {
+    ParagraphCounts counts = new ParagraphCounts(new int[] { 3, 0, 5, 2, 7 });
+    assertEquals(17, counts.sum(0, 5));
+    assertEquals(7, counts.sum(1, 4));
+    assertEquals(0, counts.sum(3, 3));
+    assertEquals(9, counts.sum(3, 10));
+    assertEquals(0, new ParagraphCounts(new int[0]).sum(0, 10));
+  }
+
+  @Test
+  public void testReplace() {
+    ParagraphCounts counts = new ParagraphCounts(new int[] { 3, 0, 5, 2, 7 });
+    counts = counts.replace(1, 3, new int[] { 4, 1 });
+    assertEquals(8, counts.sum(0, 3));
+    counts = counts.replace(1, 2, new int[] { 6, 6, 6 });
+    assertEquals(7, counts.size());
+    assertEquals(21, counts.sum(0, 4));
+    counts = counts.replace(0, 5, new int[0]);
+    assertEquals(2, counts.size());
+    assertEquals(9, counts.sum(0, 2));
+  }
+
+  @Test
+  public void testSetAgainstPlainSums() {
+    Random random = new Random(17);
+    int[] values = new int[200];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextInt(50);
+    }
+    ParagraphCounts counts = new ParagraphCounts(values);
+    for (int n = 0; n < 1000; n++) {
+      int nPara = random.nextInt(values.length);
+      values[nPara] = random.nextInt(50);
+      counts.set(nPara, values[nPara]);
+      int from = random.nextInt(values.length);
+      int to = from + random.nextInt(values.length - from + 1);
+      long sum = 0;
+      for (int i = from; i < to; i++) {
+        sum += values[i];
+      }
+      assertEquals(sum, counts.sum(from, to));
+      assertEquals(values[nPara], counts.get(nPara));
+    }
+  }
+
+}
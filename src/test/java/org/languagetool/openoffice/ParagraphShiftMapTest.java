@@ -0,0 +1,87 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ParagraphShiftMapTest {
+
+  @Test
+  public void testPutGetRemove() {
+    ParagraphShiftMap<String> map = new ParagraphShiftMap<>();
+    map.put(5, "five");
+    map.put(1, "one");
+    map.put(3, "three");
+    map.put(3, "THREE");
+    assertEquals(3, map.size());
+    assertEquals("THREE", map.get(3));
+    assertEquals(Arrays.asList(1, 3, 5), map.keys());
+    assertEquals("one", map.remove(1));
+    assertNull(map.get(1));
+    assertEquals(3, map.ceilingKey(2));
+    assertEquals(3, map.floorKey(4));
+    assertEquals(-1, map.ceilingKey(6));
+  }
+
+  @Test
+  public void testRemoveAndShift() {
+    ParagraphShiftMap<Integer> map = new ParagraphShiftMap<>();
+    for (int i = 0; i < 10; i++) {
+      map.put(i, i);
+    }
+    //  two paragraphs inserted behind paragraph 3 (paragraph 4 changed)
+    map.removeAndShift(4, 7, 10, 12);
+    assertEquals(Arrays.asList(0, 1, 2, 3, 9, 10, 11), map.keys());
+    assertEquals(Integer.valueOf(7), map.get(9));
+    //  three paragraphs deleted behind paragraph 2
+    map.removeAndShift(3, 3, 12, 9);
+    assertEquals(Arrays.asList(0, 1, 2, 6, 7, 8), map.keys());
+    assertEquals(Integer.valueOf(9), map.get(8));
+    ParagraphShiftMap<Integer> copy = new ParagraphShiftMap<>(map);
+    map.removeRange(0, 3);
+    assertEquals(Arrays.asList(6, 7, 8), map.keys());
+    assertEquals(6, copy.size());
+  }
+
+  @Test
+  public void testNextMissingKey() {
+    ParagraphShiftMap<Integer> map = new ParagraphShiftMap<>();
+    for (int i : new int[] { 0, 1, 2, 4, 5, 8 }) {
+      map.put(i, i);
+    }
+    assertEquals(3, map.nextMissingKey(0));
+    assertEquals(3, map.nextMissingKey(3));
+    assertEquals(6, map.nextMissingKey(4));
+    assertEquals(7, map.nextMissingKey(7));
+    assertEquals(9, map.nextMissingKey(8));
+    assertEquals(20, map.nextMissingKey(20));
+    //  one paragraph inserted behind paragraph 2
+    map.removeAndShift(3, 3, 9, 10);
+    assertEquals(Arrays.asList(0, 1, 2, 5, 6, 9), map.keys());
+    assertEquals(3, map.nextMissingKey(1));
+    assertEquals(7, map.nextMissingKey(5));
+    assertEquals(6, map.size());
+  }
+
+}
@@ -0,0 +1,178 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.languagetool.openoffice.RemoteResultCache.RemoteMatches;
+import org.languagetool.remote.CheckConfiguration;
+import org.languagetool.remote.CheckConfigurationBuilder;
+import org.languagetool.remote.RemoteLanguageTool;
+import org.languagetool.remote.RemoteRuleMatch;
+
+public class RemoteCheckCoalescerTest {
+
+  private static final int WINDOW = 300;          //  long enough to collect all paragraphs of a test
+  private static final int N_PARAGRAPHS = 8;
+
+  private LtServerStandIn server;
+  private RemoteLanguageTool remoteLanguageTool;
+  private CheckConfiguration remoteConfig;
+  private ExecutorService executor;
+  private int oldWindow;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new LtServerStandIn();
+    remoteLanguageTool = new RemoteLanguageTool(server.getUrl());
+    remoteConfig = new CheckConfigurationBuilder("en-US").build();
+    executor = Executors.newCachedThreadPool();
+    oldWindow = OfficeTools.REMOTE_COALESCING_WINDOW;
+    OfficeTools.REMOTE_COALESCING_WINDOW = WINDOW;
+  }
+
+  @After
+  public void tearDown() {
+    OfficeTools.REMOTE_COALESCING_WINDOW = oldWindow;
+    executor.shutdownNow();
+    server.stop();
+  }
+
+  private static List<String> getParagraphs() {
+    List<String> paragraphs = new ArrayList<>();
+    for (int i = 0; i < N_PARAGRAPHS; i++) {
+      StringBuilder sb = new StringBuilder("Paragraph " + i);
+      for (int j = 0; j <= i % 3; j++) {
+        sb.append(" has an ").append(LtServerStandIn.ERROR_WORD);
+      }
+      paragraphs.add(sb.append('.').toString());
+    }
+    return paragraphs;
+  }
+
+  /**
+   * check all paragraphs in parallel threads
+   */
+  private List<RemoteMatches> checkParallel(RemoteCheckCoalescer coalescer, List<String> paragraphs) throws Exception {
+    List<Future<RemoteMatches>> futures = new ArrayList<>();
+    for (String paragraph : paragraphs) {
+      futures.add(executor.submit(() -> coalescer.check(paragraph, "test", remoteConfig)));
+    }
+    List<RemoteMatches> results = new ArrayList<>();
+    for (Future<RemoteMatches> future : futures) {
+      results.add(future.get());
+    }
+    return results;
+  }
+
+  /**
+   * the matches of every paragraph are given back with positions relative to the paragraph
+   */
+  private static void assertMatchesOfParagraphs(List<String> paragraphs, List<RemoteMatches> results) {
+    assertEquals(paragraphs.size(), results.size());
+    for (int i = 0; i < paragraphs.size(); i++) {
+      RemoteMatches remoteMatches = results.get(i);
+      assertNotNull(remoteMatches);
+      List<Integer> positions = new ArrayList<>();
+      for (RemoteRuleMatch match : remoteMatches.matches) {
+        positions.add(match.getErrorOffset() + remoteMatches.offset);
+      }
+      assertEquals(LtServerStandIn.getErrorPositions(paragraphs.get(i)), positions);
+    }
+  }
+
+  @Test
+  public void testBatching() throws Exception {
+    RemoteCheckCoalescer coalescer = new RemoteCheckCoalescer(remoteLanguageTool, 10000);
+    List<String> paragraphs = getParagraphs();
+    List<RemoteMatches> results = checkParallel(coalescer, paragraphs);
+    assertMatchesOfParagraphs(paragraphs, results);
+    List<String> requests = server.getRequestTexts();
+    assertTrue(requests.size() < paragraphs.size());
+    int nParagraphs = 0;
+    for (String request : requests) {
+      nParagraphs += request.split(OfficeTools.END_OF_PARAGRAPH).length;
+    }
+    assertEquals(paragraphs.size(), nParagraphs);
+  }
+
+  @Test
+  public void testFullBatchIsSplit() throws Exception {
+    int maxTextLength = 100;
+    RemoteCheckCoalescer coalescer = new RemoteCheckCoalescer(remoteLanguageTool, maxTextLength);
+    List<String> paragraphs = getParagraphs();
+    List<RemoteMatches> results = checkParallel(coalescer, paragraphs);
+    assertMatchesOfParagraphs(paragraphs, results);
+    List<String> requests = server.getRequestTexts();
+    assertTrue(requests.size() > 1);
+    for (String request : requests) {
+      assertTrue(request.length() <= maxTextLength);
+    }
+  }
+
+  @Test
+  public void testFailure() throws Exception {
+    server.setFails(true);
+    RemoteCheckCoalescer coalescer = new RemoteCheckCoalescer(remoteLanguageTool, 10000);
+    for (RemoteMatches remoteMatches : checkParallel(coalescer, getParagraphs())) {
+      assertNull(remoteMatches);
+    }
+  }
+
+  @Test
+  public void testInterruptIsNoFailure() throws Exception {
+    RemoteCheckCoalescer coalescer = new RemoteCheckCoalescer(remoteLanguageTool, 10000);
+    List<String> paragraphs = getParagraphs();
+    Future<RemoteMatches> leader = executor.submit(() -> coalescer.check(paragraphs.get(0), "test", remoteConfig));
+    Thread.sleep(WINDOW / 6);
+    AtomicReference<Throwable> followerResult = new AtomicReference<>();
+    Thread follower = new Thread(() -> {
+      try {
+        coalescer.check(paragraphs.get(1), "test", remoteConfig);
+      } catch (Throwable t) {
+        followerResult.set(t);
+      }
+    });
+    follower.start();
+    Thread.sleep(WINDOW / 6);
+    follower.interrupt();
+    follower.join();
+    assertTrue(followerResult.get() instanceof InterruptedIOException);
+    //  the check of the other paragraphs of the batch isn't affected
+    List<RemoteMatches> results = new ArrayList<>();
+    results.add(leader.get());
+    assertMatchesOfParagraphs(paragraphs.subList(0, 1), results);
+  }
+
+}
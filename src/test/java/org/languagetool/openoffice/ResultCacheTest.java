@@ -0,0 +1,222 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.sun.star.beans.PropertyValue;
+import com.sun.star.linguistic2.SingleProofreadingError;
+
+public class ResultCacheTest {
+
+  private static final String RULE_A = "RULE_A";
+  private static final String RULE_B = "RULE_B";
+  private static final String[] RULES = { RULE_A, RULE_B, "RULE_C" };
+  private static final int MAX_PARAGRAPH = 60;
+
+  private static SingleProofreadingError[] createErrors(String... ruleIds) {
+    SingleProofreadingError[] errors = new SingleProofreadingError[ruleIds.length];
+    for (int i = 0; i < ruleIds.length; i++) {
+      SingleProofreadingError error = new SingleProofreadingError();
+      error.aRuleIdentifier = ruleIds[i];
+      error.nErrorStart = i;
+      error.nErrorLength = 1;
+      error.aShortComment = "";
+      error.aFullComment = "";
+      error.aSuggestions = new String[0];
+      error.aProperties = new PropertyValue[0];
+      errors[i] = error;
+    }
+    return errors;
+  }
+
+  /**
+   * the indices of paragraphs with errors have to give the same results as a scan of all cache entries
+   */
+  private static void assertIndexConsistent(ResultCache cache) {
+    List<Integer> errorParagraphs = new ArrayList<>();
+    List<List<Integer>> ruleParagraphs = new ArrayList<>();
+    for (int i = 0; i < RULES.length; i++) {
+      ruleParagraphs.add(new ArrayList<>());
+    }
+    for (int n = 0; n < MAX_PARAGRAPH; n++) {
+      SingleProofreadingError[] errors = cache.getSafeMatches(n);
+      if (errors != null && errors.length > 0) {
+        errorParagraphs.add(n);
+        for (int i = 0; i < RULES.length; i++) {
+          for (SingleProofreadingError error : errors) {
+            if (error.aRuleIdentifier.equals(RULES[i])) {
+              ruleParagraphs.get(i).add(n);
+              break;
+            }
+          }
+        }
+      }
+    }
+    for (int i = 0; i < RULES.length; i++) {
+      assertEquals(RULES[i], ruleParagraphs.get(i), cache.getParagraphsWithRuleError(RULES[i]));
+    }
+    for (int n = 0; n < MAX_PARAGRAPH; n++) {
+      int next = -1;
+      for (int p : errorParagraphs) {
+        if (p >= n) {
+          next = p;
+          break;
+        }
+      }
+      assertEquals(next, cache.getNextParagraphWithErrors(n));
+    }
+  }
+
+  /**
+   * cache with errors of RULE_A at 1, 5; RULE_B at 1, 7; an entry without errors at 3
+   */
+  private static ResultCache createCache() {
+    ResultCache cache = new ResultCache();
+    cache.put(1, createErrors(RULE_A, RULE_B));
+    cache.put(3, createErrors());
+    cache.put(5, createErrors(RULE_A));
+    cache.put(7, null, createErrors(RULE_B));
+    return cache;
+  }
+
+  @Test
+  public void testPut() {
+    ResultCache cache = createCache();
+    assertEquals(Arrays.asList(1, 5), cache.getParagraphsWithRuleError(RULE_A));
+    assertEquals(Arrays.asList(1, 7), cache.getParagraphsWithRuleError(RULE_B));
+    assertIndexConsistent(cache);
+    //  replacing an entry removes the paragraph from the index of the old rules
+    cache.put(1, createErrors(RULE_B));
+    assertEquals(Arrays.asList(5), cache.getParagraphsWithRuleError(RULE_A));
+    assertIndexConsistent(cache);
+    cache.put(5, createErrors());
+    assertEquals(new ArrayList<>(), cache.getParagraphsWithRuleError(RULE_A));
+    assertEquals(1, cache.getNextParagraphWithErrors(0));
+    assertEquals(7, cache.getNextParagraphWithErrors(2));
+    assertIndexConsistent(cache);
+    cache.add(3, createErrors(RULE_A));
+    assertEquals(Arrays.asList(3), cache.getParagraphsWithRuleError(RULE_A));
+    assertIndexConsistent(cache);
+  }
+
+  @Test
+  public void testRemove() {
+    ResultCache cache = createCache();
+    cache.remove(1);
+    assertEquals(Arrays.asList(5), cache.getParagraphsWithRuleError(RULE_A));
+    assertEquals(Arrays.asList(7), cache.getParagraphsWithRuleError(RULE_B));
+    assertEquals(5, cache.getNextParagraphWithErrors(0));
+    assertIndexConsistent(cache);
+    cache.remove(2);
+    assertIndexConsistent(cache);
+    assertEquals(Arrays.asList(5), cache.removeRuleError(RULE_A));
+    assertEquals(7, cache.getNextParagraphWithErrors(0));
+    assertIndexConsistent(cache);
+  }
+
+  @Test
+  public void testRemoveRange() {
+    ResultCache cache = createCache();
+    cache.removeRange(1, 5);
+    assertEquals(new ArrayList<>(), cache.getParagraphsWithRuleError(RULE_A));
+    assertEquals(Arrays.asList(7), cache.getParagraphsWithRuleError(RULE_B));
+    assertEquals(7, cache.getNextParagraphWithErrors(0));
+    assertIndexConsistent(cache);
+  }
+
+  @Test
+  public void testRemoveAndShift() {
+    //  two paragraphs inserted at 2
+    ResultCache cache = createCache();
+    cache.removeAndShift(2, 4, 10, 12);
+    assertEquals(Arrays.asList(1, 7), cache.getParagraphsWithRuleError(RULE_A));
+    assertEquals(Arrays.asList(1, 9), cache.getParagraphsWithRuleError(RULE_B));
+    assertEquals(7, cache.getNextParagraphWithErrors(2));
+    assertIndexConsistent(cache);
+    //  paragraphs 2 to 6 deleted (the changed range is related to the new size)
+    cache = createCache();
+    cache.removeAndShift(2, 2, 10, 6);
+    assertEquals(Arrays.asList(1), cache.getParagraphsWithRuleError(RULE_A));
+    assertEquals(Arrays.asList(1, 3), cache.getParagraphsWithRuleError(RULE_B));
+    assertEquals(3, cache.getNextParagraphWithErrors(2));
+    assertIndexConsistent(cache);
+  }
+
+  @Test
+  public void testReplace() {
+    ResultCache cache = new ResultCache();
+    cache.put(2, createErrors(RULE_A));
+    cache.replace(createCache());
+    assertEquals(Arrays.asList(1, 5), cache.getParagraphsWithRuleError(RULE_A));
+    assertEquals(Arrays.asList(1, 7), cache.getParagraphsWithRuleError(RULE_B));
+    assertIndexConsistent(cache);
+    assertIndexConsistent(new ResultCache(cache));
+    cache.replace(null);
+    assertEquals(new ArrayList<>(), cache.getParagraphsWithRuleError(RULE_A));
+    assertEquals(-1, cache.getNextParagraphWithErrors(0));
+  }
+
+  @Test
+  public void testRandomChanges() {
+    Random random = new Random(47);
+    ResultCache cache = new ResultCache();
+    for (int i = 0; i < 2000; i++) {
+      int n = random.nextInt(MAX_PARAGRAPH / 2);
+      switch (random.nextInt(6)) {
+        case 0:
+        case 1:
+          List<String> ruleIds = new ArrayList<>();
+          for (String ruleId : RULES) {
+            if (random.nextInt(3) == 0) {
+              ruleIds.add(ruleId);
+            }
+          }
+          cache.put(n, createErrors(ruleIds.toArray(new String[0])));
+          break;
+        case 2:
+          cache.remove(n);
+          break;
+        case 3:
+          cache.removeRange(n, n + random.nextInt(4));
+          break;
+        case 4:
+          int oldSize = MAX_PARAGRAPH / 2;
+          int newSize = oldSize + random.nextInt(7) - 3;
+          cache.removeAndShift(n, n + Math.max(0, newSize - oldSize) + random.nextInt(2), oldSize, newSize);
+          //  paragraphs shifted behind the end of the document are removed
+          cache.removeRange(oldSize, MAX_PARAGRAPH);
+          break;
+        default:
+          ResultCache copy = new ResultCache();
+          copy.replace(cache);
+          cache = copy;
+      }
+      assertIndexConsistent(cache);
+    }
+  }
+
+}
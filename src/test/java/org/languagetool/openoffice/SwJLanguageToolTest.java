@@ -0,0 +1,171 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.languagetool.JLanguageTool.ParagraphHandling;
+import org.languagetool.Languages;
+import org.languagetool.openoffice.OfficeTools.RemoteCheck;
+import org.languagetool.rules.RuleMatch;
+
+public class SwJLanguageToolTest {
+
+  private static final int WINDOW = 300;          //  long enough to collect all paragraphs of a test
+  private static final int N_PARAGRAPHS = 8;
+  private static final String PARA_RULE_ID = "PARA_TEXT_RULE";
+  private static final String TEXT_RULE_ID = "MULTI_PARA_TEXT_RULE";
+
+  private LtServerStandIn server;
+  private SwJLanguageTool swLt;
+  private ExecutorService executor;
+  private int oldWindow;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new LtServerStandIn();
+    List<Map<String,String>> ruleMaps = new ArrayList<>();
+    ruleMaps.add(createRuleMap(LtServerStandIn.RULE_ID, null));
+    ruleMaps.add(createRuleMap(PARA_RULE_ID, "0"));
+    ruleMaps.add(createRuleMap(TEXT_RULE_ID, "-1"));
+    LORemoteLanguageTool rlt = new LORemoteLanguageTool(Languages.getLanguageForShortCode("en-US"), server.getUrl(), ruleMaps);
+    swLt = new SwJLanguageTool(rlt);
+    executor = Executors.newCachedThreadPool();
+    oldWindow = OfficeTools.REMOTE_COALESCING_WINDOW;
+    OfficeTools.REMOTE_COALESCING_WINDOW = WINDOW;
+  }
+
+  @After
+  public void tearDown() {
+    OfficeTools.REMOTE_COALESCING_WINDOW = oldWindow;
+    executor.shutdownNow();
+    server.stop();
+  }
+
+  /**
+   * rule map as sent by the server (minToCheckParagraph == null: sentence level rule)
+   */
+  private static Map<String,String> createRuleMap(String ruleId, String minToCheckParagraph) {
+    Map<String,String> ruleMap = new HashMap<>();
+    ruleMap.put("ruleId", ruleId);
+    ruleMap.put("description", "Test rule " + ruleId);
+    ruleMap.put("categoryId", "TYPOS");
+    ruleMap.put("categoryName", "Possible Typo");
+    ruleMap.put("locQualityIssueType", "misspelling");
+    if (minToCheckParagraph != null) {
+      ruleMap.put("isTextLevelRule", "true");
+      ruleMap.put("minToCheckParagraph", minToCheckParagraph);
+    }
+    return ruleMap;
+  }
+
+  private static List<String> getParagraphs(String name) {
+    List<String> paragraphs = new ArrayList<>();
+    for (int i = 0; i < N_PARAGRAPHS; i++) {
+      StringBuilder sb = new StringBuilder(name + " paragraph " + i);
+      for (int j = 0; j <= i % 3; j++) {
+        sb.append(" has an ").append(LtServerStandIn.ERROR_WORD);
+      }
+      paragraphs.add(sb.append('.').toString());
+    }
+    return paragraphs;
+  }
+
+  /**
+   * check all paragraphs in parallel threads (as done for the single paragraphs of a document)
+   * and test the positions of the matches
+   */
+  private void checkParallel(List<String> paragraphs) throws Exception {
+    List<Future<List<RuleMatch>>> futures = new ArrayList<>();
+    for (String paragraph : paragraphs) {
+      futures.add(executor.submit(() -> swLt.check(paragraph, ParagraphHandling.NORMAL, -1, null, RemoteCheck.ALL)));
+    }
+    for (int i = 0; i < paragraphs.size(); i++) {
+      List<Integer> positions = new ArrayList<>();
+      for (RuleMatch match : futures.get(i).get()) {
+        assertEquals(LtServerStandIn.RULE_ID, match.getRule().getId());
+        positions.add(match.getFromPos());
+      }
+      assertEquals(LtServerStandIn.getErrorPositions(paragraphs.get(i)), positions);
+    }
+    assertFalse(swLt.doReset());
+  }
+
+  private static int countParagraphs(List<String> requests) {
+    int nParagraphs = 0;
+    for (String request : requests) {
+      nParagraphs += request.split(OfficeTools.END_OF_PARAGRAPH).length;
+    }
+    return nParagraphs;
+  }
+
+  @Test
+  public void testSingleParagraphChecksAreBatched() throws Exception {
+    //  the text level rules over more than one paragraph are disabled for the check of single paragraphs
+    //  (see SortedTextRules.activateTextRulesByIndex)
+    swLt.disableRule(TEXT_RULE_ID);
+    List<String> paragraphs = getParagraphs("Batched");
+    checkParallel(paragraphs);
+    List<String> requests = server.getRequestTexts();
+    assertTrue(requests.size() < paragraphs.size());
+    assertEquals(paragraphs.size(), countParagraphs(requests));
+    //  the text level rules inside of a paragraph are still checked
+    for (String mode : server.getRequestModes()) {
+      assertFalse("allButTextLevelOnly".equals(mode));
+    }
+  }
+
+  @Test
+  public void testChecksWithTextRulesAreNotBatched() throws Exception {
+    //  a text level rule over more than one paragraph gives different results for a batch
+    List<String> paragraphs = getParagraphs("Single");
+    checkParallel(paragraphs);
+    List<String> requests = server.getRequestTexts();
+    assertEquals(paragraphs.size(), requests.size());
+    assertEquals(paragraphs.size(), countParagraphs(requests));
+  }
+
+  @Test
+  public void testTextLevelQueueIsNotBatched() throws Exception {
+    swLt.disableRule(TEXT_RULE_ID);
+    List<Future<List<RuleMatch>>> futures = new ArrayList<>();
+    for (String paragraph : getParagraphs("Queue")) {
+      futures.add(executor.submit(() -> swLt.check(paragraph, ParagraphHandling.ONLYPARA, -1, null, RemoteCheck.ALL)));
+    }
+    for (Future<List<RuleMatch>> future : futures) {
+      future.get();
+    }
+    assertEquals(N_PARAGRAPHS, server.getRequestTexts().size());
+  }
+
+}
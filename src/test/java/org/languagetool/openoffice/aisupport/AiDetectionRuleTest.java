@@ -0,0 +1,147 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice.aisupport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AiDetectionRuleTest {
+
+  private static final String[] TOKENS = { "a", "b", "c", ",", ".", "\"", "“", "„", "'", "’", "-", "–" };
+
+  private static List<AiToken> createTokens(String... tokens) {
+    List<AiToken> aiTokens = new ArrayList<>();
+    int pos = 0;
+    for (String token : tokens) {
+      aiTokens.add(new AiToken(token, pos, null, false));
+      pos += token.length() + 1;
+    }
+    return aiTokens;
+  }
+
+  private static boolean isEqual(List<AiToken> paraTokens, List<AiToken> resultTokens, int i, int j) {
+    return paraTokens.get(i).token.equals(resultTokens.get(j).token)
+        || AiDetectionRule.isIgnoredToken(paraTokens.get(i).token, resultTokens.get(j).token);
+  }
+
+  /**
+   * search of growing squares, as done by AiDetectionRule.match before the token index was used
+   */
+  private static int[] findNextSyncPositionBySquares(List<AiToken> paraTokens, List<AiToken> resultTokens, int i, int j) {
+    for (int n = 1; i + n < paraTokens.size() && j + n < resultTokens.size(); n++) {
+      for (int i1 = i + n; i1 >= i; i1--) {
+        for (int j1 = j + n; j1 >= j; j1--) {
+          if (isEqual(paraTokens, resultTokens, i1, j1)) {
+            return new int[] { i1, j1 };
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  private static int[] findNextSyncPosition(List<AiToken> paraTokens, List<AiToken> resultTokens, int i, int j) {
+    return AiDetectionRule.findNextSyncPosition(paraTokens, resultTokens,
+        AiDetectionRule.getTokenIndex(resultTokens), i, j);
+  }
+
+  @Test
+  public void testQuotesAndDashes() {
+    //  all quotes are equivalent
+    List<AiToken> paraTokens = createTokens("a", "“", "b");
+    List<AiToken> resultTokens = createTokens("x", "\"", "b");
+    assertArrayEquals(new int[] { 1, 1 }, findNextSyncPosition(paraTokens, resultTokens, 0, 0));
+    paraTokens = createTokens("a", "’", "b");
+    resultTokens = createTokens("x", "\"", "b");
+    assertArrayEquals(new int[] { 1, 1 }, findNextSyncPosition(paraTokens, resultTokens, 0, 0));
+    //  a dash of the paragraph is equivalent to a hyphen of the result, but not the other way round
+    paraTokens = createTokens("a", "–", "b");
+    resultTokens = createTokens("x", "-", "b");
+    assertArrayEquals(new int[] { 1, 1 }, findNextSyncPosition(paraTokens, resultTokens, 0, 0));
+    paraTokens = createTokens("a", "-", "b");
+    resultTokens = createTokens("x", "–", "b");
+    assertArrayEquals(new int[] { 2, 2 }, findNextSyncPosition(paraTokens, resultTokens, 0, 0));
+  }
+
+  @Test
+  public void testTiesOnDistance() {
+    //  (2, 1) and (1, 2) have the same distance: the higher paragraph position is taken
+    List<AiToken> paraTokens = createTokens("a", "b", "c");
+    List<AiToken> resultTokens = createTokens("x", "c", "b");
+    assertArrayEquals(new int[] { 2, 1 }, findNextSyncPosition(paraTokens, resultTokens, 0, 0));
+    //  (1, 0) and (1, 1) have the same distance and paragraph position: the higher result position is taken
+    paraTokens = createTokens("a", "b", "c");
+    resultTokens = createTokens("b", "b", "c");
+    assertArrayEquals(new int[] { 1, 1 }, findNextSyncPosition(paraTokens, resultTokens, 0, 0));
+    //  a nearer pair wins over a farther one
+    paraTokens = createTokens("a", "b", "c", "d");
+    resultTokens = createTokens("x", "d", "b", "c");
+    assertArrayEquals(new int[] { 1, 2 }, findNextSyncPosition(paraTokens, resultTokens, 0, 0));
+  }
+
+  @Test
+  public void testSyncAtListEnd() {
+    List<AiToken> paraTokens = createTokens("a", "b", "c");
+    List<AiToken> resultTokens = createTokens("x", "y", "c");
+    assertArrayEquals(new int[] { 2, 2 }, findNextSyncPosition(paraTokens, resultTokens, 0, 0));
+    //  no equal tokens
+    assertNull(findNextSyncPosition(createTokens("a", "b"), createTokens("x", "y"), 0, 0));
+    //  the pair has to lie inside the square of both lists
+    assertNull(findNextSyncPosition(createTokens("a", "b", "c", "d"), createTokens("x", "d"), 0, 0));
+    //  difference at the last tokens
+    assertNull(findNextSyncPosition(createTokens("a", "b"), createTokens("a", "c"), 1, 1));
+  }
+
+  @Test
+  public void testSameAsSearchOfSquares() {
+    Random random = new Random(36);
+    for (int n = 0; n < 20000; n++) {
+      List<AiToken> paraTokens = createRandomTokens(random);
+      List<AiToken> resultTokens = createRandomTokens(random);
+      int i = random.nextInt(paraTokens.size());
+      int j = random.nextInt(resultTokens.size());
+      if (isEqual(paraTokens, resultTokens, i, j)) {
+        //  the search is only started at a difference
+        continue;
+      }
+      int[] expected = findNextSyncPositionBySquares(paraTokens, resultTokens, i, j);
+      int[] syncPos = findNextSyncPosition(paraTokens, resultTokens, i, j);
+      if (expected == null) {
+        assertNull(syncPos);
+      } else {
+        assertArrayEquals(expected, syncPos);
+      }
+    }
+  }
+
+  private static List<AiToken> createRandomTokens(Random random) {
+    String[] tokens = new String[1 + random.nextInt(15)];
+    for (int i = 0; i < tokens.length; i++) {
+      tokens[i] = TOKENS[random.nextInt(TOKENS.length)];
+    }
+    return createTokens(tokens);
+  }
+
+}
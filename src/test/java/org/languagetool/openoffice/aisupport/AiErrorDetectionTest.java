@@ -0,0 +1,59 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice.aisupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AiErrorDetectionTest {
+
+  @Test
+  public void testBatchText() {
+    assertEquals("[[1]] First para. [[2]] Second para.", 
+        AiErrorDetection.getBatchText(Arrays.asList("First para.", "Second para.")));
+  }
+
+  @Test
+  public void testJoinSentenceResults() {
+    assertEquals(" Corrected one.  Second sentence. ", AiErrorDetection.joinSentenceResults(
+        Arrays.asList(" Corect one.  ", "Second sentence. "), Arrays.asList("Corrected one.", "Second sentence.")));
+    assertEquals("First.\n Second.", AiErrorDetection.joinSentenceResults(
+        Arrays.asList("first.\n", " ", "second."), Arrays.asList("First.", "", "Second.")));
+  }
+
+  @Test
+  public void testSplitBatchResult() {
+    List<String> results = AiErrorDetection.splitBatchResult("[[1]] First paragraph.\r[[2]] Second one.\r[[3]] Third.", 3);
+    assertEquals(Arrays.asList("First paragraph.", "Second one.", "Third."), results);
+    //  damaged markers
+    assertNull(AiErrorDetection.splitBatchResult("[[1]] First paragraph. [[3]] Third.", 3));
+    assertNull(AiErrorDetection.splitBatchResult("[[1]] First paragraph. [2] Second one. [[3]] Third.", 3));
+    assertNull(AiErrorDetection.splitBatchResult("[[2]] Second one. [[1]] First paragraph.", 2));
+    assertNull(AiErrorDetection.splitBatchResult("[[1]] First. [[2]] Second. [[3]] Third.", 2));
+    assertNull(AiErrorDetection.splitBatchResult("Here is the text: [[1]] First. [[2]] Second.", 2));
+    //  missing paragraph
+    assertNull(AiErrorDetection.splitBatchResult("[[1]] First. [[2]]", 2));
+  }
+
+}
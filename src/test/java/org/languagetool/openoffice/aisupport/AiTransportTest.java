@@ -0,0 +1,153 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice.aisupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.languagetool.openoffice.aisupport.AiTransport.Response;
+import org.languagetool.openoffice.aisupport.AiTransport.TokenBucket;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class AiTransportTest {
+
+  private HttpServer server;
+  private URL url;
+  private URL streamUrl;
+  private final AtomicInteger nRequests = new AtomicInteger();
+  private volatile int nFailures;
+  private volatile int failureCode;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/v1/chat/completions", exchange -> {
+      int n = nRequests.incrementAndGet();
+      try (InputStream in = exchange.getRequestBody()) {
+        while (in.read() >= 0) {
+        }
+      }
+      int code = n <= nFailures ? failureCode : 200;
+      byte[] answer = (code == 200 ? "{\"answer\": " + n + "}" : "{\"error\": \"busy\"}").getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(code, answer.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(answer);
+      }
+    });
+    server.createContext("/v1/stream", exchange -> {
+      nRequests.incrementAndGet();
+      try (InputStream in = exchange.getRequestBody()) {
+        while (in.read() >= 0) {
+        }
+      }
+      exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+      exchange.sendResponseHeaders(200, 0);   //  chunked
+      try (OutputStream out = exchange.getResponseBody()) {
+        for (int i = 0; i < 3; i++) {
+          out.write(("data: {\"n\": " + i + "}\n\n").getBytes(StandardCharsets.UTF_8));
+          out.flush();
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        //  client has canceled the stream
+      }
+    });
+    server.start();
+    url = new URL("http://localhost:" + server.getAddress().getPort() + "/v1/chat/completions");
+    streamUrl = new URL("http://localhost:" + server.getAddress().getPort() + "/v1/stream");
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  public void testRetryOnServerError() throws IOException {
+    nFailures = 2;
+    failureCode = 503;
+    AiTransport transport = new AiTransport(2, 1000, 10, 3, 10);
+    Response response = transport.post(url, "key", "{}");
+    assertTrue(response.isOk());
+    assertEquals("{\"answer\": 3}", response.body);
+    assertEquals(3, nRequests.get());
+  }
+
+  @Test
+  public void testNoRetryOnClientError() throws IOException {
+    nFailures = 1;
+    failureCode = 400;
+    AiTransport transport = new AiTransport(2, 1000, 10, 3, 10);
+    Response response = transport.post(url, "key", "{}");
+    assertEquals(400, response.code);
+    assertEquals(1, nRequests.get());
+  }
+
+  @Test
+  public void testRetriesExhausted() throws IOException {
+    nFailures = 10;
+    failureCode = 429;
+    AiTransport transport = new AiTransport(2, 1000, 10, 2, 10);
+    Response response = transport.post(url, "key", "{}");
+    assertEquals(429, response.code);
+    assertEquals(3, nRequests.get());
+  }
+
+  @Test
+  public void testStream() throws IOException {
+    AiTransport transport = new AiTransport(2, 1000, 10, 3, 10);
+    List<String> data = new ArrayList<>();
+    Response response = transport.post(streamUrl, "key", "{}", d -> data.add(d));
+    assertTrue(response.isOk());
+    assertFalse(response.isCanceled);
+    assertEquals(Arrays.asList("{\"n\": 0}", "{\"n\": 1}", "{\"n\": 2}"), data);
+    data.clear();
+    response = transport.post(streamUrl, "key", "{}", d -> data.add(d) && data.size() < 2);
+    assertTrue(response.isCanceled);
+    assertEquals(2, data.size());
+  }
+
+  @Test
+  public void testTokenBucket() {
+    TokenBucket bucket = new TokenBucket(10, 2);
+    assertEquals(0, bucket.reserve());
+    assertEquals(0, bucket.reserve());
+    long waitTime = bucket.reserve();
+    assertTrue(waitTime > 0 && waitTime <= 100);
+    waitTime = bucket.reserve();
+    assertTrue(waitTime > 100 && waitTime <= 200);
+  }
+
+}
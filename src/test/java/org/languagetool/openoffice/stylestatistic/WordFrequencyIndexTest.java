@@ -0,0 +1,169 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2024 Fred Kruse
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice.stylestatistic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import org.languagetool.openoffice.stylestatistic.WordFrequencyIndex.MostUsedWords;
+
+public class WordFrequencyIndexTest {
+
+  @Test
+  public void testMostUsed() {
+    List<Map<String, Integer>> paras = new ArrayList<>();
+    paras.add(map("house", 2, "tree", 1));
+    paras.add(map("tree", 3));
+    paras.add(new HashMap<>());
+    paras.add(map("house", 1, "car", 5));
+    WordFrequencyIndex index = new WordFrequencyIndex(paras);
+    MostUsedWords mostUsed = index.getMostUsed(0, 4, 2, null);
+    assertEquals(12, mostUsed.nWords);
+    assertEquals(2, mostUsed.words.size());
+    assertEquals("car", mostUsed.words.get(0).word);
+    assertEquals(5, mostUsed.words.get(0).count);
+    assertEquals("tree", mostUsed.words.get(1).word);
+    mostUsed = index.getMostUsed(0, 2, 10, Collections.singletonList("tree"));
+    assertEquals(2, mostUsed.nWords);
+    assertEquals(1, mostUsed.words.size());
+    assertEquals("house", mostUsed.words.get(0).word);
+    assertEquals(3, index.getCount(1, "tree"));
+    assertEquals(0, index.getCount(2, "tree"));
+    assertEquals(0, index.getCount(0, "unknown"));
+    assertEquals(map("house", 1, "car", 5), index.getWordCounts(3));
+    assertTrue(index.getWordCounts(2).isEmpty());
+  }
+
+  @Test
+  public void testRangesAgainstMergedMaps() {
+    Random random = new Random(5);
+    List<Map<String, Integer>> paras = new ArrayList<>();
+    for (int i = 0; i < 57; i++) {
+      Map<String, Integer> wordMap = new HashMap<>();
+      for (int j = random.nextInt(8); j > 0; j--) {
+        wordMap.merge("w" + random.nextInt(30), 1 + random.nextInt(3), Integer::sum);
+      }
+      paras.add(wordMap);
+    }
+    WordFrequencyIndex index = new WordFrequencyIndex(paras);
+    for (int n = 0; n < 500; n++) {
+      int from = random.nextInt(paras.size());
+      int to = from + random.nextInt(paras.size() - from + 1);
+      Map<String, Integer> merged = new HashMap<>();
+      long nWords = 0;
+      for (int i = from; i < to; i++) {
+        for (Map.Entry<String, Integer> entry : paras.get(i).entrySet()) {
+          merged.merge(entry.getKey(), entry.getValue(), Integer::sum);
+          nWords += entry.getValue();
+        }
+      }
+      MostUsedWords mostUsed = index.getMostUsed(from, to, 5, null);
+      assertEquals(nWords, mostUsed.nWords);
+      assertEquals(Math.min(5, merged.size()), mostUsed.words.size());
+      List<Integer> counts = new ArrayList<>(merged.values());
+      counts.sort(Collections.reverseOrder());
+      for (int i = 0; i < mostUsed.words.size(); i++) {
+        assertEquals((int) counts.get(i), mostUsed.words.get(i).count);
+        assertEquals((int) merged.get(mostUsed.words.get(i).word), mostUsed.words.get(i).count);
+        assertTrue(i == 0 || mostUsed.words.get(i - 1).count >= mostUsed.words.get(i).count);
+      }
+    }
+  }
+
+  @Test
+  public void testReplaceParagraphs() {
+    Random random = new Random(11);
+    List<Map<String, Integer>> paras = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      paras.add(randomMap(random));
+    }
+    WordFrequencyIndex index = new WordFrequencyIndex(paras);
+    for (int n = 0; n < 200; n++) {
+      int from = random.nextInt(paras.size() + 1);
+      int oldTo = from + random.nextInt(Math.min(4, paras.size() - from + 1));
+      int nNew = n % 2 == 0 ? oldTo - from : random.nextInt(4);
+      List<Map<String, Integer>> newParas = new ArrayList<>();
+      for (int i = 0; i < nNew; i++) {
+        newParas.add(randomMap(random));
+      }
+      index.replaceParagraphs(from, oldTo, newParas);
+      paras.subList(from, oldTo).clear();
+      paras.addAll(from, newParas);
+      WordFrequencyIndex newIndex = new WordFrequencyIndex(paras);
+      assertEquals(paras.size(), index.size());
+      int to = from + random.nextInt(paras.size() - from + 1);
+      MostUsedWords expected = newIndex.getMostUsed(from / 2, to, 100, null);
+      MostUsedWords mostUsed = index.getMostUsed(from / 2, to, 100, null);
+      assertEquals(expected.nWords, mostUsed.nWords);
+      assertEquals(expected.words.size(), mostUsed.words.size());
+      for (int i = 0; i < mostUsed.words.size(); i++) {
+        assertEquals(expected.words.get(i).count, mostUsed.words.get(i).count);
+      }
+    }
+  }
+
+  @Test
+  public void testRepeatedQueries() {
+    List<Map<String, Integer>> paras = new ArrayList<>();
+    paras.add(map("house", 2, "tree", 1));
+    paras.add(map("tree", 3));
+    WordFrequencyIndex index = new WordFrequencyIndex(paras);
+    //  no counts of a query are left for the following queries
+    assertEquals(6, index.getMostUsed(0, 2, 10, null).nWords);
+    assertEquals(2, index.getMostUsed(0, 2, 10, Collections.singletonList("tree")).nWords);
+    assertEquals(6, index.getMostUsed(0, 2, 10, null).nWords);
+    assertEquals(3, index.getMostUsed(1, 2, 10, null).nWords);
+    //  new words after the first query
+    List<Map<String, Integer>> newParas = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      newParas.add(map("new" + i, i + 1));
+    }
+    index.replaceParagraphs(1, 2, newParas);
+    MostUsedWords mostUsed = index.getMostUsed(0, index.size(), 1, null);
+    assertEquals(3 + 210, mostUsed.nWords);
+    assertEquals("new19", mostUsed.words.get(0).word);
+    assertEquals(20, mostUsed.words.get(0).count);
+    assertEquals(2, index.getMostUsed(0, 1, 10, Collections.singletonList("tree")).nWords);
+  }
+
+  private static Map<String, Integer> randomMap(Random random) {
+    Map<String, Integer> wordMap = new HashMap<>();
+    for (int j = random.nextInt(6); j > 0; j--) {
+      wordMap.merge("w" + random.nextInt(20), 1 + random.nextInt(3), Integer::sum);
+    }
+    return wordMap;
+  }
+
+  private static Map<String, Integer> map(Object... wordCounts) {
+    Map<String, Integer> wordMap = new HashMap<>();
+    for (int i = 0; i < wordCounts.length; i += 2) {
+      wordMap.put((String) wordCounts[i], (Integer) wordCounts[i + 1]);
+    }
+    return wordMap;
+  }
+
+}